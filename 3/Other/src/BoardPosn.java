@@ -1,5 +1,9 @@
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.List;
 
+import game.json.BoardAdapter;
+
 /**
  * Class to represent the Board-Posn type objects in Java after being deserialized
  * from JSON.
@@ -9,7 +13,8 @@ import java.util.List;
  */
 public class BoardPosn {
   private List<Integer> position;
-  private List<List<Integer>> board;
+  @JsonAdapter(BoardAdapter.class)
+  private int[][] board;
 
   /**
    * Returns the 2-integer position array Java equivalent of the JSON Position.
@@ -20,10 +25,10 @@ public class BoardPosn {
   }
 
   /**
-   * Getter for the Board list-of-lists.
+   * Getter for the Board grid of fish counts.
    * @return Returns the Board Java-equivalent of the JSON array of arrays.
    */
-  public List<List<Integer>> getBoard() {
+  public int[][] getBoard() {
     return board;
   }
 }
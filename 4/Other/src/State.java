@@ -1,3 +1,5 @@
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -5,6 +7,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import game.json.BoardAdapter;
 import game.model.Board;
 import game.model.BoardPosition;
 import game.model.GameState;
@@ -20,7 +23,8 @@ import game.model.Player;
  */
 public class State {
   private List<TestPlayer> players;
-  private List<List<Integer>> board;
+  @JsonAdapter(BoardAdapter.class)
+  private int[][] board;
 
   public State(GameState gs, HashSet<Player> pset, Board b) {
     HashMap<BoardPosition, Penguin> map = gs.getPenguins();
@@ -55,26 +59,16 @@ public class State {
     TestPlayer tp = new TestPlayer(fp.getColor(), fp.getFish(), penguins);
     this.players.add(tp);
 
-    this.board = new ArrayList<>();
+    this.board = new int[b.getRows()][b.getCols()];
     for (int i = 0; i < b.getRows(); i++) {
-      ArrayList<Integer> thisRow = new ArrayList<>();
       for (int j = 0; j < b.getCols(); j++) {
-        thisRow.add(b.getSpace(new BoardPosition(i, j)).getNumFish());
+        board[i][j] = b.getSpace(new BoardPosition(i, j)).getNumFish();
       }
-      board.add(thisRow);
     }
   }
 
   public Board getBoard() {
-    int rows = board.size();
-    int cols = 0;
-    for (List<Integer> integers : board) {
-      if (integers.size() > cols) {
-        cols = integers.size();
-      }
-    }
-
-    return new Board(rows, cols, board);
+    return new Board(board);
   }
 
   public LinkedHashSet<Player> getPlayers() {
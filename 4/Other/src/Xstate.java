@@ -1,12 +1,11 @@
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
-import java.io.InputStream;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Scanner;
 
+import game.json.JsonInput;
 import game.model.Action;
 import game.model.Board;
 import game.model.BoardPosition;
@@ -20,9 +19,17 @@ public class Xstate {
 
   public static void main(String[] args) {
     Gson gson = new GsonBuilder().create();
-    String rawJson = parseInput(System.in);
+    System.out.println(solve(new JsonInput(System.in).next(gson, State.class)));
+  }
 
-    State s = gson.fromJson(rawJson, State.class);
+  /**
+   * Moves the first penguin of the first player of a State one tile north, or to the neighbor in
+   * the first of the other directions, clockwise, that it can move to.
+   * @param s the State
+   * @return the JSON State after the move, or false if the penguin cannot move
+   */
+  static String solve(State s) {
+    Gson gson = new GsonBuilder().create();
 
     List<TestPlayer> tplayers = s.getTestPlayers();
     LinkedHashSet<Player> realPlayers = s.getPlayers();
@@ -33,8 +40,7 @@ public class Xstate {
     Board b = s.getBoard();
 
     if (realPlayers.isEmpty()) {
-      System.out.println(gson.toJson(false));
-      return;
+      return gson.toJson(false);
     }
 
     GameState gs = new GameState(realPlayers, b);
@@ -46,20 +52,17 @@ public class Xstate {
     }
 
     if (tplayers.isEmpty()) {
-      System.out.println(gson.toJson(false));
-      return;
+      return gson.toJson(false);
     }
     Player mover = colorPlayers.get(tplayers.get(0).getColor());
     if (tplayers.get(0).getPlaces().isEmpty()) {
-      System.out.println(gson.toJson(false));
-      return;
+      return gson.toJson(false);
     }
     BoardPosition start = tplayers.get(0).getPlaces().get(0);
     List<Action> moves = gs.getPossibleActions();
 
     if (moves.contains(new Pass(mover))) {
-      System.out.println(gson.toJson(false));
-      return;
+      return gson.toJson(false);
     } else {
       Move north = new Move(generateMove(start, DIRECTION.N), start, mover);
       Move northeast = new Move(generateMove(start, DIRECTION.NE), start, mover);
@@ -84,29 +87,9 @@ public class Xstate {
 
     // get here - have performed a move
     State outState = new State(gs, realPlayers, b);
-    System.out.println(gson.toJson(outState));
-
+    return gson.toJson(outState);
   }
 
-  /**
-   * Helper method to parse all JSON input from an input stream
-   * and create the appropriate JSON objects to return.
-   * @param istream Input stream to read from.
-   * @return raw JSON from the input stream as a String
-   */
-  private static String parseInput(InputStream istream) {
-    // Open a scanner to accept all the JSON values
-    // into one string to give to a parser
-    Scanner input = new Scanner(istream);
-    StringBuilder rawJson = new StringBuilder();
-    while (input.hasNextLine()) {
-      rawJson.append(input.nextLine());
-      rawJson.append("\n");
-    }
-
-    return rawJson.toString();
-
-  }
 
   public static BoardPosition generateMove(BoardPosition bp, DIRECTION d) {
     VERTICAL vertical;
@@ -188,6 +171,4 @@ public class Xstate {
     LEFT,
     RIGHT
   }
-
-
 }
\ No newline at end of file
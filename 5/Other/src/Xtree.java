@@ -2,11 +2,10 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Scanner;
 
+import game.json.JsonInput;
 import game.model.Action;
 import game.model.BoardPosition;
 import game.model.GameState;
@@ -22,9 +21,18 @@ public class Xtree {
 
   public static void main(String[] args) {
     Gson gson = new GsonBuilder().create();
-    String rawJson = parseInput(System.in);
+    System.out.println(solve(new JsonInput(System.in).next(gson, MoveResponseQuery.class)));
+  }
 
-    MoveResponseQuery mrq = gson.fromJson(rawJson, MoveResponseQuery.class);
+  /**
+   * Finds the move with which the next player responds to the move of a Move-Response-Query: a
+   * move to the first neighbor of the previous move's destination, in the order of directions,
+   * that any of its penguins can reach, with ties broken by doTiebreak.
+   * @param mrq the Move-Response-Query
+   * @return the JSON Action, or false if there is no such move
+   */
+  static String solve(MoveResponseQuery mrq) {
+    Gson gson = new GsonBuilder().create();
     BoardPosition from = mrq.getFrom();
     BoardPosition to = mrq.getTo();
 
@@ -41,8 +49,7 @@ public class Xtree {
     // attempt to place a penguin from player 2
     ArrayList<Action> moves = futureState.getPossibleActions();
     if (moves.get(0) instanceof Pass) {
-      System.out.println(gson.toJson(false));
-      return;
+      return gson.toJson(false);
     }
 
     HashMap<Xstate.DIRECTION, ArrayList<Move>> dirMoveMap = new HashMap<>();
@@ -110,8 +117,7 @@ public class Xtree {
       correctMove = doTiebreak(dirMoveMap.get(Xstate.DIRECTION.NW));
     }
     else {
-      System.out.println(gson.toJson(false));
-      return;
+      return gson.toJson(false);
     }
 
     JsonArray out = new JsonArray();
@@ -124,28 +130,9 @@ public class Xtree {
     out.add(src);
     out.add(dst);
 
-    System.out.println(gson.toJson(out));
+    return gson.toJson(out);
   }
 
-  /**
-   * Helper method to parse all JSON input from an input stream and create the appropriate JSON
-   * objects to return.
-   *
-   * @param istream Input stream to read from.
-   * @return raw JSON from the input stream as a String
-   */
-  private static String parseInput(InputStream istream) {
-    // Open a scanner to accept all the JSON values
-    // into one string to give to a parser
-    Scanner input = new Scanner(istream);
-    StringBuilder rawJson = new StringBuilder();
-    while (input.hasNextLine()) {
-      rawJson.append(input.nextLine());
-      rawJson.append("\n");
-    }
-
-    return rawJson.toString();
-  }
 
   /**
    * Gets the appropriate tie-breaking move from the list of moves that can move adjacent to the
@@ -1,15 +1,15 @@
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
-import java.io.InputStream;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
 
+import game.json.JsonBatch;
+import game.json.JsonInput;
 import game.model.Action;
 import game.model.Board;
 import game.model.BoardPosition;
@@ -31,13 +31,32 @@ public class Xstrategy {
 
   /**
    * Main of Xstrategy that accepts JSON input from STDIN and outputs the JSON Action object as
-   * appropriate to STDOUT.
-   * @param args unused arguments to main
+   * appropriate to STDOUT. Run with "-batch [threads]" to instead accept any number of Depth-State
+   * inputs and output one Action per input, on its own line and in the order of the inputs,
+   * solving the inputs on the given number of threads (by default, one per core).
+   * @param args nothing, or the batch option
+   * @throws InterruptedException if interrupted while running a batch
    */
-  public static void main(String[] args) {
+  public static void main(String[] args) throws InterruptedException {
+    JsonInput in = new JsonInput(System.in);
+    if (args.length > 0 && args[0].equals("-batch")) {
+      int threads = args.length > 1
+              ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+      JsonBatch.run(in, Xstrategy::solve, System.out, threads);
+    }
+    else {
+      System.out.println(solve(in.next()));
+    }
+  }
+
+  /**
+   * Computes the Action the strategy component takes for a Depth-State input.
+   * @param input the Depth-State input
+   * @return the JSON Action, or false if the current player has to pass
+   */
+  static String solve(JsonElement input) {
     Gson gson = new GsonBuilder().create();
-    String rawJson = parseInput(System.in);
-    JsonArray arr = (JsonArray) JsonParser.parseString(rawJson);
+    JsonArray arr = (JsonArray) input;
     int depth = arr.get(0).getAsInt();
     if (depth != 1 && depth != 2) {
       throw new IllegalArgumentException("Invalid depth given!");
@@ -64,9 +83,8 @@ public class Xstrategy {
     Strategy strategy = new Strategy();
     Action a = strategy.getMinMaxAction(gt, depth);
 
-
     if (a instanceof Pass) {
-        System.out.println(gson.toJson(false));
+      return gson.toJson(false);
     }
     else {
       Move m = (Move) a;
@@ -80,28 +98,7 @@ public class Xstrategy {
       out.add(src);
       out.add(dst);
 
-      System.out.println(gson.toJson(out));
+      return gson.toJson(out);
     }
-
-  }
-
-  /**
-   * Helper method to parse all JSON input from an input stream and create the appropriate JSON
-   * objects to return.
-   *
-   * @param istream Input stream to read from.
-   * @return raw JSON from the input stream as a String
-   */
-  private static String parseInput(InputStream istream) {
-    // Open a scanner to accept all the JSON values
-    // into one string to give to a parser
-    Scanner input = new Scanner(istream);
-    StringBuilder rawJson = new StringBuilder();
-    while (input.hasNextLine()) {
-      rawJson.append(input.nextLine());
-      rawJson.append("\n");
-    }
-
-    return rawJson.toString();
   }
 }
\ No newline at end of file
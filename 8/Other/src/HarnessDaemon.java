@@ -0,0 +1,159 @@
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import game.json.JsonInput;
+
+/**
+ * Long-lived server for the integration test harnesses of milestones 3 to 8, so that running many
+ * test cases back to back pays for starting the JVM, loading the classes and warming up the JIT
+ * only once. The daemon listens on a port of the loopback interface; every connection is one test
+ * case, sent as a header line of the name of a harness (Xboard, Xstate, Xtree, Xstrategy or Xref)
+ * and the length of its input in bytes, separated by a space, followed by the harness's JSON input.
+ * The length is sent up front because a client in a shell script cannot close its side of the
+ * connection to mark the end of the input. The daemon answers with a status line, "ok" or "error"
+ * followed by the reason, then on success the harness's output, and closes the connection.
+ * Connections are handled in parallel, one per core at a time.
+ *
+ * Run as
+ *   ./xdaemon [port]
+ * from this directory; the port defaults to FISH_DAEMON_PORT. With FISH_DAEMON_PORT set, the
+ * harness scripts of every milestone pass their input to the daemon through ./xclient instead of
+ * starting a JVM of their own.
+ */
+public class HarnessDaemon {
+  public static final String PORT_VARIABLE = "FISH_DAEMON_PORT";
+  public static final int BACKLOG = 64;
+  public static final int READ_TIMEOUT_MILLIS = 10000;
+  public static final int MAX_HEADER_LENGTH = 64;
+  public static final int MAX_INPUT_BYTES = 64 << 20;
+
+  private static final Map<String, Function<JsonElement, String>> HARNESSES = new HashMap<>();
+
+  static {
+    Gson gson = new GsonBuilder().create();
+    HARNESSES.put("Xboard", input -> Xboard.solve(gson.fromJson(input, BoardPosn.class)));
+    HARNESSES.put("Xstate", input -> Xstate.solve(gson.fromJson(input, State.class)));
+    HARNESSES.put("Xtree", input -> Xtree.solve(gson.fromJson(input, MoveResponseQuery.class)));
+    HARNESSES.put("Xstrategy", Xstrategy::solve);
+    HARNESSES.put("Xref", input -> Xref.runGame(gson.fromJson(input, GameDescription.class)));
+  }
+
+  /**
+   * Runs the daemon until it is killed.
+   * @param args The port to listen on, if not the one in FISH_DAEMON_PORT.
+   * @throws IOException if the daemon cannot listen on the port.
+   */
+  public static void main(String[] args) throws IOException {
+    String port = args.length > 0 ? args[0] : System.getenv(PORT_VARIABLE);
+    if (port == null) {
+      System.err.println("Usage: ./xdaemon [port], or set " + PORT_VARIABLE + ".");
+      System.exit(2);
+    }
+    ExecutorService workers =
+            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    try (ServerSocket server = new ServerSocket(Integer.parseInt(port), BACKLOG, loopback)) {
+      System.out.println("Listening on port " + server.getLocalPort() + ".");
+      while (true) {
+        Socket client = server.accept();
+        workers.execute(() -> handle(client));
+      }
+    }
+  }
+
+  /**
+   * Runs the test case sent on a connection and answers it.
+   * @param client The connection of the client.
+   */
+  static void handle(Socket client) {
+    try (Socket socket = client) {
+      socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+      PrintWriter writer = new PrintWriter(
+              new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+      writer.print(answer(new BufferedInputStream(socket.getInputStream())));
+      writer.flush();
+    } catch (IOException e) {
+      // The client is gone; there is no one left to answer.
+    }
+  }
+
+  /**
+   * Reads a test case and computes the answer to it.
+   * @param in The stream of the test case.
+   * @return The status line, followed by the output of the harness on success.
+   * @throws IOException if the test case cannot be read.
+   */
+  static String answer(InputStream in) throws IOException {
+    String[] header = readLine(in).trim().split(" ");
+    Function<JsonElement, String> harness = HARNESSES.get(header[0]);
+    if (harness == null) {
+      return error("Unknown harness " + header[0]);
+    }
+    int length;
+    try {
+      length = header.length == 2 ? Integer.parseInt(header[1]) : -1;
+    } catch (NumberFormatException e) {
+      length = -1;
+    }
+    if (length < 0 || length > MAX_INPUT_BYTES) {
+      return error("Invalid input length");
+    }
+    byte[] input = in.readNBytes(length);
+    if (input.length < length) {
+      return error("Input ended early");
+    }
+    try {
+      return "ok\n" + harness.apply(new JsonInput(new ByteArrayInputStream(input)).next()) + "\n";
+    } catch (JsonParseException | NoSuchElementException e) {
+      return error("Invalid input: " + e.getMessage());
+    } catch (RuntimeException e) {
+      return error(e.toString());
+    }
+  }
+
+  /**
+   * Reads the header line of a test case, byte by byte so that nothing after it is consumed.
+   * @param in The stream of the test case.
+   * @return The line, without its line break.
+   * @throws IOException if the line cannot be read, or is too long to be a header.
+   */
+  private static String readLine(InputStream in) throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c;
+    while ((c = in.read()) >= 0 && c != '\n') {
+      if (line.length() == MAX_HEADER_LENGTH) {
+        throw new IOException("Header too long.");
+      }
+      line.append((char) c);
+    }
+    return line.toString();
+  }
+
+  /**
+   * Formats the status line of a test case that could not be run.
+   * @param reason Why the test case could not be run.
+   * @return The status line, with the reason on one line.
+   */
+  private static String error(String reason) {
+    return "error " + reason.replace('\n', ' ') + "\n";
+  }
+}
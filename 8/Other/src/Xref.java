@@ -1,15 +1,15 @@
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Scanner;
 
+import game.json.JsonBatch;
+import game.json.JsonInput;
 import game.model.Board;
 import game.model.GameState;
 import game.model.IBoard;
@@ -41,14 +41,34 @@ import referee.Referee;
 public class Xref {
 
   /**
-   * Main function to handle an integration test as specified above.
-   * @param args Unused arguments parameter.
+   * Main function to handle an integration test as specified above. Run with "-batch [threads]"
+   * to instead handle any number of Game Descriptions and output the winners of each game on its
+   * own line, in the order of the descriptions, running the games on the given number of threads
+   * (by default, one per core).
+   * @param args Nothing, or the batch option.
+   * @throws InterruptedException if interrupted while running a batch.
    */
-  public static void main(String[] args) {
+  public static void main(String[] args) throws InterruptedException {
     Gson gson = new GsonBuilder().create();
-    String rawJson = parseInput(System.in);
+    JsonInput in = new JsonInput(System.in);
+    if (args.length > 0 && args[0].equals("-batch")) {
+      int threads = args.length > 1
+              ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+      JsonBatch.run(in, value -> runGame(gson.fromJson(value, GameDescription.class)), System.out,
+              threads);
+    }
+    else {
+      System.out.println(runGame(in.next(gson, GameDescription.class)));
+    }
+    System.exit(0);
+  }
 
-    GameDescription gDesc = gson.fromJson(rawJson, GameDescription.class);
+  /**
+   * Runs the game of a Game Description.
+   * @param gDesc The description of the game.
+   * @return The JSON array of the names of the winners, in ascending lexographical order.
+   */
+  static String runGame(GameDescription gDesc) {
     int rows = gDesc.getRow();
     int cols = gDesc.getColumn();
     ArrayList<ExternalPlayer> externalPlayers = gDesc.getPlayers();
@@ -81,27 +101,6 @@ public class Xref {
       jsonWinners.add(playerToName.get(winner));
     }
     Collections.sort(jsonWinners);
-    System.out.println(gson.toJson(jsonWinners));
-    System.exit(0);
-  }
-
-  /**
-   * Helper method to parse all JSON input from an input stream and create the appropriate JSON
-   * objects to return.
-   *
-   * @param istream Input stream to read from.
-   * @return raw JSON from the input stream as a String
-   */
-  private static String parseInput(InputStream istream) {
-    // Open a scanner to accept all the JSON values
-    // into one string to give to a parser
-    Scanner input = new Scanner(istream);
-    StringBuilder rawJson = new StringBuilder();
-    while (input.hasNextLine()) {
-      rawJson.append(input.nextLine());
-      rawJson.append("\n");
-    }
-
-    return rawJson.toString();
+    return new Gson().toJson(jsonWinners);
   }
 }
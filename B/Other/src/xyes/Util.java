@@ -1,5 +1,7 @@
 package xyes;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.StringJoiner;
 
 /**
@@ -26,4 +28,35 @@ public class Util {
     }
     return outString.toString();
   }
-}
\ No newline at end of file
+
+  /**
+   * Creates a direct buffer filled with copies of a line, each followed by the system's line
+   * separator, ready to be written out as a whole.
+   * @param line The line to repeat, encoded in UTF-8.
+   * @param copies The number of copies of the line to fill the buffer with.
+   * @return The buffer, positioned at its start and limited to the end of the last copy.
+   */
+  public ByteBuffer repeat(String line, int copies) {
+    if (copies < 1) {
+      throw new IllegalArgumentException("Need at least one copy of the line.");
+    }
+    byte[] bytes = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buf = ByteBuffer.allocateDirect(Math.multiplyExact(bytes.length, copies));
+    for (int i = 0; i < copies; i++) {
+      buf.put(bytes);
+    }
+    buf.flip();
+    return buf;
+  }
+
+  /**
+   * Computes how many copies of a line fit in a buffer of about the given size.
+   * @param line The line, encoded in UTF-8.
+   * @param bytes The size of the buffer.
+   * @return The number of whole copies of the line and its separator that fit, at least one.
+   */
+  public int copiesFitting(String line, int bytes) {
+    int lineBytes = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8).length;
+    return Math.max(1, bytes / lineBytes);
+  }
+}
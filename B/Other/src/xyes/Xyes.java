@@ -1,5 +1,11 @@
 package xyes;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 
 /**
@@ -7,12 +13,23 @@ import java.util.Arrays;
  * *nix command.
  */
 public class Xyes {
+  /**
+   * The number of times the string is printed with '-limit'.
+   */
+  public static final int LIMIT = 20;
+
+  /**
+   * The size of the buffer of copies of the string written at once with '-fast'.
+   */
+  public static final int BUFFER_BYTES = 1 << 20;
 
   /**
    * Main function of the class. Displays string generated by the concatenation of all arguments an
    * infinite number of times, unless the first argument is '-limit', in which case it is only
    * printed 20 times. Additionally, in the case that there are no arguments, 'hello world' is used
-   * as the string to print.
+   * as the string to print. If the very first argument is '-fast', the output is the same, but
+   * written in large blocks straight to the standard output's file channel rather than line by
+   * line through System.out, for use as a load generator; it stops when the output is closed.
    *
    * @param args The input arguments to the function.
    */
@@ -20,6 +37,10 @@ public class Xyes {
     String out;
     boolean limit;
     Util util = new Util();
+    boolean fast = args.length > 0 && args[0].equals("-fast");
+    if (fast) {
+      args = Arrays.copyOfRange(args, 1, args.length);
+    }
 
     // Determine output string and whether or not the outputs are limited from inputs
     if (args.length == 0) {
@@ -38,14 +59,64 @@ public class Xyes {
       limit = false;
     }
 
-    if (limit) {
-      for (int i = 0; i < 20; i++) {
-        System.out.println(out);
+    long lines = limit ? LIMIT : -1;
+    if (fast) {
+      try {
+        writeLines(new FileOutputStream(FileDescriptor.out).getChannel(), out, lines);
+      } catch (IOException e) {
+        // The reader has closed the output, so there is no one left to write to.
+      }
+    } else {
+      printLines(System.out, out, lines);
+    }
+  }
+
+  /**
+   * Prints a string line by line, flushing the stream after each line if it flushes on newlines,
+   * as System.out does.
+   * @param stream The stream to print to.
+   * @param out The string to print.
+   * @param lines The number of times to print it, or a negative number to print it forever.
+   */
+  static void printLines(PrintStream stream, String out, long lines) {
+    if (lines >= 0) {
+      for (long i = 0; i < lines; i++) {
+        stream.println(out);
       }
     } else {
       while (true) {
-        System.out.println(out);
+        stream.println(out);
+      }
+    }
+  }
+
+  /**
+   * Writes a string line after line by filling a direct buffer of about BUFFER_BYTES with copies
+   * of it once and writing the whole buffer to the channel over and over.
+   * @param channel The channel to write to.
+   * @param out The string to write.
+   * @param lines The number of times to write it, or a negative number to write it forever.
+   * @throws IOException if the channel cannot be written to, such as when it has been closed.
+   */
+  static void writeLines(WritableByteChannel channel, String out, long lines)
+          throws IOException {
+    Util util = new Util();
+    int copies = util.copiesFitting(out, BUFFER_BYTES);
+    if (lines >= 0 && lines < copies) {
+      copies = (int) Math.max(lines, 1);
+    }
+    ByteBuffer block = util.repeat(out, copies);
+    int lineBytes = block.limit() / copies;
+    long remaining = lines;
+    while (lines < 0 || remaining > 0) {
+      block.rewind();
+      if (lines >= 0 && remaining < copies) {
+        block.limit((int) remaining * lineBytes);
+      }
+      while (block.hasRemaining()) {
+        channel.write(block);
       }
+      remaining -= copies;
     }
   }
 
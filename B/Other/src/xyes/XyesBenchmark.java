@@ -0,0 +1,85 @@
+package xyes;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark of the two ways Xyes writes its output: line by line through a PrintStream set up
+ * like System.out (a small buffer, flushed after every line), and in large blocks through a file
+ * channel as with '-fast'. Both write the same line to the same file for several rounds, and the
+ * throughput of every round is printed in bytes per second.
+ *
+ * Run as
+ *   java xyes.XyesBenchmark [file] [seconds]
+ * where the file defaults to /dev/null and each round of each mode runs for about the given
+ * number of seconds (by default 2).
+ */
+public class XyesBenchmark {
+  /**
+   * The number of rounds each mode is run for; the first ones warm up the JIT.
+   */
+  public static final int ROUNDS = 3;
+
+  /**
+   * The number of lines printed between checks of the time.
+   */
+  public static final long LINES_PER_STEP = 100000;
+
+  /**
+   * The size of the buffer of System.out.
+   */
+  public static final int PRINT_STREAM_BUFFER = 128;
+
+  /**
+   * Runs the benchmark.
+   * @param args The file to write to and the duration of a round, both optional.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    String file = args.length > 0 ? args[0] : "/dev/null";
+    long nanos = (long) ((args.length > 1 ? Double.parseDouble(args[1]) : 2) * 1e9);
+    String line = "hello world";
+    long lineBytes = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8).length;
+
+    for (int round = 1; round <= ROUNDS; round++) {
+      try (PrintStream stream = new PrintStream(
+              new BufferedOutputStream(new FileOutputStream(file), PRINT_STREAM_BUFFER), true)) {
+        long start = System.nanoTime();
+        long lines = 0;
+        while (System.nanoTime() - start < nanos) {
+          Xyes.printLines(stream, line, LINES_PER_STEP);
+          lines += LINES_PER_STEP;
+        }
+        report("println", round, lines * lineBytes, System.nanoTime() - start);
+      }
+
+      try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+        // A hundred buffers between checks of the time
+        long linesPerStep = new Util().copiesFitting(line, Xyes.BUFFER_BYTES) * 100L;
+        long start = System.nanoTime();
+        long lines = 0;
+        while (System.nanoTime() - start < nanos) {
+          Xyes.writeLines(channel, line, linesPerStep);
+          lines += linesPerStep;
+        }
+        report("fast", round, lines * lineBytes, System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * Prints the throughput of a round.
+   * @param mode The name of the mode.
+   * @param round The number of the round.
+   * @param bytes The number of bytes written.
+   * @param nanos The time it took.
+   */
+  private static void report(String mode, int round, long bytes, long nanos) {
+    System.out.printf("%-8s round %d: %,d bytes in %.2f s, %,.0f bytes/s%n",
+            mode, round, bytes, nanos / 1e9, bytes / (nanos / 1e9));
+  }
+}
@@ -2,7 +2,11 @@ package xyes;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Class to test the methods of Util.
@@ -20,4 +24,30 @@ public class UtilTest {
     assertEquals("bunch of strings with spaces in them with one at the end ",
             util.concat(strArray3));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void repeat() {
+    Util util = new Util();
+    String sep = System.lineSeparator();
+    ByteBuffer buf = util.repeat("y", 3);
+    assertTrue(buf.isDirect());
+    assertEquals(0, buf.position());
+    byte[] bytes = new byte[buf.remaining()];
+    buf.get(bytes);
+    assertEquals("y" + sep + "y" + sep + "y" + sep, new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void repeatNothing() {
+    new Util().repeat("y", 0);
+  }
+
+  @Test
+  public void copiesFitting() {
+    Util util = new Util();
+    int lineBytes = ("hello world" + System.lineSeparator()).length();
+    assertEquals(10, util.copiesFitting("hello world", lineBytes * 10));
+    assertEquals(10, util.copiesFitting("hello world", lineBytes * 10 + lineBytes - 1));
+    assertEquals(1, util.copiesFitting("hello world", 1));
+  }
+}
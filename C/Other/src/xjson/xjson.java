@@ -1,15 +1,30 @@
 package xjson;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonStreamParser;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 /**
  * Class for the xjson program, accepting arbitrary sequences of JSON values/objects/arrays
@@ -17,27 +32,28 @@ import java.util.Scanner;
  */
 public class xjson {
 
+  /**
+   * The largest part of a spill file mapped into memory at once.
+   */
+  static final long WINDOW_BYTES = 64L << 20;
+
   /**
    * Main method of the xjson class, run when the compiled class is run.
-   * @param args The arguments provided to the code at runtime. For the intended purpose
-   *             of this code, there should not actually be any.
+   * @param args The arguments provided to the code at runtime. Either none, or "-spill" to
+   *             keep the JSON values in temporary files instead of memory while reading them,
+   *             so that inputs of any size can be handled in constant memory.
+   * @throws IOException if the temporary files of the spill mode cannot be used.
    */
-  public static void main(String[] args) {
-    // Open a scanner to accept all the JSON values from STDIN into one string
-    // to give to a parser
-    Scanner input = new Scanner(System.in);
-    StringBuilder rawJson = new StringBuilder();
-    while (input.hasNextLine()) {
-      rawJson.append(input.nextLine());
-      rawJson.append("\n");
-    }
-    input.close();
-    String jsonInput = rawJson.toString();
+  public static void main(String[] args) throws IOException {
+    // Open a parser reading the JSON values straight from STDIN, so each value is parsed as it
+    // arrives instead of after the whole input has been collected into one string
+    JsonStreamParser parser = new JsonStreamParser(
+            new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
 
-    // Create a Gson object to convert JSON into Java objects
-    Gson gson = new GsonBuilder().create();
-    // Open a parser taking the String generated by inputs into STDIN
-    JsonStreamParser parser = new JsonStreamParser(jsonInput);
+    if (args.length > 0 && args[0].equals("-spill")) {
+      spill(parser);
+      return;
+    }
 
     int jsonValues = 0;
     ArrayList<JsonElement> jElements = new ArrayList<>();
@@ -76,4 +92,141 @@ public class xjson {
     System.out.println(out2.toString());
   }
 
+  /**
+   * Produces the same two outputs as main without keeping the JSON values in memory. Every value
+   * is written to a temporary data file as soon as it is parsed, and the offset at which it ends
+   * to a temporary index file. Both outputs are then written by reading the values back through
+   * memory maps of the files, in order for the first output and in reverse for the second, so
+   * only the value being parsed and a window of each file are in memory at any time.
+   * @param parser The parser of the input.
+   * @throws IOException if the temporary files cannot be written or read.
+   */
+  static void spill(JsonStreamParser parser) throws IOException {
+    Path data = Files.createTempFile("xjson", ".data");
+    Path index = Files.createTempFile("xjson", ".index");
+    try {
+      long count = 0;
+      try (OutputStream dataOut = new BufferedOutputStream(Files.newOutputStream(data));
+           DataOutputStream indexOut = new DataOutputStream(
+                   new BufferedOutputStream(Files.newOutputStream(index)))) {
+        long offset = 0;
+        while (parser.hasNext()) {
+          byte[] value = parser.next().toString().getBytes(StandardCharsets.UTF_8);
+          dataOut.write(value);
+          offset += value.length;
+          indexOut.writeLong(offset);
+          count++;
+        }
+      }
+
+      WritableByteChannel out = Channels.newChannel(
+              new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+      try (SpillWindow values = new SpillWindow(data);
+           SpillWindow ends = new SpillWindow(index)) {
+        // The first output, a JSON object of the count and the values in order
+        write(out, "{\"count\":" + count + ",\"seq\":[");
+        for (long i = 0; i < count; i++) {
+          if (i > 0) {
+            write(out, ",");
+          }
+          writeValue(out, values, ends, i, false);
+        }
+        write(out, "]}" + System.lineSeparator());
+
+        // The second output, a JSON array of the count and the values in reverse order
+        write(out, "[" + count);
+        for (long i = count - 1; i >= 0; i--) {
+          write(out, ",");
+          writeValue(out, values, ends, i, true);
+        }
+        write(out, "]" + System.lineSeparator());
+      }
+      out.close();
+    } finally {
+      Files.deleteIfExists(data);
+      Files.deleteIfExists(index);
+    }
+  }
+
+  /**
+   * Writes a spilled JSON value to the output.
+   * @param out The output.
+   * @param values The data file of the values.
+   * @param ends The index file of the offsets at which the values end.
+   * @param i The number of the value, counting from 0.
+   * @param reverse Whether the values are being written last to first.
+   * @throws IOException if the files cannot be read or the output cannot be written.
+   */
+  private static void writeValue(WritableByteChannel out, SpillWindow values, SpillWindow ends,
+                                 long i, boolean reverse) throws IOException {
+    long start = i == 0 ? 0 : ends.get(Long.BYTES * (i - 1), Long.BYTES, reverse).getLong();
+    long end = ends.get(Long.BYTES * i, Long.BYTES, reverse).getLong();
+    ByteBuffer value = values.get(start, end - start, reverse);
+    while (value.hasRemaining()) {
+      out.write(value);
+    }
+  }
+
+  /**
+   * Writes text to the output.
+   * @param out The output.
+   * @param text The text, in ASCII.
+   * @throws IOException if the output cannot be written.
+   */
+  private static void write(WritableByteChannel out, String text) throws IOException {
+    ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    while (bytes.hasRemaining()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Read-only view of a file through a memory-mapped window of at most WINDOW_BYTES, which is
+   * moved along the file as it is read. Reading forward maps the window from the requested
+   * range onwards; reading in reverse maps it up to the end of the range, so that a pass over
+   * the file in either direction maps every part of it only once.
+   */
+  static final class SpillWindow implements Closeable {
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    /**
+     * Opens a file for reading through a window.
+     * @param file The file.
+     * @throws IOException if the file cannot be opened.
+     */
+    SpillWindow(Path file) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.READ);
+      this.size = channel.size();
+    }
+
+    /**
+     * Gets a range of the file, moving the window over it if it is not already in view.
+     * @param start The offset of the range.
+     * @param length The length of the range, at most WINDOW_BYTES unless the range is read by
+     *               itself.
+     * @param reverse Whether the file is being read from its end to its start.
+     * @return A buffer of the bytes of the range, from its position to its limit.
+     * @throws IOException if the file cannot be mapped.
+     */
+    ByteBuffer get(long start, long length, boolean reverse) throws IOException {
+      long end = start + length;
+      if (window == null || start < windowStart || end > windowStart + window.capacity()) {
+        long mapped = Math.max(length, Math.min(WINDOW_BYTES, size));
+        windowStart = reverse ? Math.max(0, end - mapped) : Math.min(start, size - mapped);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, mapped);
+      }
+      ByteBuffer range = window.duplicate();
+      range.limit((int) (end - windowStart));
+      range.position((int) (start - windowStart));
+      return range;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
 }
\ No newline at end of file
@@ -6,23 +6,44 @@ import java.io.*;
 
 import java.net.*;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonStreamParser;
 
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Class to contain the functionality of the xtcp program.
+ * Class to contain the functionality of the xtcp program. By default xtcp
+ * waits for a single TCP client and exits after responding to it; with
+ * -server it keeps listening and responds to any number of clients at once.
  */
 public class xtcp {
-    private static JsonObject out1;
-    private static JsonArray out2;    
+    static final String USAGE = "Usage: ./xtcp [-server] <port number>";
+    static final int BACKLOG = 1024;
+    static final long IDLE_TIMEOUT_MILLIS = 3000;
+    static final int MAX_INPUT_BYTES = 16 << 20;
+    static final int READ_BUFFER_SIZE = 8192;
+    static final long REPORT_INTERVAL_SECONDS = 5;
 
     /**
      * Main function of xtcp. Waits for TCP client connection and 
@@ -35,27 +56,44 @@ public class xtcp {
         ServerSocket server = null;
         Socket client = null;
 
+        boolean serverMode = args.length > 0 && args[0].equals("-server");
+        if (serverMode) {
+            String[] rest = new String[args.length - 1];
+            System.arraycopy(args, 1, rest, 0, rest.length);
+            args = rest;
+        }
+
         // Validate arguments
         if (args.length > 1) {
-            System.out.println("Usage: ./xtcp <port number>");
+            System.out.println(USAGE);
             System.exit(1);
         } else if (args.length == 1) {
             try {
                 Integer.parseInt(args[0]);
             } catch (NumberFormatException e) {
-                System.out.println("Usage: ./xtcp <port number>");
+                System.out.println(USAGE);
                 System.exit(1);
             }
 
             portNo = Integer.parseInt(args[0]);
             if (portNo <= 0) {
-                System.out.println("Usage: ./xtcp <port number>");
+                System.out.println(USAGE);
                 System.exit(1);
             }
         } else {
             System.out.println("Defaulting to port " + portNo + ".");
         }
 
+        if (serverMode) {
+            try {
+                serve(portNo);
+            } catch (IOException e) {
+                System.out.println("Could not create sockets.");
+                System.exit(2);
+            }
+            return;
+        }
+
         // Set up TCP connection 
         try {
             server = factory.createServerSocket(portNo);
@@ -86,12 +124,10 @@ public class xtcp {
             System.exit(2);
         }
 
-        parseInput(istream);
-
         PrintWriter p = new PrintWriter(ostream, true);
 
-        p.println(out1.toString());
-        p.println(out2.toString());
+        p.print(respond(parseValues(new BufferedReader(
+                new InputStreamReader(istream, StandardCharsets.UTF_8)))));
         p.close();
 
         try {
@@ -104,38 +140,37 @@ public class xtcp {
     }
 
     /**
-     * Helper method to parse all JSON input from the a TCP input stream
-     * and create the appropriate JSON objects to return.
-     * @args istream Input stream to read from.
+     * Helper method to parse all JSON input of a client, one value at a
+     * time as it is read, until the input ends.
+     * @args jsonInput The input of the client.
+     * @return The JSON values of the input, in order.
+     * @throws JsonParseException if the input is not a sequence of JSON values.
      */
-    private static void parseInput(InputStream istream) {
-        // Open a scanner to accept all the JSON values from TCP conn
-        // into one string to give to a parser
-        Scanner input = new Scanner(istream);
-        StringBuilder rawJson = new StringBuilder();
-        while (input.hasNextLine()) {
-            rawJson.append(input.nextLine());
-            rawJson.append("\n");
-        }
-        
-        String jsonInput = rawJson.toString();
-
-        // Create a Gson object to convert JSON into Java objects
-        Gson gson = new GsonBuilder().create();
-        // Open a parser taking the String generated by inputs into STDIN
+    private static ArrayList<JsonElement> parseValues(Reader jsonInput) {
+        // Open a parser reading straight from the client's input
         JsonStreamParser parser = new JsonStreamParser(jsonInput);
 
-        int jsonValues = 0;
         ArrayList<JsonElement> jElements = new ArrayList<>();
 
         // As long as input is available on the parser,
         // interact with each JSON value
         while (parser.hasNext()) {
-            JsonElement element = parser.next();
-            jsonValues++;
-            jElements.add(element);
+            jElements.add(parser.next());
         }
-        
+        return jElements;
+    }
+
+    /**
+     * Helper method to create the response to the JSON values of a client:
+     * a JSON object with the count and sequence of the values, and a JSON
+     * array with the count followed by the values in reverse order, each on
+     * its own line.
+     * @args jElements The values the client sent.
+     * @return The response to send back.
+     */
+    private static String respond(ArrayList<JsonElement> jElements) {
+        int jsonValues = jElements.size();
+
         // Generate the JSON list from the individual 
         // JSON elements in the ArrayList we obtained
         JsonArray out1array = new JsonArray();
@@ -144,19 +179,242 @@ public class xtcp {
         }
 
         // Create the first output, a JSON object
-        out1 = new JsonObject();
+        JsonObject out1 = new JsonObject();
         // add "count", (# of values read)
         out1.add("count", new JsonPrimitive(jsonValues));
         // add "seq", (array of JSON values in order)
         out1.add("seq", out1array);
 
         // Create the second output, a JSON array
-        out2 = new JsonArray();
+        JsonArray out2 = new JsonArray();
         // add first element - number of JSON values read
         out2.add(jsonValues);
         // add remaining elements - sequence of JSON values in reverse order
         for (int i = jElements.size() - 1; i >= 0; i--) {
             out2.add(jElements.get(i));
         }
+        return out1.toString() + System.lineSeparator()
+                + out2.toString() + System.lineSeparator();
+    }
+
+    /**
+     * Runs xtcp as a server that keeps listening on the port and handles
+     * any number of clients at once. All connections are multiplexed on one
+     * NIO selector; the JSON processing of a connection whose client has
+     * closed its side is done by a pool of worker threads, which hand the
+     * response back to the selector thread to write. Connections that stay
+     * idle for IDLE_TIMEOUT_MILLIS, or send more than MAX_INPUT_BYTES, are
+     * dropped. The server's counters are printed every REPORT_INTERVAL_SECONDS
+     * and when the server is stopped.
+     * @args portNo The port to listen on.
+     * @throws IOException if the server cannot listen on the port.
+     */
+    private static void serve(int portNo) throws IOException {
+        Selector selector = Selector.open();
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(portNo), BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        ServerCounters counters = new ServerCounters();
+        ExecutorService workers = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), r -> {
+                    Thread t = new Thread(r, "xtcp-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+        ScheduledExecutorService reporter =
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "xtcp-reporter");
+                    t.setDaemon(true);
+                    return t;
+                });
+        reporter.scheduleAtFixedRate(() -> System.out.println(counters),
+                REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(
+                new Thread(() -> System.out.println(counters)));
+        Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+        System.out.println("Listening on port " + portNo + ".");
+
+        while (true) {
+            selector.select(IDLE_TIMEOUT_MILLIS / 2);
+            Runnable completion;
+            while ((completion = completions.poll()) != null) {
+                completion.run();
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    SocketChannel channel;
+                    while ((channel = serverChannel.accept()) != null) {
+                        channel.configureBlocking(false);
+                        channel.register(selector, SelectionKey.OP_READ,
+                                new ClientConnection());
+                        counters.accepted.increment();
+                        counters.open.increment();
+                    }
+                    continue;
+                }
+                ClientConnection conn = (ClientConnection) key.attachment();
+                try {
+                    if (key.isReadable()) {
+                        readClient(key, conn, counters, workers, completions,
+                                selector);
+                    }
+                    else if (key.isWritable()) {
+                        writeClient(key, conn, counters);
+                    }
+                } catch (IOException e) {
+                    dropClient(key, counters);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            for (SelectionKey key : selector.keys()) {
+                Object conn = key.attachment();
+                if (conn instanceof ClientConnection
+                        && !((ClientConnection) conn).inputDone
+                        && now - ((ClientConnection) conn).lastActive
+                            > IDLE_TIMEOUT_MILLIS) {
+                    dropClient(key, counters);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method to read what a client has sent. Once the client has
+     * closed its side of the connection, its input is processed on a worker
+     * thread, and the response is queued for the selector thread to write.
+     */
+    private static void readClient(SelectionKey key, ClientConnection conn,
+                                   ServerCounters counters,
+                                   ExecutorService workers,
+                                   Queue<Runnable> completions,
+                                   Selector selector) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buf = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        int read;
+        while ((read = channel.read(buf)) > 0) {
+            conn.input.write(buf.array(), 0, read);
+            counters.bytesIn.add(read);
+            buf.clear();
+        }
+        conn.lastActive = System.currentTimeMillis();
+        if (conn.input.size() > MAX_INPUT_BYTES) {
+            dropClient(key, counters);
+            return;
+        }
+        if (read < 0) {
+            conn.inputDone = true;
+            key.interestOps(0);
+            byte[] input = conn.input.toByteArray();
+            workers.execute(() -> {
+                String response;
+                try {
+                    ArrayList<JsonElement> values = parseValues(
+                            new InputStreamReader(new ByteArrayInputStream(input),
+                                    StandardCharsets.UTF_8));
+                    counters.values.add(values.size());
+                    response = respond(values);
+                } catch (JsonParseException | NoSuchElementException e) {
+                    // JsonStreamParser reports input ending inside a value
+                    // as a missing element.
+                    response = null;
+                }
+                String result = response;
+                completions.add(() -> {
+                    if (result == null) {
+                        dropClient(key, counters);
+                        return;
+                    }
+                    conn.response = ByteBuffer.wrap(
+                            result.getBytes(StandardCharsets.UTF_8));
+                    if (key.isValid()) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                    }
+                });
+                selector.wakeup();
+            });
+        }
+    }
+
+    /**
+     * Helper method to write the response of a client, closing the
+     * connection once all of it has been written.
+     */
+    private static void writeClient(SelectionKey key, ClientConnection conn,
+                                    ServerCounters counters)
+            throws IOException {
+        counters.bytesOut.add(((SocketChannel) key.channel())
+                .write(conn.response));
+        if (!conn.response.hasRemaining()) {
+            key.cancel();
+            key.channel().close();
+            counters.open.decrement();
+            counters.completed.increment();
+        }
+    }
+
+    /**
+     * Helper method to close the connection of a client that failed.
+     */
+    private static void dropClient(SelectionKey key, ServerCounters counters) {
+        if (!key.channel().isOpen()) {
+            return;
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // The client is being dropped either way.
+        }
+        counters.open.decrement();
+        counters.failed.increment();
+    }
+
+    /**
+     * The state of one client connection of the server: the input read so
+     * far, whether the client has closed its side, the response once it has
+     * been computed, and the time of the last input.
+     */
+    private static class ClientConnection {
+        final ByteArrayOutputStream input = new ByteArrayOutputStream();
+        boolean inputDone;
+        ByteBuffer response;
+        long lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * The counters of the server, all updated without locking.
+     */
+    private static class ServerCounters {
+        final long started = System.nanoTime();
+        final LongAdder accepted = new LongAdder();
+        final LongAdder open = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LongAdder bytesOut = new LongAdder();
+        final LongAdder values = new LongAdder();
+
+        @Override
+        public String toString() {
+            double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-9);
+            return String.format(Locale.ROOT,
+                    "connections: %d accepted, %d open, %d completed, %d failed"
+                    + " (%.1f/s); %d values; %d bytes in, %d bytes out"
+                    + " (%.0f bytes/s)",
+                    accepted.sum(), open.sum(), completed.sum(), failed.sum(),
+                    completed.sum() / seconds, values.sum(), bytesIn.sum(),
+                    bytesOut.sum(), (bytesIn.sum() + bytesOut.sum()) / seconds);
+        }
     }
 }
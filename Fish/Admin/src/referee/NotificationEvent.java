@@ -0,0 +1,33 @@
+package referee;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering the notification of a single player component that its game
+ * is starting or ending (startPlaying/finishPlaying, as sent by Referee.sendNotifToPlayers).
+ */
+@Name("fish.RefereeNotification")
+@Label("Referee Notification")
+@Category({"Fish", "Referee"})
+@Description("A game start or game end notification sent by a referee to a player component")
+class NotificationEvent extends Event {
+
+  @Label("Game Id")
+  long gameId;
+
+  @Label("Player Color")
+  String playerColor;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Notification")
+  String notification;
+
+  @Label("Failed")
+  boolean failed;
+}
@@ -1,5 +1,6 @@
 package referee;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -13,14 +14,20 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import game.controller.SpectatorFeed;
 import game.model.Action;
 import game.model.Board;
 import game.model.BoardPosition;
 import game.model.GameState;
 import game.model.GameTreeNode;
+import game.model.Pass;
 import game.model.Penguin;
 import game.model.Player;
+import game.model.Regions;
+import game.replay.GameRecording;
+import game.replay.ReplayRecorder;
 import player.IPlayerComponent;
 import player.PlayerComponent;
 
@@ -53,6 +60,22 @@ import player.PlayerComponent;
  * - a constant for time (in seconds) to wait for a player component's response
  * - a constant for the "max" number of penguins (initial # of penguins to subtract # of players
  * from)
+ * - a game id, used to tell games apart in profiling recordings (see TurnEvent and
+ * NotificationEvent), replay logs and archives, and checkpoints. Ids are counted up from the time
+ * the process started (in milliseconds, shifted left by GAME_ID_TIME_SHIFT bits), so they are
+ * unique among the referees of this process and higher than any id a process started earlier
+ * could have reached, such as one that crashed and left checkpoints behind
+ * - an optional replay recorder, to which the game is recorded step by step while it runs, and
+ * the recording of the game in progress (null while no game is being recorded)
+ * - an optional checkpointer, to which a RefereeCheckpoint of the game is saved every few turns
+ * so that the game can be resumed by a new Referee if this process dies, and the number of turns
+ * taken since the last checkpoint
+ * - an optional spectator feed, to which a snapshot of the game is published after every turn for
+ * spectators to watch without touching the Referee's own state or holding up its game
+ * - whether to finish the game early, as soon as no player can catch up with the leaders (see
+ * setFastFinish)
+ * - whether to pass for players that cannot move instead of asking them for a turn (see
+ * setAutoPass)
  */
 public class Referee implements IReferee {
   private final Map<Penguin.PenguinColor, IPlayerComponent> playerMap;
@@ -63,12 +86,29 @@ public class Referee implements IReferee {
   private GamePhase phase;
   private int numPlayers;
   private final int penguinsPerPlayer;
+  private final long gameId;
+  private ReplayRecorder replayRecorder;
+  private GameRecording recording;
+  private RefereeCheckpointer checkpointer;
+  private int turnsSinceCheckpoint;
+  private SpectatorFeed spectatorFeed;
+  private boolean fastFinish;
+  private boolean autoPass;
   public static final int COMMS_TIMEOUT = 3;
   public static final int PENGUIN_MAX = 6;
 
   // Entirely arbitrary value to use in constructor of PlayerComponent for testing
   private static final int TEST_SEED = 100;
 
+  /**
+   * The number of bits of a game id below the start time of its process, so that a process would
+   * have to run 2^GAME_ID_TIME_SHIFT games a millisecond to reach the ids of a later one.
+   */
+  static final int GAME_ID_TIME_SHIFT = 20;
+
+  private static final AtomicLong NEXT_GAME_ID =
+          new AtomicLong(System.currentTimeMillis() << GAME_ID_TIME_SHIFT);
+
   /**
    * Constructor for a Referee that takes a list of players, a number of rows and a number of
    * columns for a game board, and sets up a game for which the players will play in, with the
@@ -92,6 +132,7 @@ public class Referee implements IReferee {
     GameState gs = makeNewState(players, rows, cols);
     this.gt = new GameTreeNode(gs);
     this.phase = GamePhase.SETUP;
+    this.gameId = NEXT_GAME_ID.incrementAndGet();
   }
 
   /**
@@ -112,6 +153,7 @@ public class Referee implements IReferee {
     this.failures = new ArrayList<>();
     this.cheaters = new ArrayList<>();
     this.phase = GamePhase.SETUP;
+    this.gameId = NEXT_GAME_ID.incrementAndGet();
   }
 
   /**
@@ -143,6 +185,71 @@ public class Referee implements IReferee {
     this.failures = new ArrayList<>();
     this.cheaters = new ArrayList<>();
     this.phase = GamePhase.SETUP;
+    this.gameId = NEXT_GAME_ID.incrementAndGet();
+  }
+
+  /**
+   * Constructor for a Referee that resumes a game from a checkpoint, such as one left behind by a
+   * process that died while running the game. The game keeps its id, and continues with
+   * resumeGame instead of runGame.
+   * @param checkpoint The checkpoint of the game to resume.
+   * @param players The player components to continue the game with, keyed by the colors they
+   *                played in the checkpointed game. Components of players that were removed
+   *                before the checkpoint are optional, and are reported as failures or cheaters
+   *                at the end of the game if given.
+   * @throws IllegalArgumentException if a player still in the game has no component.
+   */
+  public Referee(RefereeCheckpoint checkpoint,
+                 Map<Penguin.PenguinColor, IPlayerComponent> players) {
+    GameState gs = checkpoint.getGameState();
+    this.playerMap = new HashMap<>();
+    this.winners = new ArrayList<>();
+    this.failures = new ArrayList<>();
+    this.cheaters = new ArrayList<>();
+    for (Player p : gs.getPlayers()) {
+      IPlayerComponent pcomp = players.get(p.getColor());
+      if (pcomp == null) {
+        throw new IllegalArgumentException("No player component for the " + p.getColor()
+                + " player of the resumed game.");
+      }
+      playerMap.put(p.getColor(), pcomp);
+    }
+    addRemovedPlayers(checkpoint.getFailed(), players, failures);
+    addRemovedPlayers(checkpoint.getCheated(), players, cheaters);
+    this.numPlayers = gs.getPlayers().size();
+    this.penguinsPerPlayer = checkpoint.getPenguinsPerPlayer();
+    this.gt = new GameTreeNode(gs);
+    this.phase = checkpoint.getPhase();
+    this.gameId = checkpoint.getGameId();
+    reserveGameIds(gameId);
+  }
+
+  /**
+   * Makes sure that referees created from now on give their games ids above the given one, such
+   * as the id of a game checkpointed by a process that has since died.
+   * @param gameId The id that new games' ids must be above.
+   */
+  static void reserveGameIds(long gameId) {
+    NEXT_GAME_ID.accumulateAndGet(gameId, Math::max);
+  }
+
+  /**
+   * Adds the given components of players removed from a checkpointed game to the player map and
+   * to the list of failures or cheaters.
+   * @param colors The colors of the removed players.
+   * @param players The player components given for the resumed game, keyed by color.
+   * @param list The list of player components (failures/cheaters) to add the components to.
+   */
+  private void addRemovedPlayers(List<Penguin.PenguinColor> colors,
+                                 Map<Penguin.PenguinColor, IPlayerComponent> players,
+                                 List<IPlayerComponent> list) {
+    for (Penguin.PenguinColor color : colors) {
+      IPlayerComponent pcomp = players.get(color);
+      if (pcomp != null) {
+        playerMap.put(color, pcomp);
+        list.add(pcomp);
+      }
+    }
   }
 
   /**
@@ -190,6 +297,9 @@ public class Referee implements IReferee {
     final ExecutorService es = Executors.newSingleThreadExecutor();
     final Callable<Integer> getAction = () -> pcomponent.getAge();
     Future<Integer> future = es.submit(getAction);
+    // Lets the executor's thread exit once the call returns, instead of idling for the life of
+    // the process (as it would in a long-lived server running many games)
+    es.shutdown();
 
     try {
       age = future.get(COMMS_TIMEOUT, TimeUnit.SECONDS);
@@ -252,11 +362,33 @@ public class Referee implements IReferee {
     }
     else {
       this.phase = GamePhase.PLACING;
+      if (replayRecorder != null) {
+        recording = replayRecorder.startGame(gameId, gt.getGameState());
+      }
+      publish();
       doPlacingPhase();
       doPlayingPhase();
     }
   }
 
+  /**
+   * Continues a game resumed from a checkpoint until it ends, after telling the players still in
+   * the game their colors again. If a replay recorder is set, the recording of the game starts
+   * from the resumed state.
+   */
+  public void resumeGame() {
+    if (this.phase != GamePhase.PLACING && this.phase != GamePhase.PLAYING) {
+      throw new IllegalArgumentException("Can only resume a game that is being played.");
+    }
+    sendNotifToPlayers(NotifType.START);
+    if (replayRecorder != null) {
+      recording = replayRecorder.startGame(gameId, gt.getGameState());
+    }
+    publish();
+    doPlacingPhase();
+    doPlayingPhase();
+  }
+
   /**
    * Runs the penguin-placement phase of the game until it is determined that all players have
    * completed their penguin placements. Adds them to either the list of failed
@@ -266,9 +398,11 @@ public class Referee implements IReferee {
   public void doPlacingPhase() {
     while (this.phase == GamePhase.PLACING) {
       takeOneAction();
-      if (gt.getGameState().getPenguins().size() == penguinsPerPlayer * numPlayers) {
+      if (gt.getGameState().getPenguinCount() == penguinsPerPlayer * numPlayers) {
         this.phase = GamePhase.PLAYING;
       }
+      publish();
+      checkpointIfDue();
     }
   }
 
@@ -282,42 +416,189 @@ public class Referee implements IReferee {
   public void doPlayingPhase() {
     while (this.phase == GamePhase.PLAYING) {
       takeOneAction();
-      if (!this.gt.getGameState().movesPossible()) {
+      if (!this.gt.getGameState().movesPossible()
+              || (fastFinish && outcomeDecided(this.gt.getGameState()))) {
         this.phase = GamePhase.END;
         setWinningPlayers();
+        finishRecording();
+        publish();
+        if (checkpointer != null) {
+          checkpointer.discard(gameId);
+        }
+      }
+      else {
+        publish();
+        checkpointIfDue();
+      }
+    }
+  }
+
+  /**
+   * Checks whether the winners of a game are already decided, whatever moves are made in the rest
+   * of it. Each player can collect at most the fish of the regions its penguins are in (see
+   * Regions), leaving out regions where every tile holds a penguin, since no penguin in those can
+   * ever move. The winners are decided when none of the other players can reach the fish of the
+   * leaders even by collecting all of that, and either there is a single leader or none of the
+   * leaders can collect anything more to break their tie.
+   *
+   * This assumes that the players left in the game stay in it: a leader that would have failed or
+   * cheated in the turns not played wins instead.
+   * @param gs The state of the game.
+   * @return True if the players with the most fish now are the winners of the game, else false.
+   */
+  static boolean outcomeDecided(GameState gs) {
+    Regions regions = new Regions(gs.getBoard());
+    Map<BoardPosition, Penguin> penguins = gs.getPenguins();
+    int[] penguinsIn = new int[regions.count()];
+    for (BoardPosition p : penguins.keySet()) {
+      penguinsIn[regions.getRegion(p)]++;
+    }
+
+    Map<Penguin.PenguinColor, HashSet<Integer>> regionsOf = new HashMap<>();
+    for (Map.Entry<BoardPosition, Penguin> entry : penguins.entrySet()) {
+      int id = regions.getRegion(entry.getKey());
+      if (penguinsIn[id] < regions.getTiles(id).size()) {
+        regionsOf.computeIfAbsent(entry.getValue().getColor(), c -> new HashSet<>()).add(id);
+      }
+    }
+
+    int maxFish = 0;
+    int leaders = 0;
+    boolean leaderCanCollect = false;
+    for (Player p : gs.getPlayers()) {
+      maxFish = Math.max(maxFish, p.getFish());
+    }
+    for (Player p : gs.getPlayers()) {
+      int bound = 0;
+      for (int id : regionsOf.getOrDefault(p.getColor(), new HashSet<>())) {
+        bound += regions.getFish(id);
+      }
+      if (p.getFish() == maxFish) {
+        leaders++;
+        leaderCanCollect |= bound > 0;
+      } else if (p.getFish() + bound >= maxFish) {
+        return false;
+      }
+    }
+    return leaders == 1 || !leaderCanCollect;
+  }
+
+  /**
+   * Publishes a snapshot of the game to the spectator feed, if one is set. The snapshot published
+   * once the game has ended is marked as the last one.
+   */
+  private void publish() {
+    if (spectatorFeed != null) {
+      spectatorFeed.publish(gt.getGameState(), phase == GamePhase.END);
+    }
+  }
+
+  /**
+   * Saves a checkpoint of the game to the checkpointer, if one is set and enough turns have been
+   * taken since the last checkpoint.
+   */
+  private void checkpointIfDue() {
+    if (checkpointer != null && ++turnsSinceCheckpoint >= checkpointer.getInterval()) {
+      turnsSinceCheckpoint = 0;
+      checkpointer.save(checkpoint());
+    }
+  }
+
+  /**
+   * Takes a checkpoint of the game in progress, from which it can be resumed.
+   * @return The checkpoint of the game.
+   * @throws IllegalArgumentException if the game is not in the placing or playing phase.
+   */
+  public RefereeCheckpoint checkpoint() {
+    return new RefereeCheckpoint(gameId, phase, penguinsPerPlayer, colorsOf(failures),
+            colorsOf(cheaters), gt.getGameState());
+  }
+
+  /**
+   * Returns the colors the given player components played in this game.
+   * @param pcomps The player components to look up.
+   * @return The colors of the components that have one in this game.
+   */
+  private List<Penguin.PenguinColor> colorsOf(List<IPlayerComponent> pcomps) {
+    List<Penguin.PenguinColor> colors = new ArrayList<>();
+    for (Map.Entry<Penguin.PenguinColor, IPlayerComponent> entry : playerMap.entrySet()) {
+      if (pcomps.contains(entry.getValue())) {
+        colors.add(entry.getKey());
       }
     }
+    return colors;
   }
 
   /**
    * Runs a round of the game, depending on the current phase of the game. If the game phase is
    * penguin placement, then a round of penguin placement is performed. If the game phase is
    * penguin movement, then a round of penguin movement is performed. Copies the current
-   * GameTreeNode in order to prevent the player from modifying the Referee's trusted data
-   * structures.
+   * GameTreeNode before asking the player, in order to prevent the player from modifying the
+   * Referee's trusted data structures; forced passes are applied without asking, or copying.
    */
   public void takeOneAction() {
     if (numPlayers > 0) {
-      GameTreeNode copyTree = new GameTreeNode(gt.getGameState());
+      TurnEvent event = new TurnEvent();
+      event.begin();
+      int failuresBefore = failures.size();
+      int cheatersBefore = cheaters.size();
       GameState currState = this.gt.getGameState();
       Player currPlayer = currState.getCurrentPlayer();
       Penguin.PenguinColor currColor = currPlayer.getColor();
       IPlayerComponent currPComponent = playerMap.get(currColor);
-      Action action;
-      Future<Action> future = getFuture(copyTree, currPComponent);
+      Action forced = autoPass ? forcedPass(currState) : null;
 
       try {
-        action = future.get(COMMS_TIMEOUT, TimeUnit.SECONDS);
+        if (forced != null) {
+          doPlayerAction(forced, currState, currPlayer, currPComponent);
+        } else {
+          GameTreeNode copyTree = new GameTreeNode(currState);
+          Future<Action> future = getFuture(copyTree, currPComponent);
+          doPlayerAction(future.get(COMMS_TIMEOUT, TimeUnit.SECONDS), currState, currPlayer,
+                  currPComponent);
+        }
       } catch (TimeoutException | InterruptedException | ExecutionException e) {
         // All exceptions here indicate a player has failed.
         invalidPlayer(currState, currPlayer, currPComponent, failures);
         this.gt = new GameTreeNode(currState);
-        return;
+      } finally {
+        event.end();
+        if (event.shouldCommit()) {
+          event.gameId = gameId;
+          event.playerColor = currColor.name();
+          event.phase = phase.name();
+          if (failures.size() > failuresBefore) {
+            event.outcome = "failed";
+          } else if (cheaters.size() > cheatersBefore) {
+            event.outcome = "cheated";
+          } else if (forced != null) {
+            event.outcome = "forced";
+          } else {
+            event.outcome = "accepted";
+          }
+          event.commit();
+        }
       }
-      doPlayerAction(action, currState, currPlayer, currPComponent);
     }
   }
 
+  /**
+   * Finds the pass the current player is forced to make, if it has no other action.
+   * @param gs The current state of the game.
+   * @return The pass, or null if the game is not in the playing phase or the current player has
+   * a penguin that can move.
+   */
+  private Action forcedPass(GameState gs) {
+    if (phase != GamePhase.PLAYING) {
+      return null;
+    }
+    List<Action> actions = gs.getPossibleActions();
+    if (actions.size() == 1 && actions.get(0) instanceof Pass) {
+      return actions.get(0);
+    }
+    return null;
+  }
+
   /**
    * Returns the Future used to get a player component's action, with the appropriate request
    * being passed to the player component depending on the current phase of the game (penguin
@@ -340,6 +621,7 @@ public class Referee implements IReferee {
     } else {
       throw new IllegalStateException("Wrong game phase.");
     }
+    es.shutdown();
     return future;
   }
 
@@ -365,6 +647,9 @@ public class Referee implements IReferee {
         } else if (phase == GamePhase.PLAYING) {
           this.gt = gt.lookAhead(action);
         }
+        if (recording != null) {
+          recording.recordAction(currPlayer.getColor(), action);
+        }
       } catch (IllegalArgumentException iae) {
         // player made an illegal placement/movement
         invalidPlayer(gs, currPlayer, currComponent, cheaters);
@@ -389,6 +674,25 @@ public class Referee implements IReferee {
     gs.removePlayer(p);
     list.add(pcomp);
     numPlayers--;
+    if (recording != null) {
+      recording.recordRemoval(p.getColor());
+    }
+  }
+
+  /**
+   * Completes the recording of the game, if it is being recorded, with the colors of the winning
+   * players. A failure to write the replay is reported but does not affect the game's outcome.
+   */
+  private void finishRecording() {
+    if (recording == null) {
+      return;
+    }
+    try {
+      recording.finish(colorsOf(winners));
+    } catch (IOException | IllegalArgumentException e) {
+      System.err.println("Could not write the replay of game " + gameId + ": " + e.getMessage());
+    }
+    recording = null;
   }
 
   /**
@@ -469,17 +773,22 @@ public class Referee implements IReferee {
     }
 
     for (Penguin.PenguinColor color : playerMap.keySet()) {
-      if (failures.contains(playerMap.get(color))) {
+      IPlayerComponent pcomp = playerMap.get(color);
+      if (failures.contains(pcomp) || (type == NotifType.START && cheaters.contains(pcomp))) {
         continue;
       }
+      NotificationEvent event = new NotificationEvent();
+      event.begin();
       try {
         es = Executors.newSingleThreadExecutor();
         methodCall = new NotifFunc(color);
         sendNotif = es.submit(methodCall);
+        es.shutdown();
         sendNotif.get(COMMS_TIMEOUT, TimeUnit.SECONDS);
       }
       catch (TimeoutException | InterruptedException | ExecutionException e) {
         // All exceptions here indicate a player has failed.
+        event.failed = true;
         GameState state = this.gt.getGameState();
         Player player = null;
         for (Player p : state.getPlayers()) {
@@ -493,6 +802,16 @@ public class Referee implements IReferee {
         invalidPlayer(state, player, failedPlayer, failures);
         this.gt = new GameTreeNode(state);
       }
+      finally {
+        event.end();
+        if (event.shouldCommit()) {
+          event.gameId = gameId;
+          event.playerColor = color.name();
+          event.phase = phase.name();
+          event.notification = type.name();
+          event.commit();
+        }
+      }
     }
   }
 
@@ -537,6 +856,64 @@ public class Referee implements IReferee {
     return this.gt.getGameState();
   }
 
+  /**
+   * Returns the id of the game overseen by this Referee, which is unique among the referees
+   * created by this process.
+   * @return the game id of this Referee.
+   */
+  public long getGameId() {
+    return this.gameId;
+  }
+
+  /**
+   * Sets the recorder that this Referee records its game to. The game is recorded from the start
+   * of runGame until it ends, so the recorder must be set before runGame is called.
+   * @param recorder The replay recorder to write the game to, or null to not record it.
+   */
+  public void setReplayRecorder(ReplayRecorder recorder) {
+    this.replayRecorder = recorder;
+  }
+
+  /**
+   * Sets the checkpointer that this Referee saves checkpoints of its game to while it runs.
+   * @param checkpointer The checkpointer to save checkpoints to, or null to not checkpoint.
+   */
+  public void setCheckpointer(RefereeCheckpointer checkpointer) {
+    this.checkpointer = checkpointer;
+  }
+
+  /**
+   * Sets the feed that this Referee publishes its game to for spectators. Snapshots are published
+   * when the game starts or resumes and after every turn, from the thread running the game, so a
+   * feed must not be shared by referees running at the same time.
+   * @param feed The feed to publish to, or null to not publish the game.
+   */
+  public void setSpectatorFeed(SpectatorFeed feed) {
+    this.spectatorFeed = feed;
+  }
+
+  /**
+   * Sets whether this Referee ends its game as soon as the winners are decided, rather than once
+   * no penguin can move (see outcomeDecided). The winners are the ones the rest of the game would
+   * have had, but the players' fish, the final state and any replay are those of the game when it
+   * ended. Off by default.
+   * @param fastFinish Whether to end the game as soon as the winners are decided.
+   */
+  public void setFastFinish(boolean fastFinish) {
+    this.fastFinish = fastFinish;
+  }
+
+  /**
+   * Sets whether this Referee passes on behalf of a player whose penguins cannot move, recording
+   * the pass as the player's turn without calling takeTurn on its component. This saves a round
+   * trip to the player for every forced pass, but players that expect to be asked for every turn
+   * of the game no longer are. Off by default.
+   * @param autoPass Whether to apply forced passes without asking the player.
+   */
+  public void setAutoPass(boolean autoPass) {
+    this.autoPass = autoPass;
+  }
+
   /**
    * set the game phase of the current game to the given game phase
    * @param gamePhase a GamePhase enum
@@ -0,0 +1,171 @@
+package referee;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import game.codec.StateCodec;
+import game.codec.VarInts;
+import game.model.GameState;
+import game.model.Penguin;
+
+/**
+ * A snapshot of a Referee's game in progress, from which a new Referee can resume the game (see
+ * the checkpoint-resuming Referee constructor). Checkpoints are written by a RefereeCheckpointer.
+ *
+ * An encoded checkpoint is laid out as:
+ *
+ *   magic number            the 4 bytes "FSHC", followed by a format version byte
+ *   game id                 varint
+ *   phase                   byte, the ordinal of the Referee.GamePhase (PLACING or PLAYING)
+ *   penguins per player     varint
+ *   failed players          byte, bitmask of the colors of players removed for failing
+ *   cheating players        byte, bitmask of the colors of players removed for cheating
+ *   game state              as encoded by game.codec.StateCodec, holding the board, penguins,
+ *                           scores and turn
+ *
+ * Players that failed before being given a color (while the game was set up) are not part of a
+ * checkpoint.
+ */
+public class RefereeCheckpoint {
+  private static final byte[] MAGIC = {'F', 'S', 'H', 'C'};
+  private static final byte VERSION = 1;
+
+  private final long gameId;
+  private final Referee.GamePhase phase;
+  private final int penguinsPerPlayer;
+  private final List<Penguin.PenguinColor> failed;
+  private final List<Penguin.PenguinColor> cheated;
+  private final GameState state;
+
+  /**
+   * Constructs a checkpoint of a game, copying its state so that the game can go on.
+   * @param gameId The id of the game.
+   * @param phase The phase of the game, which must be PLACING or PLAYING.
+   * @param penguinsPerPlayer The number of penguins each player places in the game.
+   * @param failed The colors of the players removed from the game for failing.
+   * @param cheated The colors of the players removed from the game for cheating.
+   * @param state The current state of the game.
+   */
+  RefereeCheckpoint(long gameId, Referee.GamePhase phase, int penguinsPerPlayer,
+                    List<Penguin.PenguinColor> failed, List<Penguin.PenguinColor> cheated,
+                    GameState state) {
+    if (phase != Referee.GamePhase.PLACING && phase != Referee.GamePhase.PLAYING) {
+      throw new IllegalArgumentException("Only games being played can be checkpointed.");
+    }
+    this.gameId = gameId;
+    this.phase = phase;
+    this.penguinsPerPlayer = penguinsPerPlayer;
+    this.failed = failed;
+    this.cheated = cheated;
+    this.state = new GameState(state);
+  }
+
+  /**
+   * Encodes this checkpoint.
+   * @return A buffer holding the encoded checkpoint from its position to its limit.
+   */
+  public ByteBuffer encode() {
+    ByteBuffer buf = ByteBuffer.allocate(MAGIC.length + 1 + VarInts.MAX_LONG_BYTES + 1
+            + VarInts.MAX_INT_BYTES + 2 + StateCodec.maxEncodedSize(state));
+    buf.put(MAGIC);
+    buf.put(VERSION);
+    VarInts.putVarLong(buf, gameId);
+    buf.put((byte) phase.ordinal());
+    VarInts.putVarInt(buf, penguinsPerPlayer);
+    buf.put(StateCodec.colorMask(failed));
+    buf.put(StateCodec.colorMask(cheated));
+    StateCodec.encode(state, buf);
+    buf.flip();
+    return buf;
+  }
+
+  /**
+   * Decodes a checkpoint written by encode.
+   * @param buf The buffer holding the encoded checkpoint.
+   * @return The decoded checkpoint.
+   * @throws IllegalArgumentException if the buffer does not hold a valid checkpoint.
+   */
+  public static RefereeCheckpoint decode(ByteBuffer buf) {
+    for (byte b : MAGIC) {
+      if (!buf.hasRemaining() || buf.get() != b) {
+        throw new IllegalArgumentException("Not a referee checkpoint: bad magic number.");
+      }
+    }
+    if (!buf.hasRemaining() || buf.get() != VERSION) {
+      throw new IllegalArgumentException("Unsupported referee checkpoint version.");
+    }
+    long gameId = VarInts.getVarLong(buf);
+    int phase = buf.get();
+    Referee.GamePhase[] phases = Referee.GamePhase.values();
+    if (phase < 0 || phase >= phases.length) {
+      throw new IllegalArgumentException("Invalid game phase in referee checkpoint: " + phase);
+    }
+    int penguinsPerPlayer = VarInts.getVarInt(buf);
+    List<Penguin.PenguinColor> failed = StateCodec.colorsOf(buf.get());
+    List<Penguin.PenguinColor> cheated = StateCodec.colorsOf(buf.get());
+    GameState state = StateCodec.decode(buf);
+    return new RefereeCheckpoint(gameId, phases[phase], penguinsPerPlayer, failed, cheated, state);
+  }
+
+  /**
+   * Reads the checkpoint stored in a file.
+   * @param file Path of the checkpoint file.
+   * @return The checkpoint in the file.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if the file does not hold a valid checkpoint.
+   */
+  public static RefereeCheckpoint read(Path file) throws IOException {
+    return decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+  }
+
+  /**
+   * Gets the id of the checkpointed game.
+   * @return The game id.
+   */
+  public long getGameId() {
+    return gameId;
+  }
+
+  /**
+   * Gets the phase the game was in.
+   * @return PLACING or PLAYING.
+   */
+  public Referee.GamePhase getPhase() {
+    return phase;
+  }
+
+  /**
+   * Gets the number of penguins each player places in the game.
+   * @return The number of penguins per player.
+   */
+  public int getPenguinsPerPlayer() {
+    return penguinsPerPlayer;
+  }
+
+  /**
+   * Gets the colors of the players that were removed from the game for failing.
+   * @return The colors of the failed players.
+   */
+  public List<Penguin.PenguinColor> getFailed() {
+    return failed;
+  }
+
+  /**
+   * Gets the colors of the players that were removed from the game for cheating.
+   * @return The colors of the cheating players.
+   */
+  public List<Penguin.PenguinColor> getCheated() {
+    return cheated;
+  }
+
+  /**
+   * Gets the state of the game at the checkpoint.
+   * @return A copy of the checkpointed state.
+   */
+  public GameState getGameState() {
+    return new GameState(state);
+  }
+}
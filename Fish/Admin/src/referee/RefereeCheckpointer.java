@@ -0,0 +1,201 @@
+package referee;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically saves checkpoints of the games run by referees to a directory, so that games in
+ * progress survive a crash of the process running them (see RefereeCheckpoint and the
+ * checkpoint-resuming Referee constructor). One checkpointer may be shared by any number of
+ * referees.
+ *
+ * A referee hands a checkpoint over every interval turns; the checkpoint only copies the game
+ * state, and encoding and writing it happen on the checkpointer's own writer thread, so the game
+ * loop never waits for the disk. If the writer falls behind, only the latest checkpoint of each
+ * game is written. Each checkpoint is written to a temporary file that is then atomically moved
+ * over the game's previous checkpoint, so the directory always holds a complete checkpoint per
+ * unfinished game; the checkpoint of a game is deleted once the game ends.
+ *
+ * Checkpoints are named after the ids of their games, so opening a checkpointer on a directory
+ * moves the ids of new games past those of any checkpoints already in it (see
+ * Referee.reserveGameIds): games started before the checkpoints left by a crashed process are
+ * resumed can never overwrite them.
+ */
+public class RefereeCheckpointer implements Closeable {
+  private static final String PREFIX = "game-";
+  private static final String SUFFIX = ".ckpt";
+
+  private final Path dir;
+  private final int interval;
+  private final ConcurrentHashMap<Long, RefereeCheckpoint> pending;
+  private final ExecutorService writer;
+
+  /**
+   * Creates a checkpointer writing to the given directory.
+   * @param dir The directory to keep checkpoints in, which is created if it does not exist.
+   * @param interval The number of turns a referee plays between checkpoints.
+   * @throws IOException if the directory cannot be created.
+   */
+  public RefereeCheckpointer(Path dir, int interval) throws IOException {
+    if (interval < 1) {
+      throw new IllegalArgumentException("Checkpoint interval must be at least one turn.");
+    }
+    this.dir = dir;
+    this.interval = interval;
+    this.pending = new ConcurrentHashMap<>();
+    this.writer = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "referee-checkpoints");
+      t.setDaemon(true);
+      return t;
+    });
+    Files.createDirectories(dir);
+    reserveCheckpointedIds();
+  }
+
+  /**
+   * Moves the ids of new games past the ids of the checkpoints in the directory, including any
+   * write of one that a crash interrupted.
+   * @throws IOException if the directory cannot be read.
+   */
+  private void reserveCheckpointedIds() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        int end = name.indexOf(SUFFIX);
+        if (end < 0) {
+          continue;
+        }
+        try {
+          Referee.reserveGameIds(Long.parseLong(name.substring(PREFIX.length(), end)));
+        } catch (NumberFormatException e) {
+          // Not a checkpoint of this checkpointer's
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the number of turns a referee plays between checkpoints.
+   * @return The checkpoint interval in turns.
+   */
+  public int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Queues a checkpoint to be written, replacing any checkpoint of the same game that has not been
+   * written yet. Returns without waiting for the write.
+   * @param checkpoint The checkpoint to save.
+   */
+  public void save(RefereeCheckpoint checkpoint) {
+    long gameId = checkpoint.getGameId();
+    if (pending.put(gameId, checkpoint) == null) {
+      writer.execute(() -> write(gameId));
+    }
+  }
+
+  /**
+   * Deletes the checkpoint of a game that has ended, along with any write of it still queued.
+   * @param gameId The id of the game.
+   */
+  public void discard(long gameId) {
+    pending.remove(gameId);
+    writer.execute(() -> {
+      try {
+        Files.deleteIfExists(pathOf(gameId));
+      } catch (IOException e) {
+        System.err.println("Could not delete the checkpoint of game " + gameId + ": "
+                + e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Writes the latest pending checkpoint of a game, if there still is one. Runs on the writer
+   * thread.
+   * @param gameId The id of the game.
+   */
+  private void write(long gameId) {
+    RefereeCheckpoint checkpoint = pending.remove(gameId);
+    if (checkpoint == null) {
+      return;
+    }
+    Path target = pathOf(gameId);
+    Path tmp = dir.resolve(target.getFileName() + ".tmp");
+    try {
+      ByteBuffer bytes = checkpoint.encode();
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+      }
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      System.err.println("Could not write the checkpoint of game " + gameId + ": "
+              + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the path of the checkpoint file of a game.
+   * @param gameId The id of the game.
+   * @return The path of the game's checkpoint in this checkpointer's directory.
+   */
+  private Path pathOf(long gameId) {
+    return dir.resolve(PREFIX + gameId + SUFFIX);
+  }
+
+  /**
+   * Reads all checkpoints in a directory, such as the checkpoints left behind by a crashed
+   * process, in order of game id. Files that are not valid checkpoints are skipped.
+   * @param dir The checkpoint directory.
+   * @return The checkpoints of the unfinished games in the directory.
+   * @throws IOException if the directory cannot be read.
+   */
+  public static List<RefereeCheckpoint> load(Path dir) throws IOException {
+    List<RefereeCheckpoint> checkpoints = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+      for (Path file : files) {
+        try {
+          checkpoints.add(RefereeCheckpoint.read(file));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+          System.err.println("Skipping invalid checkpoint " + file + ": " + e.getMessage());
+        }
+      }
+    }
+    checkpoints.sort(Comparator.comparingLong(RefereeCheckpoint::getGameId));
+    return checkpoints;
+  }
+
+  /**
+   * Writes all queued checkpoints and stops the writer thread.
+   * @throws IOException if interrupted while waiting for the writes to finish.
+   */
+  @Override
+  public void close() throws IOException {
+    writer.shutdown();
+    try {
+      writer.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing checkpoints.", e);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package referee;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering a single turn supervised by a Referee (one call of
+ * Referee.takeOneAction), from handing a copy of the game tree to the current player component
+ * until its action has been applied or the player has been removed, or of a pass the referee
+ * applied for a player that could not move (see Referee.setAutoPass). The duration of the turn is
+ * recorded by JFR itself; the event carries the identifying information of the turn.
+ *
+ * The event costs next to nothing while no recording has it enabled, so it is always emitted.
+ */
+@Name("fish.RefereeTurn")
+@Label("Referee Turn")
+@Category({"Fish", "Referee"})
+@Description("A single placement or movement turn requested by a referee from a player component")
+class TurnEvent extends Event {
+
+  @Label("Game Id")
+  long gameId;
+
+  @Label("Player Color")
+  String playerColor;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Outcome")
+  @Description("Whether the action was accepted, was a pass forced without asking the player, "
+          + "or the player failed or cheated")
+  String outcome;
+}
@@ -0,0 +1,101 @@
+package stress;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of latencies, recorded in microseconds into buckets that double in width
+ * (bucket i holds latencies below 2^i microseconds), so recording is a few atomic increments and
+ * percentiles are accurate to within a factor of two, which is enough to tell a healthy server
+ * from a struggling one.
+ */
+public class LatencyHistogram {
+  private static final int BUCKETS = 40;
+
+  private final AtomicLongArray buckets;
+  private final LongAdder count;
+  private final LongAdder totalMicros;
+  private final LongAccumulator maxMicros;
+
+  /**
+   * Creates an empty histogram.
+   */
+  public LatencyHistogram() {
+    this.buckets = new AtomicLongArray(BUCKETS);
+    this.count = new LongAdder();
+    this.totalMicros = new LongAdder();
+    this.maxMicros = new LongAccumulator(Math::max, 0);
+  }
+
+  /**
+   * Records a latency.
+   * @param nanos The latency in nanoseconds.
+   */
+  public void record(long nanos) {
+    long micros = Math.max(nanos / 1000, 0);
+    int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    buckets.incrementAndGet(bucket);
+    count.increment();
+    totalMicros.add(micros);
+    maxMicros.accumulate(micros);
+  }
+
+  /**
+   * Gets the number of latencies recorded.
+   * @return The count.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the mean of the latencies recorded.
+   * @return The mean in microseconds, or 0 if none were recorded.
+   */
+  public long getMeanMicros() {
+    long n = count.sum();
+    return n == 0 ? 0 : totalMicros.sum() / n;
+  }
+
+  /**
+   * Gets the largest latency recorded.
+   * @return The maximum in microseconds.
+   */
+  public long getMaxMicros() {
+    return maxMicros.get();
+  }
+
+  /**
+   * Gets an upper bound on the given percentile of the latencies recorded.
+   * @param percentile The percentile, between 0 and 100.
+   * @return The upper bound of the bucket holding the percentile, in microseconds, or 0 if none
+   * were recorded.
+   */
+  public long getPercentileMicros(double percentile) {
+    long n = count.sum();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(n * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(1L << i, getMaxMicros());
+      }
+    }
+    return getMaxMicros();
+  }
+
+  /**
+   * Summarizes the histogram on one line.
+   * @return The count, mean, 50th, 90th and 99th percentiles and maximum.
+   */
+  @Override
+  public String toString() {
+    return String.format("n=%d mean=%dus p50<=%dus p90<=%dus p99<=%dus max=%dus", getCount(),
+            getMeanMicros(), getPercentileMicros(50), getPercentileMicros(90),
+            getPercentileMicros(99), getMaxMicros());
+  }
+}
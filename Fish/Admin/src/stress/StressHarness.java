@@ -0,0 +1,277 @@
+package stress;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import player.IPlayerComponent;
+import remote.ClientSimulator;
+import remote.PlayerServer;
+import tmanager.TournamentManager;
+
+/**
+ * Load test of the whole tournament stack on one machine: a PlayerServer on a loopback port, a
+ * ClientSimulator connecting the given number of simulated remote players to it, and a real
+ * TournamentManager running a complete tournament with the players that signed up. Every call to
+ * a player goes through a TimedPlayerComponent, so the report shows the latency the referees and
+ * the tournament manager actually see, next to the tournament's throughput in requests per second.
+ *
+ * Run as
+ *   java stress.StressHarness [-clients N] [-think MS] [-jitter MS] [-fail RATE]
+ *                             [-strategies first,random,minimax] [-server-threads N]
+ *                             [-client-threads N] [-timeout MS] [-seed N]
+ * with the classes and gson on the classpath; everything runs offline over loopback.
+ */
+public class StressHarness {
+  public static final long SIGN_UP_WAIT_MILLIS = 30000;
+
+  private final int clients;
+  private final long seed;
+  private long thinkMillis;
+  private long jitterMillis;
+  private double failureRate;
+  private List<ClientSimulator.Strategy> strategies;
+  private int serverThreads;
+  private int clientThreads;
+  private long responseTimeoutMillis;
+
+  private final LatencyHistogram notifications;
+  private final LatencyHistogram placements;
+  private final LatencyHistogram turns;
+  private int signedUp;
+  private int rounds;
+  private int winners;
+  private long answered;
+  private long failuresInjected;
+  private long elapsedNanos;
+
+  /**
+   * Creates a harness for a tournament of the given number of simulated clients, which answer at
+   * once, play FIRST and never fail until configured otherwise.
+   * @param clients The number of clients to connect.
+   * @param seed The seed of the clients' and the tournament's random decisions.
+   */
+  public StressHarness(int clients, long seed) {
+    if (clients < 2) {
+      throw new IllegalArgumentException("A tournament needs at least two clients.");
+    }
+    this.clients = clients;
+    this.seed = seed;
+    this.strategies = Collections.singletonList(ClientSimulator.Strategy.FIRST);
+    this.serverThreads = PlayerServer.DEFAULT_THREADS;
+    this.clientThreads = Runtime.getRuntime().availableProcessors();
+    this.responseTimeoutMillis = PlayerServer.DEFAULT_RESPONSE_TIMEOUT_MILLIS;
+    this.notifications = new LatencyHistogram();
+    this.placements = new LatencyHistogram();
+    this.turns = new LatencyHistogram();
+  }
+
+  /**
+   * Runs the tournament, filling in the results of the harness. May only be called once.
+   * @throws IOException if the server cannot be started or a client cannot connect.
+   * @throws InterruptedException if interrupted while waiting for the clients to sign up.
+   */
+  public void run() throws IOException, InterruptedException {
+    try (PlayerServer server = new PlayerServer(0, serverThreads, responseTimeoutMillis);
+         ClientSimulator simulator = new ClientSimulator(server.getPort(), clientThreads, seed)) {
+      simulator.setThinkTime(thinkMillis, jitterMillis);
+      simulator.setFailureRate(failureRate);
+      simulator.setStrategies(strategies);
+      simulator.connect(clients);
+
+      List<IPlayerComponent> players = new ArrayList<>();
+      for (IPlayerComponent player : server.awaitPlayers(clients, SIGN_UP_WAIT_MILLIS)) {
+        players.add(new TimedPlayerComponent(player, notifications, placements, turns));
+      }
+      signedUp = players.size();
+
+      long start = System.nanoTime();
+      TournamentManager tm = new TournamentManager(players, seed);
+      tm.runTournament();
+      elapsedNanos = System.nanoTime() - start;
+      rounds = tm.getRound();
+      winners = tm.getWinners().size();
+      answered = simulator.getRequestsAnswered();
+      failuresInjected = simulator.getFailuresInjected();
+    }
+  }
+
+  /**
+   * Summarizes the results of the run.
+   * @return A report of several lines.
+   */
+  public String report() {
+    double seconds = elapsedNanos / 1e9;
+    long requests = placements.getCount() + turns.getCount();
+    return String.format(Locale.ROOT,
+            "clients %d, signed up %d, rounds %d, winners %d%n"
+            + "tournament %.3f s, %d placement and turn requests, %.0f requests/s%n"
+            + "answers sent %d, failures injected %d%n"
+            + "notifications %s%n"
+            + "placements    %s%n"
+            + "turns         %s%n",
+            clients, signedUp, rounds, winners,
+            seconds, requests, seconds > 0 ? requests / seconds : 0,
+            answered, failuresInjected,
+            notifications, placements, turns);
+  }
+
+  /**
+   * Sets how long clients think before every answer.
+   * @param thinkMillis The time every answer takes at least.
+   * @param jitterMillis The largest random time added to it.
+   */
+  public void setThinkTime(long thinkMillis, long jitterMillis) {
+    this.thinkMillis = thinkMillis;
+    this.jitterMillis = jitterMillis;
+  }
+
+  /**
+   * Sets the probability with which a client fails instead of answering any one request.
+   * @param failureRate The probability, between 0 and 1.
+   */
+  public void setFailureRate(double failureRate) {
+    this.failureRate = failureRate;
+  }
+
+  /**
+   * Sets the strategies of the clients, which are assigned to them in turn.
+   * @param strategies The strategies, at least one.
+   */
+  public void setStrategies(List<ClientSimulator.Strategy> strategies) {
+    this.strategies = strategies;
+  }
+
+  /**
+   * Sets the number of threads of the server and of the simulated clients.
+   * @param serverThreads The number of event loops of the server.
+   * @param clientThreads The number of worker threads computing the clients' answers.
+   */
+  public void setThreads(int serverThreads, int clientThreads) {
+    this.serverThreads = serverThreads;
+    this.clientThreads = clientThreads;
+  }
+
+  /**
+   * Sets the time a client has to answer each request before the server gives up on it.
+   * @param responseTimeoutMillis The response timeout.
+   */
+  public void setResponseTimeout(long responseTimeoutMillis) {
+    this.responseTimeoutMillis = responseTimeoutMillis;
+  }
+
+  /**
+   * Gets the number of clients that signed up in time to play.
+   * @return The number of players of the tournament.
+   */
+  public int getSignedUp() {
+    return signedUp;
+  }
+
+  /**
+   * Gets the number of rounds the tournament took.
+   * @return The number of rounds.
+   */
+  public int getRounds() {
+    return rounds;
+  }
+
+  /**
+   * Gets the number of winners of the tournament.
+   * @return The number of winners.
+   */
+  public int getWinners() {
+    return winners;
+  }
+
+  /**
+   * Gets the number of failures the clients staged.
+   * @return The number of requests failed on purpose.
+   */
+  public long getFailuresInjected() {
+    return failuresInjected;
+  }
+
+  /**
+   * Gets the latencies of placement requests.
+   * @return The histogram of placement latencies.
+   */
+  public LatencyHistogram getPlacements() {
+    return placements;
+  }
+
+  /**
+   * Gets the latencies of turn requests.
+   * @return The histogram of turn latencies.
+   */
+  public LatencyHistogram getTurns() {
+    return turns;
+  }
+
+  /**
+   * Runs a stress test with the options given on the command line and prints its report.
+   * @param args The options, as described in the class comment.
+   * @throws Exception if the test cannot be run.
+   */
+  public static void main(String[] args) throws Exception {
+    int clients = 1000;
+    long seed = 0;
+    long think = 0;
+    long jitter = 0;
+    double fail = 0;
+    int serverThreads = PlayerServer.DEFAULT_THREADS;
+    int clientThreads = Runtime.getRuntime().availableProcessors();
+    long timeout = PlayerServer.DEFAULT_RESPONSE_TIMEOUT_MILLIS;
+    List<ClientSimulator.Strategy> strategies =
+            Collections.singletonList(ClientSimulator.Strategy.FIRST);
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "-clients":
+          clients = Integer.parseInt(value);
+          break;
+        case "-seed":
+          seed = Long.parseLong(value);
+          break;
+        case "-think":
+          think = Long.parseLong(value);
+          break;
+        case "-jitter":
+          jitter = Long.parseLong(value);
+          break;
+        case "-fail":
+          fail = Double.parseDouble(value);
+          break;
+        case "-server-threads":
+          serverThreads = Integer.parseInt(value);
+          break;
+        case "-client-threads":
+          clientThreads = Integer.parseInt(value);
+          break;
+        case "-timeout":
+          timeout = Long.parseLong(value);
+          break;
+        case "-strategies":
+          strategies = new ArrayList<>();
+          for (String name : value.split(",")) {
+            strategies.add(ClientSimulator.Strategy.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+
+    StressHarness harness = new StressHarness(clients, seed);
+    harness.setThinkTime(think, jitter);
+    harness.setFailureRate(fail);
+    harness.setStrategies(strategies);
+    harness.setThreads(serverThreads, clientThreads);
+    harness.setResponseTimeout(timeout);
+    harness.run();
+    System.out.print(harness.report());
+    System.exit(0);
+  }
+}
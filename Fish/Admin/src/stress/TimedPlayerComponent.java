@@ -0,0 +1,112 @@
+package stress;
+
+import java.util.function.Supplier;
+
+import game.model.Action;
+import game.model.GameTreeNode;
+import game.model.Penguin;
+import game.model.Place;
+import player.IPlayerComponent;
+
+/**
+ * Player component that passes every call through to another component and records how long it
+ * took, whether it returned or threw, in the histogram of the call's kind. Used by the
+ * StressHarness to measure the latency referees and tournament managers see, end to end.
+ */
+public class TimedPlayerComponent implements IPlayerComponent {
+  private final IPlayerComponent player;
+  private final LatencyHistogram notifications;
+  private final LatencyHistogram placements;
+  private final LatencyHistogram turns;
+
+  /**
+   * Wraps a player component.
+   * @param player The component to time.
+   * @param notifications The histogram of the tournament and game notifications.
+   * @param placements The histogram of placement requests.
+   * @param turns The histogram of turn requests.
+   */
+  public TimedPlayerComponent(IPlayerComponent player, LatencyHistogram notifications,
+                              LatencyHistogram placements, LatencyHistogram turns) {
+    this.player = player;
+    this.notifications = notifications;
+    this.placements = placements;
+    this.turns = turns;
+  }
+
+  @Override
+  public void joinTournament() {
+    time(notifications, () -> {
+      player.joinTournament();
+      return null;
+    });
+  }
+
+  @Override
+  public void leaveTournament() {
+    time(notifications, () -> {
+      player.leaveTournament();
+      return null;
+    });
+  }
+
+  @Override
+  public void startPlaying(Penguin.PenguinColor color) {
+    time(notifications, () -> {
+      player.startPlaying(color);
+      return null;
+    });
+  }
+
+  @Override
+  public Place placePenguin(GameTreeNode gt) {
+    return time(placements, () -> player.placePenguin(gt));
+  }
+
+  @Override
+  public Action takeTurn(GameTreeNode gt) {
+    return time(turns, () -> player.takeTurn(gt));
+  }
+
+  @Override
+  public void finishPlaying() {
+    time(notifications, () -> {
+      player.finishPlaying();
+      return null;
+    });
+  }
+
+  @Override
+  public int getAge() {
+    return player.getAge();
+  }
+
+  @Override
+  public Penguin.PenguinColor getColor() {
+    return player.getColor();
+  }
+
+  /**
+   * Gets the component being timed.
+   * @return The wrapped component.
+   */
+  public IPlayerComponent getPlayer() {
+    return player;
+  }
+
+  /**
+   * Makes a call and records its latency.
+   * @param histogram The histogram to record the latency in.
+   * @param call The call to make.
+   * @param <T> The type of the call's result.
+   * @return The result of the call.
+   */
+  private static <T> T time(LatencyHistogram histogram, Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      return call.get();
+    } finally {
+      histogram.record(System.nanoTime() - start);
+    }
+  }
+}
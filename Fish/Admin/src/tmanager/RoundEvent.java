@@ -0,0 +1,32 @@
+package tmanager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering a single round of a tournament
+ * (TournamentManager.runTournamentRound), during which every referee of the round runs its game.
+ */
+@Name("fish.TournamentRound")
+@Label("Tournament Round")
+@Category({"Fish", "Tournament"})
+@Description("A round of games run by a tournament manager")
+class RoundEvent extends Event {
+
+  @Label("Round")
+  int round;
+
+  @Label("Games")
+  int games;
+
+  @Label("Active Players")
+  @Description("Number of players still in the tournament when the round started")
+  int activePlayers;
+
+  @Label("Winners")
+  @Description("Number of players that won their game in this round")
+  int winners;
+}
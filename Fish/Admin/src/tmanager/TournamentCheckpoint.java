@@ -0,0 +1,188 @@
+package tmanager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import game.codec.VarInts;
+
+/**
+ * A snapshot of a tournament taken at the boundary between two rounds, from which a new
+ * TournamentManager can resume the tournament with the next round (see the checkpoint-resuming
+ * TournamentManager constructor). Checkpoints are written by a TournamentCheckpointer.
+ *
+ * Players are identified by their position in the list of player components the tournament was
+ * started with. An encoded checkpoint is laid out as:
+ *
+ *   magic number            the 4 bytes "FSHT", followed by a format version byte
+ *   round                   varint, the number of rounds completed
+ *   first round run         byte, 1 if the first round has been run, else 0
+ *   seed                    long, the seed of the generator for the games of the next round
+ *   player count            varint, followed by each player's games played and games won
+ *                           (varints), in sign-up order
+ *   survivor count          varint, followed by the ids of the players still in the tournament
+ *                           (varints), in the order they are assigned to games
+ */
+public class TournamentCheckpoint {
+  private static final byte[] MAGIC = {'F', 'S', 'H', 'T'};
+  private static final byte VERSION = 1;
+
+  private final int round;
+  private final boolean firstRoundRun;
+  private final long seed;
+  private final int[] gamesPlayed;
+  private final int[] gamesWon;
+  private final int[] survivors;
+
+  /**
+   * Constructs a checkpoint of a tournament, copying the given arrays.
+   * @param round The number of rounds completed.
+   * @param firstRoundRun Whether the first round has been run.
+   * @param seed The seed of the generator for the games of the next round.
+   * @param gamesPlayed The number of games played by each player, by player id.
+   * @param gamesWon The number of games won by each player, by player id.
+   * @param survivors The ids of the players still in the tournament.
+   */
+  TournamentCheckpoint(int round, boolean firstRoundRun, long seed, int[] gamesPlayed,
+                       int[] gamesWon, int[] survivors) {
+    if (gamesPlayed.length != gamesWon.length) {
+      throw new IllegalArgumentException("Player statistics are of different lengths.");
+    }
+    this.round = round;
+    this.firstRoundRun = firstRoundRun;
+    this.seed = seed;
+    this.gamesPlayed = gamesPlayed.clone();
+    this.gamesWon = gamesWon.clone();
+    this.survivors = survivors.clone();
+  }
+
+  /**
+   * Encodes this checkpoint.
+   * @return A buffer holding the encoded checkpoint from its position to its limit.
+   */
+  public ByteBuffer encode() {
+    ByteBuffer buf = ByteBuffer.allocate(MAGIC.length + 1 + VarInts.MAX_INT_BYTES + 1 + Long.BYTES
+            + VarInts.MAX_INT_BYTES * (2 + 2 * gamesPlayed.length + survivors.length));
+    buf.put(MAGIC);
+    buf.put(VERSION);
+    VarInts.putVarInt(buf, round);
+    buf.put((byte) (firstRoundRun ? 1 : 0));
+    buf.putLong(seed);
+    VarInts.putVarInt(buf, gamesPlayed.length);
+    for (int i = 0; i < gamesPlayed.length; i++) {
+      VarInts.putVarInt(buf, gamesPlayed[i]);
+      VarInts.putVarInt(buf, gamesWon[i]);
+    }
+    VarInts.putVarInt(buf, survivors.length);
+    for (int id : survivors) {
+      VarInts.putVarInt(buf, id);
+    }
+    buf.flip();
+    return buf;
+  }
+
+  /**
+   * Decodes a checkpoint written by encode.
+   * @param buf The buffer holding the encoded checkpoint.
+   * @return The decoded checkpoint.
+   * @throws IllegalArgumentException if the buffer does not hold a valid checkpoint.
+   */
+  public static TournamentCheckpoint decode(ByteBuffer buf) {
+    for (byte b : MAGIC) {
+      if (!buf.hasRemaining() || buf.get() != b) {
+        throw new IllegalArgumentException("Not a tournament checkpoint: bad magic number.");
+      }
+    }
+    if (!buf.hasRemaining() || buf.get() != VERSION) {
+      throw new IllegalArgumentException("Unsupported tournament checkpoint version.");
+    }
+    int round = VarInts.getVarInt(buf);
+    boolean firstRoundRun = buf.get() != 0;
+    long seed = buf.getLong();
+    int numPlayers = VarInts.getVarInt(buf);
+    int[] gamesPlayed = new int[numPlayers];
+    int[] gamesWon = new int[numPlayers];
+    for (int i = 0; i < numPlayers; i++) {
+      gamesPlayed[i] = VarInts.getVarInt(buf);
+      gamesWon[i] = VarInts.getVarInt(buf);
+    }
+    int[] survivors = new int[VarInts.getVarInt(buf)];
+    for (int i = 0; i < survivors.length; i++) {
+      survivors[i] = VarInts.getVarInt(buf);
+      if (survivors[i] >= numPlayers) {
+        throw new IllegalArgumentException("Surviving player id out of range: " + survivors[i]);
+      }
+    }
+    return new TournamentCheckpoint(round, firstRoundRun, seed, gamesPlayed, gamesWon, survivors);
+  }
+
+  /**
+   * Reads the checkpoint stored in a file.
+   * @param file Path of the checkpoint file.
+   * @return The checkpoint in the file.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if the file does not hold a valid checkpoint.
+   */
+  public static TournamentCheckpoint read(Path file) throws IOException {
+    return decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+  }
+
+  /**
+   * Gets the number of rounds completed when the checkpoint was taken.
+   * @return The number of completed rounds.
+   */
+  public int getRound() {
+    return round;
+  }
+
+  /**
+   * Checks whether the first round of the tournament had been run.
+   * @return True if the first round had been run, else false.
+   */
+  public boolean isFirstRoundRun() {
+    return firstRoundRun;
+  }
+
+  /**
+   * Gets the seed of the generator for the games of the next round.
+   * @return The seed.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Gets the number of players the tournament was started with.
+   * @return The number of players, which is one more than the largest player id.
+   */
+  public int getNumPlayers() {
+    return gamesPlayed.length;
+  }
+
+  /**
+   * Gets the number of games a player has played.
+   * @param id The id of the player.
+   * @return The number of games the player has played in completed rounds.
+   */
+  public int getGamesPlayed(int id) {
+    return gamesPlayed[id];
+  }
+
+  /**
+   * Gets the number of games a player has won.
+   * @param id The id of the player.
+   * @return The number of games the player has won in completed rounds.
+   */
+  public int getGamesWon(int id) {
+    return gamesWon[id];
+  }
+
+  /**
+   * Gets the ids of the players still in the tournament.
+   * @return A copy of the surviving player ids, in the order they are assigned to games.
+   */
+  public int[] getSurvivors() {
+    return survivors.clone();
+  }
+}
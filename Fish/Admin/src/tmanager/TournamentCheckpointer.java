@@ -0,0 +1,127 @@
+package tmanager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Saves the checkpoints a TournamentManager takes at the end of every round to a file in a
+ * directory, so that a crashed or redeployed tournament server can resume the tournament at the
+ * last completed round (see TournamentCheckpoint).
+ *
+ * Checkpoints are encoded and written on the checkpointer's own writer thread, so the tournament
+ * goes on with its next round right away; if the writer falls behind, only the latest checkpoint
+ * is written. Each checkpoint is written to a temporary file that is then atomically moved over
+ * the previous one, and the checkpoint is deleted once the tournament is over.
+ */
+public class TournamentCheckpointer implements Closeable {
+  private static final String FILE = "tournament.checkpoint";
+
+  private final Path dir;
+  private final AtomicReference<TournamentCheckpoint> pending;
+  private final ExecutorService writer;
+
+  /**
+   * Creates a checkpointer writing to the given directory.
+   * @param dir The directory to keep the checkpoint in, which is created if it does not exist.
+   * @throws IOException if the directory cannot be created.
+   */
+  public TournamentCheckpointer(Path dir) throws IOException {
+    this.dir = dir;
+    this.pending = new AtomicReference<>();
+    this.writer = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "tournament-checkpoints");
+      t.setDaemon(true);
+      return t;
+    });
+    Files.createDirectories(dir);
+  }
+
+  /**
+   * Queues a checkpoint to be written, replacing any checkpoint that has not been written yet.
+   * Returns without waiting for the write.
+   * @param checkpoint The checkpoint to save.
+   */
+  public void save(TournamentCheckpoint checkpoint) {
+    if (pending.getAndSet(checkpoint) == null) {
+      writer.execute(this::write);
+    }
+  }
+
+  /**
+   * Deletes the checkpoint of a tournament that is over, along with any write of it still queued.
+   */
+  public void discard() {
+    pending.set(null);
+    writer.execute(() -> {
+      try {
+        Files.deleteIfExists(dir.resolve(FILE));
+      } catch (IOException e) {
+        System.err.println("Could not delete the tournament checkpoint: " + e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Writes the latest pending checkpoint, if there still is one. Runs on the writer thread.
+   */
+  private void write() {
+    TournamentCheckpoint checkpoint = pending.getAndSet(null);
+    if (checkpoint == null) {
+      return;
+    }
+    Path tmp = dir.resolve(FILE + ".tmp");
+    try {
+      ByteBuffer bytes = checkpoint.encode();
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+      }
+      Files.move(tmp, dir.resolve(FILE), StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      System.err.println("Could not write the tournament checkpoint: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Reads the checkpoint left in a directory by a tournament that did not finish.
+   * @param dir The checkpoint directory.
+   * @return The checkpoint in the directory, or null if there is none.
+   * @throws IOException if the checkpoint cannot be read.
+   * @throws IllegalArgumentException if the checkpoint file is not a valid checkpoint.
+   */
+  public static TournamentCheckpoint load(Path dir) throws IOException {
+    Path file = dir.resolve(FILE);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    return TournamentCheckpoint.read(file);
+  }
+
+  /**
+   * Writes the queued checkpoint, if any, and stops the writer thread.
+   * @throws IOException if interrupted while waiting for the write to finish.
+   */
+  @Override
+  public void close() throws IOException {
+    writer.shutdown();
+    try {
+      writer.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing the tournament checkpoint.", e);
+    }
+  }
+}
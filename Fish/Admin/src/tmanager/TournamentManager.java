@@ -1,7 +1,9 @@
 package tmanager;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -10,8 +12,10 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import game.replay.ReplayRecorder;
 import player.IPlayerComponent;
 import referee.Referee;
+import referee.RefereeCheckpointer;
 
 /**
  * Class representing a tournament manager, used to run a single game tournament until a winner
@@ -24,6 +28,18 @@ import referee.Referee;
  * - phase: an enum to represent the phase a tournament is in (running or over)
  * - firstRoundRun: a boolean which if false is the first round hasn't been run, true otherwise
  *      (used to determine tournament-end conditions).
+ * - round: the number of rounds run so far (used to label rounds in profiling recordings, see
+ *      RoundEvent)
+ * - replayRecorder: an optional recorder that every referee's game is recorded to
+ * - checkpointer: an optional checkpointer that every referee saves checkpoints of its game to
+ * - playerIds: a mapping from the player components the tournament was started with to their
+ *      positions in that list, which serve as player ids in tournament checkpoints
+ * - gamePlayers: the players assigned to each referee's game, in the same order as referees
+ * - gamesPlayed, gamesWon: per-player statistics of the games played in completed rounds, by id
+ * - rng: the generator of the board dimensions of games, reseeded at the start of every round so
+ *      that a round can be regenerated from a checkpoint
+ * - tournamentCheckpointer: an optional checkpointer that a TournamentCheckpoint is saved to at
+ *      the end of every round, and that discards it once the tournament ends
  *
  * It also contains constants relating to max and min players in a game and a max bound on board
  * dimensions.
@@ -34,6 +50,15 @@ public class TournamentManager {
   private List<Referee> referees;
   private TournamentPhase phase;
   private boolean firstRoundRun = false;
+  private int round = 0;
+  private ReplayRecorder replayRecorder;
+  private RefereeCheckpointer checkpointer;
+  private final Map<IPlayerComponent, Integer> playerIds;
+  private final List<List<IPlayerComponent>> gamePlayers;
+  private final int[] gamesPlayed;
+  private final int[] gamesWon;
+  private Random rng;
+  private TournamentCheckpointer tournamentCheckpointer;
 
   private static final int MAX_PLAYERS = 4;
   private static final int MIN_PLAYERS = 2;
@@ -49,15 +74,72 @@ public class TournamentManager {
    *                in, as they have already signed up.
    */
   public TournamentManager(List<IPlayerComponent> players) {
+    this(players, new Random().nextLong());
+  }
+
+  /**
+   * Constructor for a TournamentManager whose games are generated from the given seed, which is
+   * otherwise the same as the constructor that takes only a list of players.
+   * @param players The list of external player components to notify and then assign to games.
+   *                Assumed to be sorted in age-ascending order.
+   * @param seed The seed for generating the board dimensions of games.
+   */
+  public TournamentManager(List<IPlayerComponent> players, long seed) {
     if (players.size() < MIN_PLAYERS) {
       throw new IllegalArgumentException("Not enough players to form a tournament.");
     }
+    this.playerIds = new IdentityHashMap<>();
+    for (int i = 0; i < players.size(); i++) {
+      playerIds.put(players.get(i), i);
+    }
+    this.gamePlayers = new ArrayList<>();
+    this.gamesPlayed = new int[players.size()];
+    this.gamesWon = new int[players.size()];
+    this.rng = new Random(seed);
     this.activePlayers = new ArrayList<>(players);
     informPlayers(InformType.START);
     generateGames();
     this.phase = TournamentPhase.RUNNING;
   }
 
+  /**
+   * Constructor for a TournamentManager that resumes a tournament from the checkpoint taken at
+   * the end of its last completed round, such as one left behind by a server that crashed or was
+   * redeployed. The players still in the tournament are informed that it is (re)starting, and the
+   * games of the next round are generated as they would have been by the original tournament.
+   * Games of the round that was interrupted are played again from their start.
+   * @param players The list of external player components the tournament was started with, in
+   *                the same order, as their positions identify the players in the checkpoint.
+   * @param checkpoint The checkpoint to resume from.
+   * @throws IllegalArgumentException if the checkpoint was taken of a tournament with a different
+   * number of players.
+   */
+  public TournamentManager(List<IPlayerComponent> players, TournamentCheckpoint checkpoint) {
+    if (players.size() != checkpoint.getNumPlayers()) {
+      throw new IllegalArgumentException("Checkpoint is of a tournament with "
+              + checkpoint.getNumPlayers() + " players, not " + players.size() + ".");
+    }
+    this.playerIds = new IdentityHashMap<>();
+    this.gamesPlayed = new int[players.size()];
+    this.gamesWon = new int[players.size()];
+    for (int i = 0; i < players.size(); i++) {
+      playerIds.put(players.get(i), i);
+      gamesPlayed[i] = checkpoint.getGamesPlayed(i);
+      gamesWon[i] = checkpoint.getGamesWon(i);
+    }
+    this.gamePlayers = new ArrayList<>();
+    this.activePlayers = new ArrayList<>();
+    for (int id : checkpoint.getSurvivors()) {
+      activePlayers.add(players.get(id));
+    }
+    this.round = checkpoint.getRound();
+    this.firstRoundRun = checkpoint.isFirstRoundRun();
+    this.rng = new Random(checkpoint.getSeed());
+    informPlayers(InformType.START);
+    generateGames();
+    this.phase = TournamentPhase.RUNNING;
+  }
+
   /**
    * Generates games out of the list of active players by creating Referees with subsets of the
    * list of active players and assigns them to the referees list. No communication with the player
@@ -66,6 +148,7 @@ public class TournamentManager {
    */
   private void generateGames() {
     referees = new ArrayList<>();
+    gamePlayers.clear();
     int playersPerGame = MAX_PLAYERS;
     List<IPlayerComponent> playersToAssign = new ArrayList<>(activePlayers);
     while (playersToAssign.size() > 0) {
@@ -102,7 +185,6 @@ public class TournamentManager {
    *                age.
    */
   private void addNewReferee(List<IPlayerComponent> players) {
-    Random rng = new Random();
     int rows = 0;
     int cols = 0;
     int minTiles = players.size() * (Referee.PENGUIN_MAX - players.size());
@@ -115,7 +197,10 @@ public class TournamentManager {
 
     try {
       Referee newRef = new Referee(players, rows, cols);
+      newRef.setReplayRecorder(replayRecorder);
+      newRef.setCheckpointer(checkpointer);
       referees.add(newRef);
+      gamePlayers.add(players);
     } catch (IllegalArgumentException e) {
       // This means that the referee has no valid game to oversee; we don't add anything to the
       // list of referees.
@@ -132,7 +217,7 @@ public class TournamentManager {
     while (phase == TournamentPhase.RUNNING) {
       if (activePlayers.size() <= MAX_PLAYERS) {
         runTournamentRound();
-        phase = TournamentPhase.END;
+        endTournament();
         break;
       }
       else {
@@ -149,13 +234,30 @@ public class TournamentManager {
    */
   public void runTournamentRound() {
     if (phase == TournamentPhase.RUNNING) {
+      RoundEvent event = new RoundEvent();
+      event.begin();
+      round++;
+      int playersInRound = activePlayers.size();
       List<IPlayerComponent> winners = runGames();
+      event.end();
+      if (event.shouldCommit()) {
+        event.round = round;
+        event.games = referees.size();
+        event.activePlayers = playersInRound;
+        event.winners = winners.size();
+        event.commit();
+      }
       boolean sameWinnersAsLastRound = !activePlayers.retainAll(winners);
       if (isTournamentOver(winners, sameWinnersAsLastRound)) {
-        phase = TournamentPhase.END;
+        endTournament();
       }
       else {
         firstRoundRun = true;
+        long seed = rng.nextLong();
+        rng = new Random(seed);
+        if (tournamentCheckpointer != null) {
+          tournamentCheckpointer.save(checkpoint(seed));
+        }
         generateGames();
       }
     }
@@ -165,6 +267,17 @@ public class TournamentManager {
     }
   }
 
+  /**
+   * Moves the tournament to its end phase, however it got there, and discards its checkpoint so
+   * that a finished tournament is never resumed.
+   */
+  private void endTournament() {
+    phase = TournamentPhase.END;
+    if (tournamentCheckpointer != null) {
+      tournamentCheckpointer.discard();
+    }
+  }
+
   /**
    * Notifies the players of the beginning of their games, runs the games, and
    * notifies the players of the end of their games for every Referee in a given round. Compiles
@@ -174,15 +287,36 @@ public class TournamentManager {
    */
   private List<IPlayerComponent> runGames() {
     List<IPlayerComponent> winners = new ArrayList<>();
-    for (Referee referee : referees) {
+    for (int i = 0; i < referees.size(); i++) {
+      Referee referee = referees.get(i);
       referee.notifyGameStart();
       referee.runGame();
       referee.notifyGameEnd();
       winners.addAll(referee.getWinners());
+      for (IPlayerComponent player : gamePlayers.get(i)) {
+        gamesPlayed[playerIds.get(player)]++;
+      }
+      for (IPlayerComponent winner : referee.getWinners()) {
+        gamesWon[playerIds.get(winner)]++;
+      }
     }
     return winners;
   }
 
+  /**
+   * Takes a checkpoint of the tournament between two rounds, after the active players have been
+   * updated with the results of the round just run.
+   * @param seed The seed the generator of the next round's games has just been reset to.
+   * @return The checkpoint of the tournament.
+   */
+  private TournamentCheckpoint checkpoint(long seed) {
+    int[] survivors = new int[activePlayers.size()];
+    for (int i = 0; i < survivors.length; i++) {
+      survivors[i] = playerIds.get(activePlayers.get(i));
+    }
+    return new TournamentCheckpoint(round, firstRoundRun, seed, gamesPlayed, gamesWon, survivors);
+  }
+
   /**
    * Checks two of three ending conditions for the tournament, as listed below.
    * - two tournament rounds of games in a row produce the exact same winners
@@ -240,6 +374,7 @@ public class TournamentManager {
       try {
         es = Executors.newSingleThreadExecutor();
         informFuture = es.submit(informCall);
+        es.shutdown();
         informFuture.get(Referee.COMMS_TIMEOUT, TimeUnit.SECONDS);
       } catch (InterruptedException | ExecutionException | TimeoutException e) {
         es.shutdown();
@@ -257,6 +392,79 @@ public class TournamentManager {
     return firstRoundRun;
   }
 
+  /**
+   * Sets the recorder that the games of this tournament are recorded to, starting with the games
+   * of the round that has not been run yet.
+   * @param recorder The replay recorder to write games to, or null to stop recording them.
+   */
+  public void setReplayRecorder(ReplayRecorder recorder) {
+    this.replayRecorder = recorder;
+    for (Referee referee : referees) {
+      referee.setReplayRecorder(recorder);
+    }
+  }
+
+  /**
+   * Sets the checkpointer that the referees of this tournament save checkpoints of their games
+   * to, starting with the games of the round that has not been run yet.
+   * @param checkpointer The checkpointer to save checkpoints to, or null to stop checkpointing.
+   */
+  public void setCheckpointer(RefereeCheckpointer checkpointer) {
+    this.checkpointer = checkpointer;
+    for (Referee referee : referees) {
+      referee.setCheckpointer(checkpointer);
+    }
+  }
+
+  /**
+   * Sets the checkpointer that this tournament saves a checkpoint to at the end of every round,
+   * from which the tournament can be resumed at the next round.
+   * @param checkpointer The checkpointer to save checkpoints to, or null to not checkpoint.
+   */
+  public void setTournamentCheckpointer(TournamentCheckpointer checkpointer) {
+    this.tournamentCheckpointer = checkpointer;
+  }
+
+  /**
+   * Returns the number of games a player has played in the rounds run so far.
+   * @param player One of the player components the tournament was started with.
+   * @return The number of games the player has played.
+   */
+  public int getGamesPlayed(IPlayerComponent player) {
+    return gamesPlayed[idOf(player)];
+  }
+
+  /**
+   * Returns the number of games a player has won in the rounds run so far.
+   * @param player One of the player components the tournament was started with.
+   * @return The number of games the player has won.
+   */
+  public int getGamesWon(IPlayerComponent player) {
+    return gamesWon[idOf(player)];
+  }
+
+  /**
+   * Returns the id of a player, its position in the list the tournament was started with.
+   * @param player The player component to look up.
+   * @return The id of the player.
+   * @throws IllegalArgumentException if the player is not part of this tournament.
+   */
+  private int idOf(IPlayerComponent player) {
+    Integer id = playerIds.get(player);
+    if (id == null) {
+      throw new IllegalArgumentException("Player is not part of this tournament.");
+    }
+    return id;
+  }
+
+  /**
+   * Returns the number of tournament rounds that have been run so far.
+   * @return The number of rounds run by this TournamentManager.
+   */
+  public int getRound() {
+    return round;
+  }
+
   /**
    * Get the list of referees in the current round of tournament.
    * @return a list of referees represents the games in the tournament round.
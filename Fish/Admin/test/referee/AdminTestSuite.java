@@ -3,12 +3,14 @@ package referee;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import stress.StressHarnessTest;
 import tmanager.TournamentManagerTest;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
         RefereeTest.class,
-        TournamentManagerTest.class
+        TournamentManagerTest.class,
+        StressHarnessTest.class
 
 })
 
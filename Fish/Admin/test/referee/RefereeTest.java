@@ -4,11 +4,26 @@ import game.model.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Random;
+
+import game.controller.SpectatorFeed;
+import game.replay.GameReplay;
+import game.replay.ReplayReader;
+import game.replay.ReplayRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import player.ExceptionPlayerComponent;
 import player.NullReturnPlayerComponent;
 import player.IPlayerComponent;
@@ -532,4 +547,350 @@ public class RefereeTest {
       assertFalse(infAndExcRef.getWinners().contains(p));
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void turnEventsRecorded() throws IOException {
+    Referee randomRef = new Referee(pcomponents, 5, 5);
+    Path dump = Files.createTempFile("referee", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("fish.RefereeTurn");
+      recording.enable("fish.RefereeNotification");
+      recording.start();
+      randomRef.notifyGameStart();
+      randomRef.runGame();
+      randomRef.notifyGameEnd();
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    int turns = 0;
+    int notifications = 0;
+    for (RecordedEvent e : RecordingFile.readAllEvents(dump)) {
+      String type = e.getEventType().getName();
+      if (!type.startsWith("fish.Referee") || e.getLong("gameId") != randomRef.getGameId()) {
+        continue;
+      }
+      if (type.equals("fish.RefereeTurn")) {
+        turns++;
+        assertEquals("accepted", e.getString("outcome"));
+        assertNotNull(e.getString("playerColor"));
+      } else {
+        notifications++;
+      }
+    }
+    Files.delete(dump);
+    // 4 players place 2 penguins each before any movement turns are taken
+    assertTrue(turns >= 8);
+    assertEquals(8, notifications);
+  }
+
+  @Test
+  public void recordReplay() throws IOException {
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+    Referee randomRef = new Referee(pcomponents, 5, 5);
+    randomRef.setReplayRecorder(new ReplayRecorder(log));
+    randomRef.notifyGameStart();
+    randomRef.runGame();
+    randomRef.notifyGameEnd();
+
+    GameReplay replay = new ReplayReader(ByteBuffer.wrap(log.toByteArray())).next();
+    assertEquals(randomRef.getGameId(), replay.getGameId());
+    assertEquals(randomRef.getWinners().size(), replay.getWinners().size());
+
+    GameState replayed = replay.getState(replay.getSteps().size());
+    GameState actual = randomRef.getGameState();
+    assertEquals(actual.getPenguins().keySet(), replayed.getPenguins().keySet());
+    for (Player p : actual.getPlayers()) {
+      for (Player q : replayed.getPlayers()) {
+        if (p.getColor() == q.getColor()) {
+          assertEquals(p.getFish(), q.getFish());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void publishToSpectators() {
+    SpectatorFeed feed = new SpectatorFeed(1024);
+    SpectatorFeed.Reader reader = feed.newReader();
+    Referee randomRef = new Referee(pcomponents, 5, 5);
+    randomRef.setSpectatorFeed(feed);
+    randomRef.notifyGameStart();
+    randomRef.runGame();
+
+    SpectatorFeed.Frame first = reader.poll();
+    assertTrue(first.getState().getPenguins().isEmpty());
+    SpectatorFeed.Frame frame = first;
+    for (SpectatorFeed.Frame next = reader.poll(); next != null; next = reader.poll()) {
+      assertFalse(frame.isLast());
+      frame = next;
+    }
+    assertTrue(frame.isLast());
+    assertEquals(0, reader.getSkipped());
+    assertNotSame(randomRef.getGameState(), frame.getState());
+    assertEquals(randomRef.getGameState().getPenguins().keySet(),
+            frame.getState().getPenguins().keySet());
+  }
+
+  @Test
+  public void outcomeDecided() {
+    int[][] fish = {
+            {1, 0, 0},
+            {2, 0, 0},
+            {0, 0, 5},
+            {0, 0, 5}};
+    // RED can still collect 3 fish in its region and BLACK 10 in its own
+    assertTrue(Referee.outcomeDecided(cutOffState(fish, 20, 5, false)));
+    assertFalse(Referee.outcomeDecided(cutOffState(fish, 20, 10, false)));
+    assertFalse(Referee.outcomeDecided(cutOffState(fish, 18, 20, false)));
+    assertFalse(Referee.outcomeDecided(cutOffState(fish, 10, 10, false)));
+    // With every tile of both regions taken neither can collect anything more
+    assertTrue(Referee.outcomeDecided(cutOffState(fish, 10, 10, true)));
+    assertTrue(Referee.outcomeDecided(cutOffState(fish, 0, 1, true)));
+  }
+
+  /**
+   * Creates a state with a RED penguin in the top left region of the given board and a BLACK
+   * penguin in the bottom right one.
+   * @param fish The fish on the board.
+   * @param redFish The fish RED has collected.
+   * @param blackFish The fish BLACK has collected.
+   * @param fill Whether to put a second penguin in each region, so that no penguin can move.
+   * @return The state.
+   */
+  private GameState cutOffState(int[][] fish, int redFish, int blackFish, boolean fill) {
+    Player red = new Player(5, Penguin.PenguinColor.RED);
+    red.addFish(redFish);
+    Player black = new Player(6, Penguin.PenguinColor.BLACK);
+    black.addFish(blackFish);
+    GameState gs = new GameState(new HashSet<>(Arrays.asList(red, black)), new Board(fish));
+    gs.placeAvatar(new BoardPosition(0, 0), red);
+    gs.placeAvatar(new BoardPosition(2, 2), black);
+    if (fill) {
+      gs.placeAvatar(new BoardPosition(1, 0), red);
+      gs.placeAvatar(new BoardPosition(3, 2), black);
+    }
+    return gs;
+  }
+
+  @Test
+  public void fastFinishKeepsWinners() {
+    Random random = new Random(seed);
+    Penguin.PenguinColor[] colors = Penguin.PenguinColor.values();
+    boolean endedEarly = false;
+    for (int game = 0; game < 60; game++) {
+      int rows = 3 + random.nextInt(4);
+      int cols = 3 + random.nextInt(4);
+      int numPlayers = 2 + random.nextInt(3);
+      int[][] fish = new int[rows][cols];
+      for (int[] row : fish) {
+        for (int c = 0; c < cols; c++) {
+          row[c] = random.nextInt(6) == 0 ? 0 : 1 + random.nextInt(5);
+        }
+      }
+      HashSet<Player> players = new HashSet<>();
+      for (int i = 0; i < numPlayers; i++) {
+        players.add(new Player(i, colors[i]));
+      }
+      GameState start = new GameState(players, new Board(fish));
+      long tiles = Arrays.stream(fish).flatMapToInt(Arrays::stream).filter(f -> f > 0).count();
+      if (tiles < (long) numPlayers * (Referee.PENGUIN_MAX - numPlayers)) {
+        continue;
+      }
+
+      Referee full = new Referee(new GameState(start));
+      full.setGamePhase(Referee.GamePhase.PLACING);
+      full.doPlacingPhase();
+      full.doPlayingPhase();
+      Referee fast = new Referee(new GameState(start));
+      fast.setFastFinish(true);
+      fast.setGamePhase(Referee.GamePhase.PLACING);
+      fast.doPlacingPhase();
+      fast.doPlayingPhase();
+
+      assertFalse(fast.getWinners().isEmpty());
+      assertEquals(winnerColors(full), winnerColors(fast));
+      endedEarly |= fast.getGameState().movesPossible();
+    }
+    assertTrue(endedEarly);
+  }
+
+  /**
+   * Gets the colors of the winners of a game.
+   * @param ref The referee of the game, which has ended.
+   * @return The colors of the winning players.
+   */
+  private HashSet<Penguin.PenguinColor> winnerColors(Referee ref) {
+    HashSet<Penguin.PenguinColor> colors = new HashSet<>();
+    for (IPlayerComponent pc : ref.getWinners()) {
+      colors.add(pc.getColor());
+    }
+    return colors;
+  }
+
+  @Test
+  public void autoPass() {
+    int[][] fish = {
+            {1, 0, 0},
+            {2, 0, 0},
+            {0, 0, 5},
+            {0, 0, 5}};
+    // RED, the youngest, has both tiles of its region and has to pass
+    int[] asked = playCutOffGame(fish, true);
+    assertEquals(0, asked[0]);
+    assertEquals(1, asked[1]);
+    asked = playCutOffGame(fish, false);
+    assertEquals(1, asked[0]);
+    assertEquals(1, asked[1]);
+  }
+
+  /**
+   * Plays out the game of cutOffState with both of RED's penguins placed, counting the turns each
+   * player is asked for.
+   * @param fish The fish on the board.
+   * @param autoPass Whether the referee passes for players that cannot move.
+   * @return The number of turns RED and BLACK were asked for.
+   */
+  private int[] playCutOffGame(int[][] fish, boolean autoPass) {
+    GameState gs = cutOffState(fish, 0, 0, false);
+    gs.placeAvatar(new BoardPosition(1, 0), gs.getCurrentPlayer());
+    int[] asked = new int[2];
+    List<IPlayerComponent> comps = new ArrayList<>();
+    for (Player p : gs.getPlayers()) {
+      int index = p.getColor() == Penguin.PenguinColor.RED ? 0 : 1;
+      PlayerComponent pc = new PlayerComponent(p.getAge(), seed) {
+        @Override
+        public Action takeTurn(GameTreeNode gt) {
+          asked[index]++;
+          return super.takeTurn(gt);
+        }
+      };
+      pc.startPlaying(p.getColor());
+      comps.add(pc);
+    }
+    Referee ref = new Referee(gs, comps);
+    ref.setAutoPass(autoPass);
+    ref.setGamePhase(Referee.GamePhase.PLAYING);
+    ref.doPlayingPhase();
+    assertTrue(ref.getFailures().isEmpty());
+    assertTrue(ref.getCheaters().isEmpty());
+    assertEquals(Penguin.PenguinColor.BLACK, ref.getWinners().get(0).getColor());
+    return asked;
+  }
+
+  @Test
+  public void gameIdsBelowLaterProcesses() {
+    long first = new Referee(pcomponents, 4, 4).getGameId();
+    long second = new Referee(pcomponents, 4, 4).getGameId();
+    assertTrue(second > first);
+    // A process started after this millisecond counts its ids up from at least this
+    long later = (System.currentTimeMillis() + 1) << Referee.GAME_ID_TIME_SHIFT;
+    assertTrue(second < later);
+  }
+
+  @Test
+  public void resumeFromCheckpoint() {
+    Referee randomRef = new Referee(pcomponents, 5, 5);
+    randomRef.notifyGameStart();
+    randomRef.setGamePhase(Referee.GamePhase.PLACING);
+    for (int i = 0; i < 3; i++) {
+      randomRef.takeOneAction();
+    }
+    RefereeCheckpoint checkpoint =
+            RefereeCheckpoint.decode(randomRef.checkpoint().encode());
+    assertEquals(randomRef.getGameId(), checkpoint.getGameId());
+    assertEquals(Referee.GamePhase.PLACING, checkpoint.getPhase());
+    assertEquals(randomRef.getGameState().getPenguins().keySet(),
+            checkpoint.getGameState().getPenguins().keySet());
+
+    Map<Penguin.PenguinColor, IPlayerComponent> resumed = new HashMap<>();
+    for (Player p : checkpoint.getGameState().getPlayers()) {
+      resumed.put(p.getColor(), new PlayerComponent(p.getAge(), seed));
+    }
+    Referee resumedRef = new Referee(checkpoint, resumed);
+    resumedRef.resumeGame();
+    resumedRef.notifyGameEnd();
+    assertEquals(randomRef.getGameId(), resumedRef.getGameId());
+    assertFalse(resumedRef.getWinners().isEmpty());
+    assertEquals(4 * 2, resumedRef.getGameState().getPenguins().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void resumeWithoutPlayers() {
+    Referee randomRef = new Referee(pcomponents, 5, 5);
+    randomRef.setGamePhase(Referee.GamePhase.PLACING);
+    new Referee(randomRef.checkpoint(), new HashMap<>());
+  }
+
+  @Test
+  public void checkpointsWrittenAndDiscarded() throws IOException {
+    Path dir = Files.createTempDirectory("checkpoints");
+    RefereeCheckpointer checkpointer = new RefereeCheckpointer(dir, 1);
+    Referee unfinished = new Referee(pcomponents, 5, 5);
+    unfinished.setCheckpointer(checkpointer);
+    unfinished.notifyGameStart();
+    unfinished.setGamePhase(Referee.GamePhase.PLACING);
+    unfinished.doPlacingPhase();
+
+    Referee finished = new Referee(new ArrayList<>(Arrays.asList(
+            new PlayerComponent(10, seed), new PlayerComponent(11, seed))), 4, 4);
+    finished.setCheckpointer(checkpointer);
+    finished.notifyGameStart();
+    finished.runGame();
+    checkpointer.close();
+
+    List<RefereeCheckpoint> left = RefereeCheckpointer.load(dir);
+    assertEquals(1, left.size());
+    assertEquals(unfinished.getGameId(), left.get(0).getGameId());
+    assertEquals(Referee.GamePhase.PLAYING, left.get(0).getPhase());
+    assertEquals(unfinished.getGameState().getPenguins().keySet(),
+            left.get(0).getGameState().getPenguins().keySet());
+    for (RefereeCheckpoint checkpoint : left) {
+      Files.delete(dir.resolve("game-" + checkpoint.getGameId() + ".ckpt"));
+    }
+    Files.delete(dir);
+  }
+
+  @Test
+  public void checkpointsSurviveRestart() throws IOException {
+    Path dir = Files.createTempDirectory("checkpoints");
+    Referee crashed = new Referee(pcomponents, 5, 5);
+    crashed.notifyGameStart();
+    crashed.setGamePhase(Referee.GamePhase.PLACING);
+    crashed.takeOneAction();
+    // The id the next referee of this process would get, as one of a restarted process might
+    long crashedId = new Referee(pcomponents, 5, 5).getGameId() + 1;
+    RefereeCheckpoint before = crashed.checkpoint();
+    RefereeCheckpointer checkpointer = new RefereeCheckpointer(dir, 1);
+    checkpointer.save(new RefereeCheckpoint(crashedId, before.getPhase(),
+            before.getPenguinsPerPlayer(), before.getFailed(), before.getCheated(),
+            before.getGameState()));
+    checkpointer.close();
+
+    RefereeCheckpointer restarted = new RefereeCheckpointer(dir, 1);
+    Referee fresh = new Referee(new ArrayList<>(Arrays.asList(
+            new PlayerComponent(10, seed), new PlayerComponent(11, seed))), 4, 4);
+    assertTrue(fresh.getGameId() > crashedId);
+    fresh.setCheckpointer(restarted);
+    fresh.notifyGameStart();
+    fresh.runGame();
+    restarted.close();
+
+    List<RefereeCheckpoint> left = RefereeCheckpointer.load(dir);
+    assertEquals(1, left.size());
+    assertEquals(crashedId, left.get(0).getGameId());
+    Map<Penguin.PenguinColor, IPlayerComponent> resumed = new HashMap<>();
+    for (Player p : left.get(0).getGameState().getPlayers()) {
+      resumed.put(p.getColor(), new PlayerComponent(p.getAge(), seed));
+    }
+    Referee recovered = new Referee(left.get(0), resumed);
+    assertEquals(crashed.getGameState().getPenguins().keySet(),
+            recovered.getGameState().getPenguins().keySet());
+    recovered.resumeGame();
+    recovered.notifyGameEnd();
+    assertFalse(recovered.getWinners().isEmpty());
+
+    Files.delete(dir.resolve("game-" + crashedId + ".ckpt"));
+    Files.delete(dir);
+  }
+}
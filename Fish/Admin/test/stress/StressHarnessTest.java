@@ -0,0 +1,56 @@
+package stress;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import remote.ClientSimulator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the stress harness, run at a size small enough for the unit tests.
+ */
+public class StressHarnessTest {
+
+  @Test
+  public void tournamentOfSimulatedClients() throws Exception {
+    StressHarness harness = new StressHarness(40, 7);
+    harness.setStrategies(Arrays.asList(ClientSimulator.Strategy.FIRST,
+            ClientSimulator.Strategy.RANDOM));
+    harness.setThinkTime(0, 2);
+    harness.run();
+    assertEquals(40, harness.getSignedUp());
+    assertTrue(harness.getRounds() >= 1);
+    assertTrue(harness.getWinners() >= 1);
+    assertTrue(harness.getPlacements().getCount() >= 40);
+    assertTrue(harness.getTurns().getCount() > 0);
+    assertEquals(0, harness.getFailuresInjected());
+    assertTrue(harness.report().contains("signed up 40"));
+  }
+
+  @Test
+  public void failingClientsAreEliminated() throws Exception {
+    StressHarness harness = new StressHarness(24, 3);
+    harness.setFailureRate(0.05);
+    harness.setResponseTimeout(200);
+    harness.run();
+    assertEquals(24, harness.getSignedUp());
+    assertTrue(harness.getFailuresInjected() > 0);
+    assertTrue(harness.getWinners() < 24);
+  }
+
+  @Test
+  public void histogramPercentiles() {
+    LatencyHistogram h = new LatencyHistogram();
+    assertEquals(0, h.getPercentileMicros(50));
+    for (int i = 1; i <= 100; i++) {
+      h.record(i * 1000L);
+    }
+    assertEquals(100, h.getCount());
+    assertEquals(50, h.getMeanMicros());
+    assertEquals(100, h.getMaxMicros());
+    assertEquals(64, h.getPercentileMicros(50));
+    assertEquals(100, h.getPercentileMicros(99));
+  }
+}
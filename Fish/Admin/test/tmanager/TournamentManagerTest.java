@@ -3,7 +3,10 @@ package tmanager;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -261,4 +264,69 @@ public class TournamentManagerTest {
     cleanMultiRoundTm.getWinners();
   }
 
-}
\ No newline at end of file
+  @Test
+  public void resumeFromRoundCheckpoint() throws IOException {
+    List<IPlayerComponent> allPlayersList = new ArrayList<>(Arrays.asList(pc1, pc2, pc3, pc4,
+            pc5, pc6, pc7, pc8, pc9, pc10));
+    Path dir = Files.createTempDirectory("tournament");
+    TournamentCheckpointer checkpointer = new TournamentCheckpointer(dir);
+    TournamentManager tm = new TournamentManager(allPlayersList, 5);
+    tm.setTournamentCheckpointer(checkpointer);
+    tm.runTournamentRound();
+    checkpointer.close();
+
+    TournamentCheckpoint checkpoint = TournamentCheckpointer.load(dir);
+    assertNotNull(checkpoint);
+    assertEquals(1, checkpoint.getRound());
+    assertTrue(checkpoint.isFirstRoundRun());
+    int played = 0;
+    for (int i = 0; i < allPlayersList.size(); i++) {
+      played += checkpoint.getGamesPlayed(i);
+      assertEquals(tm.getGamesWon(allPlayersList.get(i)), checkpoint.getGamesWon(i));
+    }
+    assertEquals(10, played);
+    int[] survivors = checkpoint.getSurvivors();
+    for (int id : survivors) {
+      assertEquals(1, checkpoint.getGamesWon(id));
+    }
+
+    TournamentManager resumed = new TournamentManager(allPlayersList, checkpoint);
+    assertEquals(1, resumed.getRound());
+    assertTrue(resumed.isFirstRoundRun());
+    assertEquals(tm.getReferees().size(), resumed.getReferees().size());
+    for (int i = 0; i < tm.getReferees().size(); i++) {
+      assertEquals(tm.getReferees().get(i).getGameState().getBoard().getRows(),
+              resumed.getReferees().get(i).getGameState().getBoard().getRows());
+    }
+    TournamentCheckpointer resumedCheckpointer = new TournamentCheckpointer(dir);
+    resumed.setTournamentCheckpointer(resumedCheckpointer);
+    resumed.runTournament();
+    resumedCheckpointer.close();
+    for (IPlayerComponent winner : resumed.getWinners()) {
+      assertTrue(resumed.getGamesWon(winner) >= 1);
+    }
+    assertNull(TournamentCheckpointer.load(dir));
+    Files.delete(dir);
+  }
+
+  @Test
+  public void checkpointDiscardedWhenRoundsEndTournament() throws IOException {
+    List<IPlayerComponent> allPlayersList = new ArrayList<>(Arrays.asList(pc1, pc2, pc3, pc4,
+            pc5, pc6, pc7, pc8, pc9, pc10));
+    Path dir = Files.createTempDirectory("tournament");
+    TournamentCheckpointer checkpointer = new TournamentCheckpointer(dir);
+    TournamentManager tm = new TournamentManager(allPlayersList, 5);
+    tm.setTournamentCheckpointer(checkpointer);
+    try {
+      while (true) {
+        tm.runTournamentRound();
+      }
+    } catch (IllegalStateException e) {
+      // The rounds have ended the tournament
+    }
+    checkpointer.close();
+    assertTrue(tm.getRound() > 1);
+    assertNull(TournamentCheckpointer.load(dir));
+    Files.delete(dir);
+  }
+}
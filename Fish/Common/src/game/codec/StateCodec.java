@@ -0,0 +1,217 @@
+package game.codec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.IBoard;
+import game.model.Penguin;
+import game.model.Player;
+
+/**
+ * Compact binary encoding of a complete GameState, used wherever a game has to be stored or sent
+ * without going through JSON. An encoded state is laid out as:
+ *
+ *   rows, cols              varints
+ *   board                   one nibble per space in row-major order, two spaces per byte (low
+ *                           nibble first), holding the number of fish with 0 meaning a hole
+ *   player count            varint, followed by each player as
+ *                             color ordinal (byte), age (varint), fish (varint)
+ *   current player          color ordinal (byte)
+ *   penguin count           varint, followed by each penguin as
+ *                             color ordinal (byte), row (varint), col (varint)
+ *
+ * The turn order itself is not stored, as it follows from the players' ages and colors; decoding
+ * advances the rebuilt state's turn until the stored current player is reached, which restores the
+ * position within the round as well.
+ */
+public final class StateCodec {
+
+  private StateCodec() {
+  }
+
+  /**
+   * Returns an upper bound on the number of bytes encode will write for the given state, which
+   * callers can use to size their buffers.
+   * @param gs The state that is going to be encoded.
+   * @return The largest number of bytes the encoding of the state can take.
+   */
+  public static int maxEncodedSize(GameState gs) {
+    IBoard b = gs.getBoard();
+    int varint = VarInts.MAX_INT_BYTES;
+    return 2 * varint
+            + (b.getRows() * b.getCols() + 1) / 2
+            + varint + gs.getPlayers().size() * (1 + 2 * varint)
+            + 1
+            + varint + gs.getPenguinCount() * (1 + 2 * varint);
+  }
+
+  /**
+   * Writes the given state to the buffer, advancing its position.
+   * @param gs The state to encode.
+   * @param buf The buffer to write to, which needs at least maxEncodedSize(gs) bytes remaining.
+   */
+  public static void encode(GameState gs, ByteBuffer buf) {
+    encodeBoard(gs.getBoard(), buf);
+
+    HashSet<Player> players = gs.getPlayers();
+    VarInts.putVarInt(buf, players.size());
+    for (Player p : players) {
+      buf.put((byte) p.getColor().ordinal());
+      VarInts.putVarInt(buf, p.getAge());
+      VarInts.putVarInt(buf, p.getFish());
+    }
+    buf.put((byte) gs.getCurrentPlayer().getColor().ordinal());
+
+    Map<BoardPosition, Penguin> penguins = gs.getPenguins();
+    VarInts.putVarInt(buf, penguins.size());
+    for (Map.Entry<BoardPosition, Penguin> entry : penguins.entrySet()) {
+      buf.put((byte) entry.getValue().getColor().ordinal());
+      VarInts.putVarInt(buf, entry.getKey().getRow());
+      VarInts.putVarInt(buf, entry.getKey().getCol());
+    }
+  }
+
+  /**
+   * Reads a state written by encode from the buffer, advancing its position.
+   * @param buf The buffer to read from.
+   * @return A new GameState equivalent to the encoded one.
+   * @throws IllegalArgumentException if the buffer does not hold a valid encoded state.
+   */
+  public static GameState decode(ByteBuffer buf) {
+    Board board = decodeBoard(buf);
+
+    int numPlayers = VarInts.getVarInt(buf);
+    if (numPlayers == 0) {
+      throw new IllegalArgumentException("Encoded state has no players.");
+    }
+    Player[] byColor = new Player[Penguin.PenguinColor.values().length];
+    HashSet<Player> players = new HashSet<>();
+    for (int i = 0; i < numPlayers; i++) {
+      Penguin.PenguinColor color = decodeColor(buf.get());
+      Player p = new Player(VarInts.getVarInt(buf), color);
+      p.addFish(VarInts.getVarInt(buf));
+      byColor[color.ordinal()] = p;
+      players.add(p);
+    }
+    Penguin.PenguinColor current = decodeColor(buf.get());
+
+    GameState gs = new GameState(players, board);
+    int numPenguins = VarInts.getVarInt(buf);
+    for (int i = 0; i < numPenguins; i++) {
+      Player owner = byColor[decodeColor(buf.get()).ordinal()];
+      BoardPosition bp = new BoardPosition(VarInts.getVarInt(buf), VarInts.getVarInt(buf));
+      if (owner == null) {
+        throw new IllegalArgumentException("Encoded penguin belongs to no player.");
+      }
+      gs.placeAvatar(bp, owner);
+    }
+
+    for (int turns = 0; gs.getCurrentPlayer().getColor() != current; turns++) {
+      if (turns >= numPlayers) {
+        throw new IllegalArgumentException("Encoded current player is not in the game.");
+      }
+      gs.setNextPlayer();
+    }
+    return gs;
+  }
+
+  /**
+   * Writes the dimensions and fish counts of a board to the buffer, advancing its position.
+   * @param b The board to encode.
+   * @param buf The buffer to write to.
+   */
+  public static void encodeBoard(IBoard b, ByteBuffer buf) {
+    int rows = b.getRows();
+    int cols = b.getCols();
+    VarInts.putVarInt(buf, rows);
+    VarInts.putVarInt(buf, cols);
+    int pending = -1;
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < cols; c++) {
+        int fish = b.getSpace(new BoardPosition(r, c)).getNumFish();
+        if (pending < 0) {
+          pending = fish;
+        } else {
+          buf.put((byte) (pending | fish << 4));
+          pending = -1;
+        }
+      }
+    }
+    if (pending >= 0) {
+      buf.put((byte) pending);
+    }
+  }
+
+  /**
+   * Reads a board written by encodeBoard from the buffer, advancing its position.
+   * @param buf The buffer to read from.
+   * @return A new Board with the encoded dimensions, tiles and holes.
+   */
+  public static Board decodeBoard(ByteBuffer buf) {
+    int rows = VarInts.getVarInt(buf);
+    int cols = VarInts.getVarInt(buf);
+    int[][] fish = new int[rows][cols];
+    int packed = 0;
+    boolean high = false;
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < cols; c++) {
+        if (high) {
+          fish[r][c] = packed >>> 4;
+        } else {
+          packed = buf.get() & 0xFF;
+          fish[r][c] = packed & 0x0F;
+        }
+        high = !high;
+      }
+    }
+    return new Board(fish);
+  }
+
+  /**
+   * Returns the color with the given ordinal, as written by the encoders of this package.
+   * @param ordinal The encoded ordinal of the color.
+   * @return The penguin color.
+   * @throws IllegalArgumentException if the ordinal belongs to no color.
+   */
+  public static Penguin.PenguinColor decodeColor(int ordinal) {
+    Penguin.PenguinColor[] colors = Penguin.PenguinColor.values();
+    if (ordinal < 0 || ordinal >= colors.length) {
+      throw new IllegalArgumentException("Invalid encoded penguin color: " + ordinal);
+    }
+    return colors[ordinal];
+  }
+
+  /**
+   * Packs a list of colors into a single byte with one bit set per color ordinal.
+   * @param colors The colors to pack.
+   * @return The bitmask of the colors.
+   */
+  public static byte colorMask(List<Penguin.PenguinColor> colors) {
+    int mask = 0;
+    for (Penguin.PenguinColor color : colors) {
+      mask |= 1 << color.ordinal();
+    }
+    return (byte) mask;
+  }
+
+  /**
+   * Unpacks a bitmask written by colorMask into the list of colors it holds, in ordinal order.
+   * @param mask The bitmask to unpack.
+   * @return The colors whose bits are set in the mask.
+   */
+  public static List<Penguin.PenguinColor> colorsOf(int mask) {
+    List<Penguin.PenguinColor> colors = new ArrayList<>();
+    for (Penguin.PenguinColor color : Penguin.PenguinColor.values()) {
+      if ((mask & 1 << color.ordinal()) != 0) {
+        colors.add(color);
+      }
+    }
+    return colors;
+  }
+}
@@ -0,0 +1,135 @@
+package game.codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Static helpers for reading and writing variable-length ("varint") encoded natural numbers in
+ * ByteBuffers. A varint stores 7 bits of the number per byte, least significant group first, with
+ * the high bit of each byte set when more bytes follow; numbers below 128 (every board coordinate
+ * and fish count in a game of Fish) therefore take a single byte.
+ *
+ * Only natural numbers are supported, as nothing encoded by Fish is ever negative.
+ */
+public final class VarInts {
+
+  /**
+   * The largest number of bytes a varint-encoded int can take.
+   */
+  public static final int MAX_INT_BYTES = 5;
+
+  /**
+   * The largest number of bytes a varint-encoded long can take.
+   */
+  public static final int MAX_LONG_BYTES = 10;
+
+  private VarInts() {
+  }
+
+  /**
+   * Writes a natural number to the buffer as a varint, advancing its position.
+   * @param buf The buffer to write to.
+   * @param value The natural number to write.
+   * @throws BufferOverflowException if the buffer does not have room for the encoded number.
+   */
+  public static void putVarInt(ByteBuffer buf, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Cannot encode a negative number as a varint.");
+    }
+    while ((value & ~0x7F) != 0) {
+      buf.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buf.put((byte) value);
+  }
+
+  /**
+   * Writes a natural number to the buffer as a varint, advancing its position.
+   * @param buf The buffer to write to.
+   * @param value The natural number to write.
+   * @throws BufferOverflowException if the buffer does not have room for the encoded number.
+   */
+  public static void putVarLong(ByteBuffer buf, long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Cannot encode a negative number as a varint.");
+    }
+    while ((value & ~0x7FL) != 0) {
+      buf.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buf.put((byte) value);
+  }
+
+  /**
+   * Reads a varint-encoded natural number from the buffer, advancing its position.
+   * @param buf The buffer to read from.
+   * @return The decoded number.
+   * @throws IllegalArgumentException if the bytes at the buffer's position are not a valid varint.
+   */
+  public static int getVarInt(ByteBuffer buf) {
+    int value = 0;
+    for (int shift = 0; shift < 7 * MAX_INT_BYTES; shift += 7) {
+      byte b = buf.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        if (value < 0) {
+          throw new IllegalArgumentException("Varint does not fit in an int.");
+        }
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint.");
+  }
+
+  /**
+   * Reads a varint-encoded natural number from the buffer, advancing its position.
+   * @param buf The buffer to read from.
+   * @return The decoded number.
+   * @throws IllegalArgumentException if the bytes at the buffer's position are not a valid varint.
+   */
+  public static long getVarLong(ByteBuffer buf) {
+    long value = 0;
+    for (int shift = 0; shift < 7 * MAX_LONG_BYTES; shift += 7) {
+      byte b = buf.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint.");
+  }
+
+  /**
+   * Returns the number of bytes the given natural number takes when varint-encoded.
+   * @param value The natural number to measure.
+   * @return The encoded size of the number in bytes, between 1 and MAX_INT_BYTES.
+   */
+  public static int sizeOf(int value) {
+    int size = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Returns a buffer with at least the requested number of bytes remaining, which is the given
+   * buffer itself if it has room, or else a larger copy of it (positioned after the copied
+   * contents). Used by writers that build records of unknown length.
+   * @param buf The buffer being written to.
+   * @param needed The number of bytes that are about to be written.
+   * @return A buffer with room for the bytes, containing everything written to buf so far.
+   */
+  public static ByteBuffer ensureRemaining(ByteBuffer buf, int needed) {
+    if (buf.remaining() >= needed) {
+      return buf;
+    }
+    int capacity = Math.max(buf.capacity() * 2, buf.position() + needed);
+    ByteBuffer bigger = buf.isDirect() ? ByteBuffer.allocateDirect(capacity)
+            : ByteBuffer.allocate(capacity);
+    buf.flip();
+    bigger.put(buf);
+    return bigger;
+  }
+}
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.HashSet;
 
+import javax.swing.Timer;
+
 import game.model.Board;
 import game.model.BoardPosition;
 import game.model.GameState;
@@ -21,7 +23,7 @@ import game.view.FishPanel;
  * used to test the rendering of just the game board.
  */
 public class FishController {
-  private final IState state;
+  private IState state;
   private final FishFrame frame;
 
   /**
@@ -113,6 +115,34 @@ public class FishController {
     return state;
   }
 
+  /**
+   * Shows the game published to a spectator feed as it is played, replacing the state of this
+   * controller with the newest frame of the feed on every tick of a Swing timer. Frames published
+   * between two ticks are skipped, so the view never falls behind the game, and the game is never
+   * held up by the view. The timer stops once the final frame of the game has been shown.
+   * @param feed The feed to watch.
+   * @param periodMillis The time between two checks of the feed, in milliseconds.
+   * @return The timer polling the feed, already started.
+   */
+  public Timer spectate(SpectatorFeed feed, int periodMillis) {
+    SpectatorFeed.Reader reader = feed.newReader();
+    Timer timer = new Timer(periodMillis, null);
+    timer.addActionListener(e -> {
+      SpectatorFeed.Frame latest = reader.pollLatest();
+      if (latest == null) {
+        return;
+      }
+      state = latest.getState();
+      frame.getPanel().revalidate();
+      frame.getPanel().repaint();
+      if (latest.isLast()) {
+        timer.stop();
+      }
+    });
+    timer.start();
+    return timer;
+  }
+
   /**
    * Main for testing.
    * @param args Arguments to the main function.
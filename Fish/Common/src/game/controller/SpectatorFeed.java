@@ -0,0 +1,212 @@
+package game.controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import game.model.GameState;
+
+/**
+ * Channel from the thread running a game to any number of spectators watching it. The game's
+ * thread (a single producer) publishes snapshots of the game state into a fixed-size ring of
+ * frames, and every spectator reads the ring through its own Reader at its own pace.
+ *
+ * Publishing never waits on spectators and takes no locks: the frame is stored in its slot of the
+ * ring and the count of published frames is advanced, overwriting whatever frame was in the slot.
+ * A spectator that falls more than a ring behind has missed the frames in between and skips ahead
+ * to the newest ones; frames carry their sequence number, so a reader can always tell a frame it
+ * expected from one that has just replaced it.
+ *
+ * The states in the frames are copies taken when they are published and must not be modified by
+ * spectators, since every reader of a frame shares the same copy.
+ */
+public class SpectatorFeed {
+  /**
+   * The number of frames kept, by default.
+   */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  private final AtomicReferenceArray<Frame> slots;
+  private final int mask;
+  private final AtomicLong published = new AtomicLong();
+
+  /**
+   * Creates a feed that keeps the DEFAULT_CAPACITY newest frames.
+   */
+  public SpectatorFeed() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a feed that keeps the given number of newest frames.
+   * @param capacity The number of frames kept, a power of two.
+   */
+  public SpectatorFeed(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Feed capacity must be a positive power of two.");
+    }
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Publishes a snapshot of the given state. Must only be called from one thread at a time.
+   * @param state The state to publish; copied, so the caller may go on modifying it.
+   * @param last Whether this is the final state of the game.
+   */
+  public void publish(GameState state, boolean last) {
+    long sequence = published.get();
+    slots.set((int) (sequence & mask), new Frame(sequence, new GameState(state), last));
+    published.set(sequence + 1);
+  }
+
+  /**
+   * Gets the number of frames published so far.
+   * @return The sequence number the next frame will have.
+   */
+  public long getPublished() {
+    return published.get();
+  }
+
+  /**
+   * Gets the newest frame published.
+   * @return The newest frame, or null if none has been published yet.
+   */
+  public Frame latest() {
+    while (true) {
+      long sequence = published.get() - 1;
+      if (sequence < 0) {
+        return null;
+      }
+      Frame frame = slots.get((int) (sequence & mask));
+      // A newer frame may have replaced it in the meantime; that one will do as well.
+      if (frame.sequence >= sequence) {
+        return frame;
+      }
+    }
+  }
+
+  /**
+   * Creates a reader starting at the oldest frame still kept.
+   * @return A new reader of this feed.
+   */
+  public Reader newReader() {
+    return new Reader();
+  }
+
+  /**
+   * A spectator's position in the feed. Each reader is meant to be used by a single thread.
+   */
+  public class Reader {
+    private long next;
+    private long skipped;
+
+    /**
+     * Creates a reader starting at the oldest frame still kept.
+     */
+    private Reader() {
+      next = Math.max(0, published.get() - slots.length());
+    }
+
+    /**
+     * Gets the next frame in order, skipping the frames that were overwritten before this reader
+     * got to them.
+     * @return The next frame, or null if this reader has read every frame published.
+     */
+    public Frame poll() {
+      while (true) {
+        long head = published.get();
+        if (next >= head) {
+          return null;
+        }
+        if (head - next > slots.length()) {
+          skip(head - slots.length());
+        }
+        Frame frame = slots.get((int) (next & mask));
+        if (frame.sequence == next) {
+          next++;
+          return frame;
+        }
+        // Overwritten since head was read: this reader has been lapped, so start again.
+      }
+    }
+
+    /**
+     * Gets the newest frame, skipping any frames between it and the last one read.
+     * @return The newest frame, or null if no frame newer than the last one read was published.
+     */
+    public Frame pollLatest() {
+      long head = published.get();
+      if (next >= head) {
+        return null;
+      }
+      Frame frame = latest();
+      skip(frame.sequence);
+      next = frame.sequence + 1;
+      return frame;
+    }
+
+    /**
+     * Gets the number of frames this reader has skipped.
+     * @return The number of frames published since this reader was created that it never read.
+     */
+    public long getSkipped() {
+      return skipped;
+    }
+
+    /**
+     * Moves this reader forward to the given frame, counting the frames passed over.
+     * @param sequence The sequence number of the next frame to read.
+     */
+    private void skip(long sequence) {
+      if (sequence > next) {
+        skipped += sequence - next;
+        next = sequence;
+      }
+    }
+  }
+
+  /**
+   * A published snapshot of a game, numbered in the order it was published from 0.
+   */
+  public static final class Frame {
+    private final long sequence;
+    private final GameState state;
+    private final boolean last;
+
+    /**
+     * Creates a frame.
+     * @param sequence The number of the frame.
+     * @param state The snapshot of the game.
+     * @param last Whether the snapshot is the final state of the game.
+     */
+    Frame(long sequence, GameState state, boolean last) {
+      this.sequence = sequence;
+      this.state = state;
+      this.last = last;
+    }
+
+    /**
+     * Gets the number of this frame.
+     * @return The sequence number of the frame.
+     */
+    public long getSequence() {
+      return sequence;
+    }
+
+    /**
+     * Gets the snapshot of the game, which must not be modified.
+     * @return The state of the game when the frame was published.
+     */
+    public GameState getState() {
+      return state;
+    }
+
+    /**
+     * Checks whether this frame holds the final state of its game.
+     * @return True if no more frames of the game will follow, else false.
+     */
+    public boolean isLast() {
+      return last;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package game.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Gson adapter between a JSON Board, an array of rows that are each an array of fish counts (0 for
+ * a hole), and the grid of fish counts the Board(int[][]) constructor takes. The counts are read
+ * token by token straight into int arrays and written straight from them, where Gson's own
+ * adapters for int[][] and List&lt;List&lt;Integer&gt;&gt; would box every count on the way. Rows
+ * keep their length, so a row shorter than the others stays short.
+ *
+ * Used on board fields of the test harnesses' input classes with @JsonAdapter.
+ */
+public class BoardAdapter extends TypeAdapter<int[][]> {
+  private static final int INITIAL_ROWS = 8;
+  private static final int INITIAL_COLUMNS = 8;
+
+  @Override
+  public void write(JsonWriter out, int[][] board) throws IOException {
+    if (board == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginArray();
+    for (int[] row : board) {
+      out.beginArray();
+      for (int fish : row) {
+        out.value(fish);
+      }
+      out.endArray();
+    }
+    out.endArray();
+  }
+
+  @Override
+  public int[][] read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    int[][] rows = new int[INITIAL_ROWS][];
+    int numRows = 0;
+    // Every row is read into the same scratch array, then copied out at its exact length.
+    int[] row = new int[INITIAL_COLUMNS];
+    in.beginArray();
+    while (in.hasNext()) {
+      int length = 0;
+      in.beginArray();
+      while (in.hasNext()) {
+        if (length == row.length) {
+          row = Arrays.copyOf(row, length * 2);
+        }
+        try {
+          row[length++] = in.nextInt();
+        } catch (NumberFormatException e) {
+          throw new JsonSyntaxException(e);
+        }
+      }
+      in.endArray();
+      if (numRows == rows.length) {
+        rows = Arrays.copyOf(rows, numRows * 2);
+      }
+      rows[numRows++] = Arrays.copyOf(row, length);
+    }
+    in.endArray();
+    return Arrays.copyOf(rows, numRows);
+  }
+}
@@ -0,0 +1,104 @@
+package game.json;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs a test harness over a whole stream of test cases in one JVM: every JSON value of the input
+ * is one case, the cases are solved in parallel on a pool of threads, and the result of every case
+ * is written on its own line, in the order of the input. Only a few cases per thread are read ahead
+ * of the oldest unfinished one, so a batch of any length runs in bounded memory.
+ *
+ * A case that fails does not stop the batch: its line of output is null, and the failure is
+ * reported on standard error with the number of the case, counting from 0.
+ */
+public final class JsonBatch {
+
+  /**
+   * The number of cases per thread read ahead of the oldest unfinished one.
+   */
+  public static final int CASES_PER_THREAD = 4;
+
+  private JsonBatch() {
+  }
+
+  /**
+   * Solves every case of the input and writes the results in order.
+   * @param in The input, one case per JSON value.
+   * @param solver Computes the output of one case, a single line of JSON. Called from several
+   *               threads at once.
+   * @param out The stream to write the results to.
+   * @param threads The number of cases to solve at once.
+   * @return The number of cases that failed.
+   * @throws JsonParseException if the input is not a sequence of JSON values, after writing the
+   * results of the cases before the malformed one.
+   * @throws InterruptedException if interrupted while waiting for a case.
+   */
+  public static int run(JsonInput in, Function<JsonElement, String> solver, PrintStream out,
+                        int threads) throws InterruptedException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("A batch needs at least one thread.");
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = Executors.defaultThreadFactory().newThread(r);
+      t.setDaemon(true);
+      return t;
+    });
+    Queue<Future<String>> pending = new ArrayDeque<>();
+    int written = 0;
+    int failed = 0;
+    try {
+      JsonParseException malformed = null;
+      try {
+        while (in.hasNext()) {
+          JsonElement value = in.next();
+          pending.add(pool.submit(() -> solver.apply(value)));
+          if (pending.size() >= threads * CASES_PER_THREAD) {
+            failed += writeNext(pending, out, written++) ? 0 : 1;
+          }
+        }
+      } catch (JsonParseException e) {
+        malformed = e;
+      }
+      while (!pending.isEmpty()) {
+        failed += writeNext(pending, out, written++) ? 0 : 1;
+      }
+      out.flush();
+      if (malformed != null) {
+        throw malformed;
+      }
+      return failed;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for the oldest pending case and writes its result.
+   * @param pending The cases not yet written, oldest first.
+   * @param out The stream to write the result to.
+   * @param index The number of the case, for reporting a failure.
+   * @return True if the case was solved, false if it failed.
+   * @throws InterruptedException if interrupted while waiting for the case.
+   */
+  private static boolean writeNext(Queue<Future<String>> pending, PrintStream out, int index)
+          throws InterruptedException {
+    try {
+      out.println(pending.remove().get());
+      return true;
+    } catch (ExecutionException e) {
+      System.err.println("Case " + index + " failed: " + e.getCause());
+      out.println("null");
+      return false;
+    }
+  }
+}
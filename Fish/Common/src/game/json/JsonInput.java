@@ -0,0 +1,101 @@
+package game.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a sequence of JSON values from a stream, one value at a time, as the test harnesses
+ * receive them on standard input. Gson parses straight from a buffered reader over the stream, so
+ * only the value being read is ever held in memory, however long the input is; values may be
+ * separated by any whitespace, or by none where that is unambiguous.
+ */
+public class JsonInput implements Closeable {
+  private final JsonReader reader;
+
+  /**
+   * Creates an input reading UTF-8 JSON text from the given stream.
+   * @param in The stream to read from.
+   */
+  public JsonInput(InputStream in) {
+    this(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Creates an input reading JSON text from the given reader.
+   * @param in The reader to read from.
+   */
+  public JsonInput(Reader in) {
+    this.reader = new JsonReader(in);
+    this.reader.setLenient(true);
+  }
+
+  /**
+   * Checks whether another value follows in the input, reading ahead to its first token.
+   * @return True if there is another value, false if the input has ended.
+   * @throws JsonParseException if the input cannot be read or is not JSON.
+   */
+  public boolean hasNext() {
+    try {
+      return reader.peek() != JsonToken.END_DOCUMENT;
+    } catch (EOFException e) {
+      // The reader reports an input without any value this way, rather than as END_DOCUMENT.
+      return false;
+    } catch (IOException e) {
+      throw new JsonParseException(e);
+    }
+  }
+
+  /**
+   * Reads the next value of the input as a tree.
+   * @return The value.
+   * @throws NoSuchElementException if the input has ended.
+   * @throws JsonParseException if the input cannot be read or the value is not JSON.
+   */
+  public JsonElement next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more JSON values in the input.");
+    }
+    return JsonParser.parseReader(reader);
+  }
+
+  /**
+   * Reads the next value of the input directly into an object of the given type, without building
+   * a tree of it first.
+   * @param gson The Gson instance converting the value.
+   * @param type The type of the object.
+   * @param <T> The type of the object.
+   * @return The object, or null if the value is null.
+   * @throws NoSuchElementException if the input has ended.
+   * @throws JsonParseException if the input cannot be read or the value does not fit the type.
+   */
+  public <T> T next(Gson gson, Type type) {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more JSON values in the input.");
+    }
+    return gson.fromJson(reader, type);
+  }
+
+  /**
+   * Closes the input and the stream it reads from.
+   * @throws IOException if the stream cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
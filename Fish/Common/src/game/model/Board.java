@@ -38,6 +38,12 @@ public class Board implements IBoard {
   public static final int MAX_FISH = 5;
   public static final int MIN_FISH = 1;
 
+  // The directions of getNeighbor, in the order getValidMoves follows them
+  private static final VERTICAL[] DIRECTION_VERTICAL =
+          {VERTICAL.UP, VERTICAL.DOWN, VERTICAL.UP, VERTICAL.UP, VERTICAL.DOWN, VERTICAL.DOWN};
+  private static final HORIZONTAL[] DIRECTION_HORIZONTAL = {HORIZONTAL.ZERO, HORIZONTAL.ZERO,
+          HORIZONTAL.LEFT, HORIZONTAL.RIGHT, HORIZONTAL.LEFT, HORIZONTAL.RIGHT};
+
   final int rows;
   final int cols;
   BoardSpace [][] boardSpaces;
@@ -145,6 +151,36 @@ public class Board implements IBoard {
     }
   }
 
+  /**
+   * Constructs a board from a grid of fish counts, one array per row, where a count of 0
+   * represents a hole. The board is as wide as the widest row; positions past the end of a
+   * shorter row are holes, as in the list-based constructor above. Used to rebuild boards from
+   * binary encodings without going through boxed lists.
+   * @param fish The number of fish on each space of the board, indexed by row and then column.
+   */
+  public Board(int[][] fish) {
+    int widest = 0;
+    for (int[] row : fish) {
+      widest = Math.max(widest, row.length);
+    }
+    checkArguments(fish.length, widest, new ArrayList<>(), 0);
+    this.rows = fish.length;
+    this.cols = widest;
+    this.boardSpaces = new BoardSpace[this.rows][this.cols];
+
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        int numFish = j < fish[i].length ? fish[i][j] : 0;
+        if (numFish == 0) {
+          boardSpaces[i][j] = new Hole();
+        }
+        else {
+          boardSpaces[i][j] = new Tile(numFish);
+        }
+      }
+    }
+  }
+
   /**
    * Copy constructor for Board objects. Copies the 2D array of BoardSpaces from the given Board
    * as input, as well as other fields.
@@ -258,13 +294,51 @@ public class Board implements IBoard {
 
   @Override
   public void render(Graphics g) {
-    for (int r = 0; r < this.rows; r++) {
-      for (int c = 0; c < this.cols; c++) {
+    renderVisible(g, false);
+  }
+
+  @Override
+  public void renderSimplified(Graphics g) {
+    renderVisible(g, true);
+  }
+
+  /**
+   * Renders the tiles that intersect the clip of the graphics, or all of them if it has no clip.
+   * The rows and columns to draw are computed from the clip bounds, one more each way to allow
+   * for rounding and outlines, so the cost of a repaint depends on the area drawn rather than the
+   * size of the board.
+   * @param g The graphics to draw with.
+   * @param simplified Whether to draw the tiles as plain shapes rather than with their fish.
+   */
+  private void renderVisible(Graphics g, boolean simplified) {
+    int fromRow = 0;
+    int toRow = rows - 1;
+    int fromCol = 0;
+    int toCol = cols - 1;
+    Rectangle clip = g.getClipBounds();
+    if (clip != null) {
+      // A tile spans HEIGHT pixels down from row/2 tile heights, and 2/3 of a width left of
+      // its column (rows shifted right) to a width right of it.
+      fromRow = Math.max(fromRow,
+              (int) Math.floor(2.0 * (clip.y - Tile.D_OFFSET - Tile.HEIGHT) / Tile.HEIGHT) - 1);
+      toRow = Math.min(toRow,
+              (int) Math.ceil(2.0 * (clip.y + clip.height - Tile.D_OFFSET) / Tile.HEIGHT) + 1);
+      fromCol = Math.max(fromCol, (int) Math.floor(
+              (clip.x - Tile.R_OFFSET - 5.0/3.0 * Tile.WIDTH) / Tile.COLUMN_WIDTH) - 1);
+      toCol = Math.min(toCol,
+              (int) Math.ceil((clip.x + clip.width - Tile.R_OFFSET) / Tile.COLUMN_WIDTH) + 1);
+    }
+    for (int r = fromRow; r <= toRow; r++) {
+      for (int c = fromCol; c <= toCol; c++) {
         if(boardSpaces[r][c].isHole()) {
           continue;
         }
         BoardPosition p = new BoardPosition(r, c);
-        boardSpaces[r][c].render(p, g);
+        if (simplified) {
+          boardSpaces[r][c].renderSimplified(p, g);
+        } else {
+          boardSpaces[r][c].render(p, g);
+        }
       }
     }
   }
@@ -294,16 +368,22 @@ public class Board implements IBoard {
 
     ArrayList<BoardPosition> validPosns = new ArrayList<>();
 
-    addPath(p, validPosns, invalidPosns, VERTICAL.UP, HORIZONTAL.ZERO);
-    addPath(p, validPosns, invalidPosns, VERTICAL.DOWN, HORIZONTAL.ZERO);
-    addPath(p, validPosns, invalidPosns, VERTICAL.UP, HORIZONTAL.LEFT);
-    addPath(p, validPosns, invalidPosns, VERTICAL.UP, HORIZONTAL.RIGHT);
-    addPath(p, validPosns, invalidPosns, VERTICAL.DOWN, HORIZONTAL.LEFT);
-    addPath(p, validPosns, invalidPosns, VERTICAL.DOWN, HORIZONTAL.RIGHT);
+    for (int d = 0; d < DIRECTIONS; d++) {
+      addPath(p, validPosns, invalidPosns, DIRECTION_VERTICAL[d], DIRECTION_HORIZONTAL[d]);
+    }
 
     return validPosns;
   }
 
+  @Override
+  public BoardPosition getNeighbor(BoardPosition p, int direction) {
+    if (direction < 0 || direction >= DIRECTIONS) {
+      throw new IllegalArgumentException("No such direction on the board.");
+    }
+    BoardPosition next = step(p, DIRECTION_VERTICAL[direction], DIRECTION_HORIZONTAL[direction]);
+    return isValidPosn(next) ? next : null;
+  }
+
   @Override
   public BoardSpace getSpace(BoardPosition p) {
     if (isValidPosn(p)) {
@@ -340,7 +420,23 @@ public class Board implements IBoard {
   private void addPath(BoardPosition p, ArrayList<BoardPosition> validPosns,
                        ArrayList<BoardPosition> invalidPosns,
                        VERTICAL vertical, HORIZONTAL horizontal) {
+    BoardPosition nextPosn = step(p, vertical, horizontal);
+    if (isValidPosn(nextPosn) && !invalidPosns.contains(nextPosn)
+            && !validPosns.contains(nextPosn) && !getSpace(nextPosn).isHole()) {
+      validPosns.add(nextPosn);
+      addPath(nextPosn, validPosns, invalidPosns, vertical, horizontal);
+    }
+  }
 
+  /**
+   * Computes the position adjacent to the given one in a direction, following the math described
+   * above addPath.
+   * @param p The position to step from.
+   * @param vertical The vertical direction (up/down) to step in
+   * @param horizontal The horizontal direction (left/right/no horizontal) to step in
+   * @return The adjacent position, which may be outside the board.
+   */
+  private BoardPosition step(BoardPosition p, VERTICAL vertical, HORIZONTAL horizontal) {
     int nextRow = 0, nextCol = 0;
     switch (vertical) {
       case UP:
@@ -367,13 +463,7 @@ public class Board implements IBoard {
       default:
         break;
     }
-
-    BoardPosition nextPosn = new BoardPosition(nextRow, nextCol);
-    if (isValidPosn(nextPosn) && !invalidPosns.contains(nextPosn)
-            && !validPosns.contains(nextPosn) && !getSpace(nextPosn).isHole()) {
-      validPosns.add(nextPosn);
-      addPath(nextPosn, validPosns, invalidPosns, vertical, horizontal);
-    }
+    return new BoardPosition(nextRow, nextCol);
   }
 
   @Override
@@ -28,4 +28,12 @@ public interface BoardSpace {
    */
   void render(BoardPosition p, Graphics g);
 
+  /**
+   * Renders this BoardSpace as a plain shape colored by its number of fish, for boards drawn too
+   * small for the fish to be told apart.
+   * @param p The position of the BoardSpace on the board to render
+   * @param g the Graphics component of a BoardPanel to render the tile with
+   */
+  void renderSimplified(BoardPosition p, Graphics g);
+
 }
\ No newline at end of file
@@ -2,26 +2,46 @@ package game.model;
 
 import java.awt.Graphics;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 
 /**
  * Class to represent a game state for a game of Fish.
  * Contains:
  * - state of the board for the game to be played with
- * - current placements of penguins
+ * - current placements of penguins, as a table of positions for each color (indexed by the
+ * ordinal of the color, each position packed into row * columns + column) together with the set
+ * of occupied positions, so that a player's penguins and whether a space is taken can be found
+ * without searching or allocating. The map of penguins is built from these when asked for.
  * - information about the players in the game
  * - current player information, which is used to determine next in order of play
- * - a list of players that have already made a move, before the turn order returns to the top
+ * - the turn order of the players, a ring of their colors in increasing order of age (ties broken
+ * by the colors' tie codes): for each color in the game, the color of the player after it. The
+ * ring is built once and only changes when a player is removed, so passing the turn on takes a
+ * single step around it. Players are looked up by the ordinal of their color rather than in the
+ * set of players, since a Player's hash code changes as it collects fish.
  */
 public class GameState implements IState {
   private final IBoard board;
-  private final HashMap<BoardPosition, Penguin> penguins;
+  private final int cols;
+  private final int[][] positions;
+  private final int[] penguinCount;
+  private final BitSet occupied;
   private final HashSet<Player> players;
   private Player currentPlayer;
-  private final HashSet<Player> movedPlayers;
+  private final Player[] byColor;
+  private final int[] nextColor;
+  private int current;
+
+  private static final Penguin[] PENGUINS = new Penguin[Penguin.PenguinColor.values().length];
+  private static final int INITIAL_PENGUINS = Penguin.PenguinColor.values().length;
+
+  private static final Comparator<Player> TURN_ORDER = Comparator.comparingInt(Player::getAge)
+          .thenComparingInt(p -> p.getColor().tieCode);
 
   /**
    * Constructor for objects of GameState type. Takes a set of players as well as an IBoard that
@@ -31,12 +51,15 @@ public class GameState implements IState {
    */
   public GameState(HashSet<Player> playerSet, IBoard b) {
     board = b;
-    penguins = new HashMap<>();
+    cols = b.getCols();
+    positions = new int[Penguin.PenguinColor.values().length][INITIAL_PENGUINS];
+    penguinCount = new int[positions.length];
+    occupied = new BitSet(b.getRows() * cols);
     players = new HashSet<>();
     players.addAll(playerSet);
-    movedPlayers = new HashSet<>();
-    checkPlayerColors();
-    setNextPlayer();
+    byColor = new Player[Penguin.PenguinColor.values().length];
+    nextColor = new int[byColor.length];
+    buildTurnOrder();
   }
 
   /**
@@ -46,39 +69,51 @@ public class GameState implements IState {
    */
   public GameState(GameState g) {
     this.board = new Board((Board) g.board);
-    this.penguins = new HashMap<>();
-    for (Map.Entry<BoardPosition, Penguin> entry : g.penguins.entrySet()) {
-      this.penguins.put(entry.getKey(), entry.getValue());
+    this.cols = g.cols;
+    this.positions = new int[g.positions.length][];
+    for (int c = 0; c < positions.length; c++) {
+      this.positions[c] = g.positions[c].clone();
     }
+    this.penguinCount = g.penguinCount.clone();
+    this.occupied = (BitSet) g.occupied.clone();
     this.players = new HashSet<>();
+    this.byColor = new Player[g.byColor.length];
     for (Player p : g.players) {
-      this.players.add(new Player(p));
+      Player copy = new Player(p);
+      this.players.add(copy);
+      this.byColor[copy.getColor().ordinal()] = copy;
     }
-    this.movedPlayers = new HashSet<>();
-    for (Player p : g.movedPlayers) {
-      this.movedPlayers.add(new Player(p));
-    }
-    this.currentPlayer = new Player(g.currentPlayer);
+    this.nextColor = g.nextColor.clone();
+    this.current = g.current;
+    this.currentPlayer = byColor[current] != null ? byColor[current] : new Player(g.currentPlayer);
   }
 
   /**
-   * Checks that the player colors of the GameState are valid, throwing an exception if not.
+   * Checks that the player colors of the GameState are valid, throwing an exception if not, and
+   * links the players into the ring of the turn order, starting with the youngest.
    */
-  private void checkPlayerColors() {
-    ArrayList<Penguin.PenguinColor> colors = new ArrayList<>();
-    for(Player p : players) {
-      if(colors.contains(p.getColor())) {
+  private void buildTurnOrder() {
+    if (players.isEmpty()) {
+      throw new IllegalArgumentException("Cannot find next youngest player without any players!");
+    }
+    List<Player> order = new ArrayList<>(players);
+    order.sort(TURN_ORDER);
+    Arrays.fill(nextColor, -1);
+    for (int i = 0; i < order.size(); i++) {
+      int color = order.get(i).getColor().ordinal();
+      if (byColor[color] != null) {
         throw new IllegalArgumentException("Duplicate color assigned to a player!");
       }
-      else {
-        colors.add(p.getColor());
-      }
+      byColor[color] = order.get(i);
+      nextColor[color] = order.get((i + 1) % order.size()).getColor().ordinal();
     }
+    current = order.get(0).getColor().ordinal();
+    currentPlayer = order.get(0);
   }
 
   @Override
   public void placeAvatar(BoardPosition bp, Player p) {
-    if (penguins.containsKey(bp)) {
+    if (isPenguinAtPosn(bp)) {
       throw new IllegalArgumentException("Cannot place avatar here, already contains one.");
     }
     if(!board.isValidPosn(bp)) {
@@ -88,8 +123,12 @@ public class GameState implements IState {
       throw new IllegalArgumentException("Cannot place avatar in a hole on the board.");
     }
 
-    Penguin penguin = new Penguin(p.getColor());
-    penguins.put(bp, penguin);
+    int color = p.getColor().ordinal();
+    if (penguinCount[color] == positions[color].length) {
+      positions[color] = Arrays.copyOf(positions[color], 2 * positions[color].length);
+    }
+    positions[color][penguinCount[color]++] = index(bp);
+    occupied.set(index(bp));
   }
 
   @Override
@@ -102,18 +141,15 @@ public class GameState implements IState {
       throw new IllegalArgumentException("To or from board positions are a hole on the board.");
     }
     // check that from has an avatar & to does not
-    if (penguins.containsKey(from) && !penguins.containsKey(to)) {
-      Penguin penguin = penguins.get(from);
-      if (penguin.getColor() == p.getColor()) {
-          penguins.put(to, penguin);
-          for (Player curr : players) {
-            if (curr.getColor() == currentPlayer.getColor()) {
-              curr.addFish(board.getSpace(from).getNumFish());
-              currentPlayer = curr;
-            }
-          }
+    if (isPenguinAtPosn(from) && !isPenguinAtPosn(to)) {
+      int color = p.getColor().ordinal();
+      int slot = slotOf(color, index(from));
+      if (slot >= 0) {
+          positions[color][slot] = index(to);
+          occupied.clear(index(from));
+          occupied.set(index(to));
+          currentPlayer.addFish(board.getSpace(from).getNumFish());
           board.removeTile(from);
-          penguins.remove(from);
       }
       else {
         throw new IllegalArgumentException("Player cannot move another player's penguins!");
@@ -127,10 +163,14 @@ public class GameState implements IState {
 
   @Override
   public boolean movesPossible() {
-    ArrayList<BoardPosition> penPositions = new ArrayList<>(penguins.keySet());
-    for (BoardPosition bp : penPositions) {
-      if (!board.getValidMoves(bp, penPositions).isEmpty()) {
-        return true;
+    for (int c = 0; c < positions.length; c++) {
+      for (int i = 0; i < penguinCount[c]; i++) {
+        BoardPosition bp = position(positions[c][i]);
+        for (int d = 0; d < IBoard.DIRECTIONS; d++) {
+          if (isOpen(board.getNeighbor(bp, d))) {
+            return true;
+          }
+        }
       }
     }
     return false;
@@ -139,8 +179,15 @@ public class GameState implements IState {
   @Override
   public void render(Graphics g) {
     this.board.render(g);
-    for (BoardPosition bp : penguins.keySet()) {
-      penguins.get(bp).render(bp, g);
+    renderPenguins(g);
+  }
+
+  @Override
+  public void renderPenguins(Graphics g) {
+    for (int c = 0; c < positions.length; c++) {
+      for (int i = 0; i < penguinCount[c]; i++) {
+        penguin(c).render(position(positions[c][i]), g);
+      }
     }
   }
 
@@ -156,68 +203,115 @@ public class GameState implements IState {
 
   @Override
   public void removePlayer(Player p) {
-    if (p.equals(currentPlayer)) {
+    int color = p.getColor().ordinal();
+    if (byColor[color] == null) {
+      return;
+    }
+    if (color == current) {
       setNextPlayer();
     }
-    for (BoardPosition bp : new HashSet<>(penguins.keySet())) {
-      if (penguins.get(bp).getColor() == p.getColor()) {
-        penguins.remove(bp);
-      }
+    for (int i = 0; i < penguinCount[color]; i++) {
+      occupied.clear(positions[color][i]);
     }
-    players.remove(p);
+    penguinCount[color] = 0;
+    players.removeIf(q -> q.getColor() == p.getColor());
+
+    int before = color;
+    while (nextColor[before] != color) {
+      before = nextColor[before];
+    }
+    nextColor[before] = nextColor[color];
+    nextColor[color] = -1;
+    byColor[color] = null;
   }
 
   @Override
   public void setNextPlayer() {
-    if (currentPlayer == null) {
-      currentPlayer = getYoungestPlayer();
-    }
-    else {
-      movedPlayers.add(currentPlayer);
-      currentPlayer = getNextPlayer();
+    if (players.isEmpty()) {
+      throw new IllegalArgumentException("Cannot find next youngest player without any players!");
     }
+    current = nextColor[current];
+    currentPlayer = byColor[current];
   }
 
   @Override
   public Penguin getPenguinAtPosn(BoardPosition bp) {
     if(isPenguinAtPosn(bp)) {
-      return penguins.get(bp);
-    }
-    else {
-      throw new IllegalArgumentException("No penguin at this board space!");
+      for (int c = 0; c < positions.length; c++) {
+        if (slotOf(c, index(bp)) >= 0) {
+          return penguin(c);
+        }
+      }
     }
+    throw new IllegalArgumentException("No penguin at this board space!");
   }
 
   @Override
   public boolean isPenguinAtPosn(BoardPosition bp) {
-    return penguins.containsKey(bp);
+    return board.isValidPosn(bp) && occupied.get(index(bp));
   }
 
   /**
-   * Return a copy of the HashMap of penguins. BoardPositions and Penguins are immutable, so
-   * it's safe to not copy-construct these.
+   * Return a new HashMap of penguins built from the tables of positions, which the caller is free
+   * to modify. BoardPositions and Penguins are immutable, so the map shares them with this state.
+   * Callers that only need to count or find penguins should use getPenguinCount and
+   * getPenguinPositions, which build no map.
    * @return A copy of the mapping of positions and penguins.
    */
   public HashMap<BoardPosition, Penguin> getPenguins() {
-    return new HashMap<>(penguins);
+    HashMap<BoardPosition, Penguin> penguins = new HashMap<>();
+    for (int c = 0; c < positions.length; c++) {
+      for (int i = 0; i < penguinCount[c]; i++) {
+        penguins.put(position(positions[c][i]), penguin(c));
+      }
+    }
+    return penguins;
+  }
+
+  /**
+   * Gets the number of penguins on the board.
+   * @return The number of penguins of all players.
+   */
+  public int getPenguinCount() {
+    return occupied.cardinality();
+  }
+
+  /**
+   * Gets the number of penguins of one color on the board.
+   * @param color The color of the penguins.
+   * @return The number of penguins of the color.
+   */
+  public int getPenguinCount(Penguin.PenguinColor color) {
+    return penguinCount[color.ordinal()];
+  }
+
+  /**
+   * Gets the positions of the penguins of one color, in the order they were placed.
+   * @param color The color of the penguins.
+   * @return A new list of the positions of the penguins of the color.
+   */
+  public List<BoardPosition> getPenguinPositions(Penguin.PenguinColor color) {
+    int c = color.ordinal();
+    List<BoardPosition> found = new ArrayList<>(penguinCount[c]);
+    for (int i = 0; i < penguinCount[c]; i++) {
+      found.add(position(positions[c][i]));
+    }
+    return found;
   }
 
   @Override
   public ArrayList<Action> getPossibleActions() {
     ArrayList<Action> actions = new ArrayList<>();
 
-    ArrayList<BoardPosition> sourcePositions = new ArrayList<>();
-    for(BoardPosition bp : penguins.keySet()) {
-      if(penguins.get(bp).getColor().equals(currentPlayer.getColor())) {
-        sourcePositions.add(bp);
-      }
-    }
-    ArrayList<BoardPosition> penPositions = new ArrayList<>(penguins.keySet());
-    for (BoardPosition from : sourcePositions) {
-      ArrayList<BoardPosition> destinations = board.getValidMoves(from, penPositions);
-      for(BoardPosition to : destinations) {
-        Action a = new Move(to, from, currentPlayer);
-        actions.add(a);
+    int color = currentPlayer.getColor().ordinal();
+    for (int i = 0; i < penguinCount[color]; i++) {
+      BoardPosition from = position(positions[color][i]);
+      // The same destinations in the same order as IBoard.getValidMoves
+      for (int d = 0; d < IBoard.DIRECTIONS; d++) {
+        for (BoardPosition to = board.getNeighbor(from, d); isOpen(to);
+             to = board.getNeighbor(to, d)) {
+          actions.add(new Move(to, from, currentPlayer));
+        }
       }
     }
 
@@ -234,59 +328,69 @@ public class GameState implements IState {
   }
 
   /**
-   * Gets the player that will move next based on increasing age.
-   * @return The next player that will make a move
+   * Packs a position on the board into the index of its bit in the set of occupied positions.
+   * @param bp The position, which must be on the board.
+   * @return The index of the position.
    */
-  private Player getNextPlayer() {
-    if(players.size() == 0) {
-      throw new IllegalArgumentException("Cannot find next youngest player without any players!");
-    }
-    if (movedPlayers.containsAll(players)) {
-      movedPlayers.clear();
-      return getYoungestPlayer();
-    }
-    Player nextYoungest = null;
-    for (Player p : players) {
-      if (movedPlayers.contains(p)) {
-        continue;
-      }
-      else if (nextYoungest == null) {
-        nextYoungest = p;
-      }
-      else if (p.getAge() < nextYoungest.getAge()) {
-        nextYoungest = p;
-      }
-      else if (p.getAge() == nextYoungest.getAge()) {
-        if (p.getColor().tieCode < nextYoungest.getColor().tieCode) {
-          nextYoungest = p;
-        }
+  private int index(BoardPosition bp) {
+    return bp.getRow() * cols + bp.getCol();
+  }
+
+  /**
+   * Unpacks the index of a position on the board.
+   * @param index The index of the position.
+   * @return The position.
+   */
+  private BoardPosition position(int index) {
+    return new BoardPosition(index / cols, index % cols);
+  }
+
+  /**
+   * Finds where a position is in the table of positions of a color.
+   * @param color The ordinal of the color.
+   * @param index The index of the position.
+   * @return The slot of the position in the color's table, or -1 if no penguin of the color is
+   * there.
+   */
+  private int slotOf(int color, int index) {
+    for (int i = 0; i < penguinCount[color]; i++) {
+      if (positions[color][i] == index) {
+        return i;
       }
     }
-    return nextYoungest;
+    return -1;
   }
 
   /**
-   * Gets the youngest player in the game.
-   * @return The player in the game with the lowest age.
+   * Checks whether a penguin could move onto a position: a tile on the board without a penguin.
+   * @param bp The position, or null for one off the board.
+   * @return True if the position holds a free tile, else false.
    */
-  private Player getYoungestPlayer() {
-    if(players.size() == 0) {
-      throw new IllegalArgumentException("Cannot find next youngest player without any players!");
+  private boolean isOpen(BoardPosition bp) {
+    return bp != null && !occupied.get(index(bp)) && !board.getSpace(bp).isHole();
+  }
+
+  /**
+   * Gets the penguin of a color, shared by every state since penguins are immutable.
+   * @param color The ordinal of the color.
+   * @return The penguin of the color.
+   */
+  private static Penguin penguin(int color) {
+    if (PENGUINS[color] == null) {
+      PENGUINS[color] = new Penguin(Penguin.PenguinColor.values()[color]);
     }
-    Player youngest = null;
-    for(Player p : players) {
-        if (youngest == null) {
-          youngest = p;
-        }
-        else if (p.getAge() < youngest.getAge()) {
-          youngest = p;
-        }
-        else if (p.getAge() == youngest.getAge()) {
-          if (p.getColor().tieCode < youngest.getColor().tieCode) {
-            youngest = p;
-          }
-        }
+    return PENGUINS[color];
+  }
+
+  @Override
+  public List<Player> getTurnOrder() {
+    List<Player> order = new ArrayList<>();
+    order.add(currentPlayer);
+    if (byColor[current] != null) {
+      for (int c = nextColor[current]; c != current; c = nextColor[c]) {
+        order.add(byColor[c]);
       }
-    return youngest;
+    }
+    return order;
   }
 }
@@ -31,4 +31,9 @@ public class Hole implements BoardSpace {
   public void render(BoardPosition p, Graphics g) {
     // has no graphical representation
   }
+
+  @Override
+  public void renderSimplified(BoardPosition p, Graphics g) {
+    // has no graphical representation
+  }
 }
@@ -6,6 +6,12 @@ import java.util.ArrayList;
 import game.controller.FishController;
 
 public interface IBoard {
+  /**
+   * The number of directions in which tiles are adjacent to each other, and in which penguins
+   * move; getNeighbor numbers them from 0.
+   */
+  int DIRECTIONS = 6;
+
   /**
    * Gets the list of valid Tiles that can be moved to from a given board position.
    * Valid positions are positions that can be reached via a straight-line movement
@@ -19,6 +25,16 @@ public interface IBoard {
    */
   ArrayList<BoardPosition> getValidMoves(BoardPosition p, ArrayList<BoardPosition> invalidPosns);
 
+  /**
+   * Gets the position adjacent to the given one in a direction, whether it holds a tile or a hole.
+   * Following the same direction from each position in turn traces the straight line along which
+   * getValidMoves moves a penguin.
+   * @param p The position to step from.
+   * @param direction The direction to step in, from 0 to DIRECTIONS - 1.
+   * @return The adjacent position, or null if it is outside the board.
+   */
+  BoardPosition getNeighbor(BoardPosition p, int direction);
+
   /**
    * Removes a tile from the board. If already a hole, does nothing.
    * @param p The tile to be removed from the board.
@@ -26,10 +42,18 @@ public interface IBoard {
   void removeTile(BoardPosition p);
 
   /**
-   * Renders the current state of the board.
+   * Renders the current state of the board. Only the tiles that intersect the clip of the
+   * graphics are drawn.
    */
   void render(Graphics g);
 
+  /**
+   * Renders the current state of the board as tiles filled with a color for their number of fish
+   * instead of drawing each fish, for boards shown too small for the fish to be made out. Only the
+   * tiles that intersect the clip of the graphics are drawn.
+   */
+  void renderSimplified(Graphics g);
+
   /**
    * Returns the amount of rows in the board.
    * @return integer number of rows
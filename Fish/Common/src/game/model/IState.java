@@ -3,6 +3,7 @@ package game.model;
 import java.awt.Graphics;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 
 /**
  * Interface to handle varying representation of game states.
@@ -42,6 +43,12 @@ public interface IState {
    */
   void render(Graphics g);
 
+  /**
+   * Renders only the penguins of this IState, for views that draw the board on their own.
+   * @param g The graphics element to be used to draw the penguins.
+   */
+  void renderPenguins(Graphics g);
+
   /**
    * Gets the player whose turn it currently is.
    * @return The currently active player.
@@ -94,5 +101,12 @@ public interface IState {
    */
   HashSet<Player> getPlayers();
 
+  /**
+   * Returns the players in the game in the order of their upcoming turns, starting with the
+   * current player.
+   * @return The list of players in turn order.
+   */
+  List<Player> getTurnOrder();
+
 
 }
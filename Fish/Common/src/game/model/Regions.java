@@ -0,0 +1,101 @@
+package game.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * The regions of a board: the sets of tiles connected to each other through adjacent tiles (see
+ * IBoard.getNeighbor), which holes separate from each other. Penguins move along straight lines
+ * of adjacent tiles, so a penguin can never leave its region, and regions only ever shrink or
+ * split as tiles are removed.
+ *
+ * Regions are numbered from 0 in the order of their first tile, scanning the board row by row.
+ * This is a snapshot of the board when it was computed.
+ */
+public class Regions {
+  private final int[][] region;
+  private final List<List<BoardPosition>> tiles;
+  private final List<Integer> fish;
+
+  /**
+   * Finds the regions of a board by flood fill.
+   * @param board The board.
+   */
+  public Regions(IBoard board) {
+    this.region = new int[board.getRows()][board.getCols()];
+    this.tiles = new ArrayList<>();
+    this.fish = new ArrayList<>();
+    for (int[] row : region) {
+      Arrays.fill(row, -1);
+    }
+
+    Queue<BoardPosition> queue = new ArrayDeque<>();
+    for (int r = 0; r < board.getRows(); r++) {
+      for (int c = 0; c < board.getCols(); c++) {
+        BoardPosition start = new BoardPosition(r, c);
+        if (region[r][c] >= 0 || board.getSpace(start).isHole()) {
+          continue;
+        }
+        int id = tiles.size();
+        List<BoardPosition> found = new ArrayList<>();
+        int total = 0;
+        region[r][c] = id;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+          BoardPosition p = queue.remove();
+          found.add(p);
+          total += board.getSpace(p).getNumFish();
+          for (int d = 0; d < IBoard.DIRECTIONS; d++) {
+            BoardPosition next = board.getNeighbor(p, d);
+            if (next != null && region[next.getRow()][next.getCol()] < 0
+                    && !board.getSpace(next).isHole()) {
+              region[next.getRow()][next.getCol()] = id;
+              queue.add(next);
+            }
+          }
+        }
+        tiles.add(Collections.unmodifiableList(found));
+        fish.add(total);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of regions.
+   * @return The number of regions, 0 if every space is a hole.
+   */
+  public int count() {
+    return tiles.size();
+  }
+
+  /**
+   * Gets the region of a position.
+   * @param p The position, which must be on the board.
+   * @return The number of the region of the tile at the position, or -1 if it is a hole.
+   */
+  public int getRegion(BoardPosition p) {
+    return region[p.getRow()][p.getCol()];
+  }
+
+  /**
+   * Gets the tiles of a region.
+   * @param id The number of the region.
+   * @return The tiles of the region, in the order the flood fill reached them.
+   */
+  public List<BoardPosition> getTiles(int id) {
+    return tiles.get(id);
+  }
+
+  /**
+   * Gets the total number of fish on the tiles of a region.
+   * @param id The number of the region.
+   * @return The number of fish in the region.
+   */
+  public int getFish(int id) {
+    return fish.get(id);
+  }
+}
@@ -22,6 +22,14 @@ public class Tile implements BoardSpace {
   public static final int R_OFFSET = 20;
   public static final int D_OFFSET = 20;
 
+  /**
+   * Fill colors of tiles drawn without their fish, from 1 fish (lightest) to 5 (darkest).
+   */
+  static final Color[] SIMPLIFIED_COLORS = {
+    new Color(0xC6DBEF), new Color(0x9ECAE1), new Color(0x6BAED6),
+    new Color(0x3182BD), new Color(0x08519C)
+  };
+
   static Image FISH_ICON = null;
   final int FISH_ICON_HEIGHT = 20;
 
@@ -73,7 +81,26 @@ public class Tile implements BoardSpace {
     drawFish(p, g);
   }
 
+  @Override
+  public void renderSimplified(BoardPosition p, Graphics g) {
+    g.setColor(SIMPLIFIED_COLORS[fish - Board.MIN_FISH]);
+    g.fillPolygon(hexagon(p));
+  }
+
   private void drawHexagon(BoardPosition p, Graphics g) {
+    Polygon hex = hexagon(p);
+    g.setColor(Color.LIGHT_GRAY);
+    g.fillPolygon(hex);
+    g.setColor(Color.BLACK);
+    g.drawPolygon(hex);
+  }
+
+  /**
+   * Builds the hexagon of the tile at the given position.
+   * @param p The position of the tile on the board.
+   * @return The outline of the tile, in pixels.
+   */
+  private Polygon hexagon(BoardPosition p) {
     Polygon hex = new Polygon();
 
     //Determines if this tile is offset
@@ -98,11 +125,7 @@ public class Tile implements BoardSpace {
     hex.addPoint(botRightPt.getX(), botRightPt.getY());
     hex.addPoint(botLeftPt.getX(), botLeftPt.getY());
     hex.addPoint(midLeftPt.getX(), midLeftPt.getY());
-
-    g.setColor(Color.LIGHT_GRAY);
-    g.fillPolygon(hex);
-    g.setColor(Color.BLACK);
-    g.drawPolygon(hex);
+    return hex;
   }
 
   private void drawFish(BoardPosition p, Graphics g) {
@@ -0,0 +1,152 @@
+package game.replay;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import game.codec.StateCodec;
+import game.model.Penguin;
+
+/**
+ * An entry of the index of a replay archive, summarising one archived game so that tools can
+ * filter games by their players or winners without touching the segment holding the game.
+ *
+ * In the index file, an entry is ENTRY_LENGTH bytes laid out (big-endian) as:
+ *
+ *   game id                 long
+ *   segment                 int, the number of the segment file holding the game record
+ *   offset                  long, the position of the record within the segment
+ *   length                  int, the length of the record
+ *   players                 byte, bitmask of the colors of the players at the start of the game
+ *   winners                 byte, bitmask of the colors of the winners
+ *   (reserved)              short
+ *   steps                   int, the number of recorded steps in the game
+ */
+public class ArchiveEntry {
+  static final int ENTRY_LENGTH = 32;
+
+  private final long gameId;
+  private final int segment;
+  private final long offset;
+  private final int length;
+  private final byte players;
+  private final byte winners;
+  private final int steps;
+
+  /**
+   * Constructs an index entry.
+   * @param gameId The id of the game.
+   * @param segment The number of the segment holding the game record.
+   * @param offset The position of the record within its segment.
+   * @param length The length of the record in bytes.
+   * @param players Bitmask of the colors of the players of the game.
+   * @param winners Bitmask of the colors of the winners of the game.
+   * @param steps The number of steps recorded for the game.
+   */
+  ArchiveEntry(long gameId, int segment, long offset, int length, byte players, byte winners,
+               int steps) {
+    this.gameId = gameId;
+    this.segment = segment;
+    this.offset = offset;
+    this.length = length;
+    this.players = players;
+    this.winners = winners;
+    this.steps = steps;
+  }
+
+  /**
+   * Reads the entry at the buffer's position, advancing it by ENTRY_LENGTH.
+   * @param buf The buffer holding the index.
+   * @return The entry read.
+   */
+  static ArchiveEntry read(ByteBuffer buf) {
+    long gameId = buf.getLong();
+    int segment = buf.getInt();
+    long offset = buf.getLong();
+    int length = buf.getInt();
+    byte players = buf.get();
+    byte winners = buf.get();
+    buf.getShort();
+    int steps = buf.getInt();
+    return new ArchiveEntry(gameId, segment, offset, length, players, winners, steps);
+  }
+
+  /**
+   * Writes this entry at the buffer's position, advancing it by ENTRY_LENGTH.
+   * @param buf The buffer to write to.
+   */
+  void write(ByteBuffer buf) {
+    buf.putLong(gameId);
+    buf.putInt(segment);
+    buf.putLong(offset);
+    buf.putInt(length);
+    buf.put(players);
+    buf.put(winners);
+    buf.putShort((short) 0);
+    buf.putInt(steps);
+  }
+
+  /**
+   * Gets the id of the archived game.
+   * @return The game id.
+   */
+  public long getGameId() {
+    return gameId;
+  }
+
+  /**
+   * Gets the number of the segment file the game record is stored in.
+   * @return The segment number.
+   */
+  public int getSegment() {
+    return segment;
+  }
+
+  /**
+   * Gets the position of the game record within its segment.
+   * @return The offset of the record in bytes.
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Gets the length of the game record.
+   * @return The length of the record in bytes.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Gets the colors of the players the game started with.
+   * @return The player colors, in ordinal order.
+   */
+  public List<Penguin.PenguinColor> getPlayers() {
+    return StateCodec.colorsOf(players);
+  }
+
+  /**
+   * Gets the colors of the winners of the game.
+   * @return The winner colors, in ordinal order.
+   */
+  public List<Penguin.PenguinColor> getWinners() {
+    return StateCodec.colorsOf(winners);
+  }
+
+  /**
+   * Checks whether the player with the given color won the game, without allocating.
+   * @param color The color to check.
+   * @return True if the color is among the winners, else false.
+   */
+  public boolean isWinner(Penguin.PenguinColor color) {
+    return (winners & 1 << color.ordinal()) != 0;
+  }
+
+  /**
+   * Gets the number of steps (actions and removals) recorded for the game.
+   * @return The number of steps.
+   */
+  public int getSteps() {
+    return steps;
+  }
+}
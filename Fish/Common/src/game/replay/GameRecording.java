@@ -0,0 +1,106 @@
+package game.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import game.codec.StateCodec;
+import game.codec.VarInts;
+import game.model.Action;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.Move;
+import game.model.Pass;
+import game.model.Penguin;
+import game.model.Place;
+
+/**
+ * The in-progress record of a single game, created by ReplayRecorder.startGame. Each step of the
+ * game is encoded as it is recorded into a buffer owned by this recording; the buffer is appended
+ * to the recorder's log when the game is finished. A recording is used by a single referee and is
+ * not safe for use by several threads at once.
+ */
+public class GameRecording {
+  // A step is at most a tag byte and four varints
+  private static final int MAX_STEP_BYTES = 1 + 4 * VarInts.MAX_INT_BYTES;
+
+  private final ReplayRecorder recorder;
+  private ByteBuffer buf;
+  private boolean finished;
+
+  /**
+   * Starts the record of a game by encoding its id and initial state.
+   * @param recorder The recorder to append the finished record to.
+   * @param gameId The id of the recorded game.
+   * @param initial The state of the game before its first step.
+   */
+  GameRecording(ReplayRecorder recorder, long gameId, GameState initial) {
+    this.recorder = recorder;
+    this.buf = ByteBuffer.allocate(VarInts.MAX_LONG_BYTES + StateCodec.maxEncodedSize(initial)
+            + 64 * MAX_STEP_BYTES);
+    VarInts.putVarLong(buf, gameId);
+    StateCodec.encode(initial, buf);
+    this.finished = false;
+  }
+
+  /**
+   * Records an action that was accepted and applied to the game.
+   * @param color The color of the player that took the action.
+   * @param a The action, a Place, Move or Pass.
+   */
+  public void recordAction(Penguin.PenguinColor color, Action a) {
+    if (a instanceof Place) {
+      BoardPosition bp = ((Place) a).getPosition();
+      putStep(ReplayRecorder.STEP_PLACE, color);
+      VarInts.putVarInt(buf, bp.getRow());
+      VarInts.putVarInt(buf, bp.getCol());
+    } else if (a instanceof Move) {
+      Move m = (Move) a;
+      putStep(ReplayRecorder.STEP_MOVE, color);
+      VarInts.putVarInt(buf, m.getStart().getRow());
+      VarInts.putVarInt(buf, m.getStart().getCol());
+      VarInts.putVarInt(buf, m.getDestination().getRow());
+      VarInts.putVarInt(buf, m.getDestination().getCol());
+    } else if (a instanceof Pass) {
+      putStep(ReplayRecorder.STEP_PASS, color);
+    } else {
+      throw new IllegalArgumentException("Cannot record an action of unknown kind.");
+    }
+  }
+
+  /**
+   * Records that the player of the given color was removed from the game for failing or
+   * cheating.
+   * @param color The color of the removed player.
+   */
+  public void recordRemoval(Penguin.PenguinColor color) {
+    putStep(ReplayRecorder.STEP_REMOVE, color);
+  }
+
+  /**
+   * Ends the record with the winners of the game and appends it to the recorder's log. Nothing
+   * may be recorded afterwards.
+   * @param winners The colors of the players that won the game.
+   * @throws IOException if the record cannot be written to the log.
+   */
+  public void finish(List<Penguin.PenguinColor> winners) throws IOException {
+    buf = VarInts.ensureRemaining(buf, 2);
+    buf.put((byte) (ReplayRecorder.STEP_END << 2));
+    buf.put(StateCodec.colorMask(winners));
+    finished = true;
+    recorder.append(buf);
+  }
+
+  /**
+   * Writes the tag byte of a step, making room for the whole step first.
+   * @param kind The kind of step (one of the STEP constants of ReplayRecorder).
+   * @param color The color of the player the step belongs to.
+   */
+  private void putStep(int kind, Penguin.PenguinColor color) {
+    if (finished) {
+      throw new IllegalStateException("Cannot record steps of a finished game.");
+    }
+    buf = VarInts.ensureRemaining(buf, MAX_STEP_BYTES);
+    buf.put((byte) (kind << 2 | color.ordinal()));
+  }
+}
@@ -0,0 +1,165 @@
+package game.replay;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import game.codec.StateCodec;
+import game.codec.VarInts;
+import game.model.Action;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.Move;
+import game.model.Pass;
+import game.model.Penguin;
+import game.model.Place;
+import game.model.Player;
+
+/**
+ * The replay of a single recorded game: its id, its state before the first recorded step, the
+ * sequence of steps taken in it and its winners. Steps are Actions (Place, Move and Pass, plus
+ * Removal for players removed by the referee), so any state of the game can be rebuilt by
+ * performing a prefix of the steps on a copy of the initial state.
+ */
+public class GameReplay {
+  private final long gameId;
+  private final GameState initial;
+  private final List<Action> steps;
+  private final List<Penguin.PenguinColor> winners;
+
+  /**
+   * Constructs a replay from its decoded parts.
+   * @param gameId The id of the game.
+   * @param initial The state of the game before its first step.
+   * @param steps The steps taken in the game, in order.
+   * @param winners The colors of the winners of the game.
+   */
+  public GameReplay(long gameId, GameState initial, List<Action> steps,
+                    List<Penguin.PenguinColor> winners) {
+    this.gameId = gameId;
+    this.initial = new GameState(initial);
+    this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    this.winners = Collections.unmodifiableList(new ArrayList<>(winners));
+  }
+
+  /**
+   * Decodes a single game record, as returned by ReplayReader.nextRecord.
+   * @param record Buffer holding exactly one game record.
+   * @return The decoded replay.
+   * @throws IllegalArgumentException if the record is malformed.
+   */
+  public static GameReplay decode(ByteBuffer record) {
+    long gameId = VarInts.getVarLong(record);
+    GameState initial = StateCodec.decode(record);
+    Player[] byColor = new Player[Penguin.PenguinColor.values().length];
+    for (Player p : initial.getPlayers()) {
+      byColor[p.getColor().ordinal()] = new Player(p);
+    }
+
+    List<Action> steps = new ArrayList<>();
+    while (true) {
+      int tag = record.get() & 0xFF;
+      int kind = tag >>> 2;
+      Penguin.PenguinColor color = StateCodec.decodeColor(tag & 0x03);
+      Player actor = byColor[color.ordinal()];
+      if (kind == ReplayRecorder.STEP_END) {
+        List<Penguin.PenguinColor> winners = StateCodec.colorsOf(record.get());
+        return new GameReplay(gameId, initial, steps, winners);
+      }
+      if (actor == null) {
+        throw new IllegalArgumentException("Replay step by a player not in the game.");
+      }
+      switch (kind) {
+        case ReplayRecorder.STEP_PLACE:
+          steps.add(new Place(readPosition(record), actor));
+          break;
+        case ReplayRecorder.STEP_MOVE:
+          BoardPosition from = readPosition(record);
+          steps.add(new Move(readPosition(record), from, actor));
+          break;
+        case ReplayRecorder.STEP_PASS:
+          steps.add(new Pass(actor));
+          break;
+        case ReplayRecorder.STEP_REMOVE:
+          steps.add(new Removal(color));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown replay step kind " + kind + ".");
+      }
+    }
+  }
+
+  /**
+   * Reads a varint-encoded row and column pair.
+   * @param record The buffer to read from.
+   * @return The decoded position.
+   */
+  private static BoardPosition readPosition(ByteBuffer record) {
+    return new BoardPosition(VarInts.getVarInt(record), VarInts.getVarInt(record));
+  }
+
+  /**
+   * Gets the id of the replayed game.
+   * @return The game id given when the game was recorded.
+   */
+  public long getGameId() {
+    return gameId;
+  }
+
+  /**
+   * Gets a copy of the state of the game before its first step.
+   * @return The initial GameState of the game.
+   */
+  public GameState getInitialState() {
+    return new GameState(initial);
+  }
+
+  /**
+   * Gets the steps taken in the game, in order.
+   * @return An unmodifiable list of the actions and removals of the game.
+   */
+  public List<Action> getSteps() {
+    return steps;
+  }
+
+  /**
+   * Gets the colors of the winners of the game.
+   * @return An unmodifiable list of the winning colors, in ordinal order.
+   */
+  public List<Penguin.PenguinColor> getWinners() {
+    return winners;
+  }
+
+  /**
+   * Rebuilds the state of the game after the given number of steps.
+   * @param step The number of steps to perform, from 0 (the initial state) to the number of steps.
+   * @return A new GameState representing the game after that many steps.
+   */
+  public GameState getState(int step) {
+    if (step < 0 || step > steps.size()) {
+      throw new IllegalArgumentException("No such step in the replay.");
+    }
+    GameState gs = new GameState(initial);
+    for (int i = 0; i < step; i++) {
+      steps.get(i).perform(gs);
+    }
+    return gs;
+  }
+
+  /**
+   * Rebuilds every state the game went through, starting with the initial state and ending with
+   * the final one.
+   * @return A list of one more GameState than there are steps.
+   */
+  public List<GameState> getStates() {
+    List<GameState> states = new ArrayList<>();
+    GameState gs = new GameState(initial);
+    states.add(new GameState(gs));
+    for (Action a : steps) {
+      a.perform(gs);
+      states.add(new GameState(gs));
+    }
+    return states;
+  }
+}
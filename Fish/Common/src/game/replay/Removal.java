@@ -0,0 +1,57 @@
+package game.replay;
+
+import java.util.Objects;
+
+import game.model.Action;
+import game.model.GameState;
+import game.model.Penguin;
+import game.model.Player;
+
+/**
+ * Replay step representing the removal of a player (and its penguins) from a game after it failed
+ * or cheated. Not an action a player can take, but modelled as one so that a replayed game is a
+ * plain sequence of Actions to perform on its initial GameState.
+ */
+public class Removal implements Action {
+  private final Penguin.PenguinColor color;
+
+  /**
+   * Constructs the removal of the player with the given color.
+   * @param color The color of the removed player.
+   */
+  public Removal(Penguin.PenguinColor color) {
+    this.color = color;
+  }
+
+  /**
+   * Gets the color of the removed player.
+   * @return The color of the player this step removes.
+   */
+  public Penguin.PenguinColor getColor() {
+    return color;
+  }
+
+  @Override
+  public void perform(GameState g) {
+    for (Player p : g.getPlayers()) {
+      if (p.getColor() == color) {
+        g.removePlayer(p);
+        return;
+      }
+    }
+    throw new IllegalArgumentException("No player of this color to remove.");
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof Removal) {
+      return this.color == ((Removal) obj).color;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(color);
+  }
+}
@@ -0,0 +1,224 @@
+package game.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read access to a replay archive written by ReplayArchiveWriter: a directory holding many game
+ * records packed into large segment files, plus an index with one fixed-size ArchiveEntry per game.
+ *
+ * Each segment file is itself a replay log (as written by ReplayRecorder), so a single segment can
+ * also be read in order with ReplayReader. The index file starts with the 4-byte magic number
+ * "FSHI", a format version byte and three reserved bytes, followed by the entries in the order
+ * the games were archived.
+ *
+ * The index and the segments are memory-mapped read-only (segments only once a game in them is
+ * first accessed), so scanning the index of millions of games or jumping straight to one game
+ * never reads or parses any of the other records.
+ */
+public class ReplayArchive {
+  static final String INDEX_FILE = "index.fshi";
+  static final byte[] INDEX_MAGIC = {'F', 'S', 'H', 'I'};
+  static final byte INDEX_VERSION = 1;
+  static final int INDEX_HEADER_LENGTH = 8;
+
+  private final Path dir;
+  private final ByteBuffer index;
+  private final int size;
+  private final boolean sorted;
+  private final List<ByteBuffer> segments;
+
+  /**
+   * Creates a reader over an archive directory whose index has already been mapped.
+   * @param dir The archive directory.
+   * @param index The mapped index file, starting with its header.
+   */
+  private ReplayArchive(Path dir, ByteBuffer index) {
+    checkIndexHeader(index);
+    this.dir = dir;
+    this.index = index;
+    long entries = (index.limit() - INDEX_HEADER_LENGTH) / ArchiveEntry.ENTRY_LENGTH;
+    if (entries > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Replay archive index has too many entries.");
+    }
+    this.size = (int) entries;
+    this.segments = new ArrayList<>();
+
+    boolean inOrder = true;
+    for (int i = 1; i < size && inOrder; i++) {
+      inOrder = getGameId(i - 1) <= getGameId(i);
+    }
+    this.sorted = inOrder;
+  }
+
+  /**
+   * Opens the replay archive in the given directory by memory-mapping its index.
+   * @param dir The archive directory.
+   * @return A reader over the games in the archive when it was opened.
+   * @throws IOException if the index cannot be opened or mapped.
+   * @throws IllegalArgumentException if the index is not a replay archive index.
+   */
+  public static ReplayArchive open(Path dir) throws IOException {
+    try (FileChannel channel = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.READ)) {
+      return new ReplayArchive(dir, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Checks that the buffer starts with the header of a replay archive index of a supported
+   * version, without moving its position.
+   * @param index The buffer holding the index.
+   * @throws IllegalArgumentException if the header is missing or not supported.
+   */
+  static void checkIndexHeader(ByteBuffer index) {
+    if (index.limit() < INDEX_HEADER_LENGTH) {
+      throw new IllegalArgumentException("Not a replay archive index: too short.");
+    }
+    for (int i = 0; i < INDEX_MAGIC.length; i++) {
+      if (index.get(i) != INDEX_MAGIC[i]) {
+        throw new IllegalArgumentException("Not a replay archive index: bad magic number.");
+      }
+    }
+    if (index.get(INDEX_MAGIC.length) != INDEX_VERSION) {
+      throw new IllegalArgumentException("Unsupported replay archive index version.");
+    }
+  }
+
+  /**
+   * Returns the path of the segment file with the given number in an archive directory.
+   * @param dir The archive directory.
+   * @param segment The segment number.
+   * @return The path of the segment file.
+   */
+  static Path segmentPath(Path dir, int segment) {
+    return dir.resolve(String.format("segment-%05d.fshr", segment));
+  }
+
+  /**
+   * Gets the number of games in the archive.
+   * @return The number of index entries.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the index entry of a game.
+   * @param i The position of the game in the index, between 0 and size() - 1.
+   * @return The index entry of the game.
+   * @throws IndexOutOfBoundsException if there is no such entry.
+   */
+  public ArchiveEntry getEntry(int i) {
+    ByteBuffer entry = index.duplicate();
+    entry.position(entryOffset(i));
+    return ArchiveEntry.read(entry);
+  }
+
+  /**
+   * Gets the id of a game straight from the index, without creating its entry.
+   * @param i The position of the game in the index, between 0 and size() - 1.
+   * @return The id of the game.
+   * @throws IndexOutOfBoundsException if there is no such entry.
+   */
+  public long getGameId(int i) {
+    return index.getLong(entryOffset(i));
+  }
+
+  /**
+   * Returns the position of the i-th entry in the index file.
+   * @param i The position of the entry in the index.
+   * @return The byte offset of the entry.
+   * @throws IndexOutOfBoundsException if there is no such entry.
+   */
+  private int entryOffset(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("No archive entry " + i);
+    }
+    return INDEX_HEADER_LENGTH + i * ArchiveEntry.ENTRY_LENGTH;
+  }
+
+  /**
+   * Finds the game in the index with the given id; ReplayArchiveWriter never archives two games
+   * with the same id. Ids are binary searched when the index is in id order (as it is for games
+   * recorded by referees, whose ids grow across processes), and scanned otherwise.
+   * @param gameId The id to look for.
+   * @return The position of the game in the index, or -1 if no game has that id.
+   */
+  public int indexOf(long gameId) {
+    if (!sorted) {
+      for (int i = 0; i < size; i++) {
+        if (getGameId(i) == gameId) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int lo = 0;
+    int hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (getGameId(mid) < gameId) {
+        lo = mid + 1;
+      }
+      else {
+        hi = mid;
+      }
+    }
+    return lo < size && getGameId(lo) == gameId ? lo : -1;
+  }
+
+  /**
+   * Returns the encoded record of a game, as a read-only view of its mapped segment.
+   * @param i The position of the game in the index.
+   * @return A buffer holding exactly the game record.
+   * @throws IOException if the segment holding the game cannot be mapped.
+   * @throws IllegalStateException if the segment is shorter than the index says it is.
+   */
+  public ByteBuffer getRecord(int i) throws IOException {
+    ArchiveEntry entry = getEntry(i);
+    ByteBuffer segment = getSegment(entry.getSegment());
+    if (entry.getOffset() + entry.getLength() > segment.limit()) {
+      throw new IllegalStateException("Archive entry " + i + " lies past the end of its segment.");
+    }
+    ByteBuffer record = segment.duplicate();
+    record.position((int) entry.getOffset());
+    record.limit((int) entry.getOffset() + entry.getLength());
+    return record.slice().asReadOnlyBuffer();
+  }
+
+  /**
+   * Decodes the replay of a game, from which any of its states can be re-simulated.
+   * @param i The position of the game in the index.
+   * @return The replay of the game.
+   * @throws IOException if the segment holding the game cannot be mapped.
+   */
+  public GameReplay getReplay(int i) throws IOException {
+    return GameReplay.decode(getRecord(i));
+  }
+
+  /**
+   * Returns the mapped segment with the given number, mapping it on first use.
+   * @param number The segment number.
+   * @return The read-only mapping of the whole segment file.
+   * @throws IOException if the segment cannot be opened or mapped.
+   */
+  private synchronized ByteBuffer getSegment(int number) throws IOException {
+    while (segments.size() <= number) {
+      segments.add(null);
+    }
+    ByteBuffer segment = segments.get(number);
+    if (segment == null) {
+      try (FileChannel channel = FileChannel.open(segmentPath(dir, number),
+              StandardOpenOption.READ)) {
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      segments.set(number, segment);
+    }
+    return segment;
+  }
+}
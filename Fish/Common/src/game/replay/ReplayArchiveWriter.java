@@ -0,0 +1,265 @@
+package game.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import game.codec.StateCodec;
+import game.codec.VarInts;
+import game.model.Penguin;
+import game.model.Player;
+
+/**
+ * Writes games to a replay archive (see ReplayArchive for the layout), appending each record to
+ * the current segment file and its entry to the index. A new segment is started whenever the
+ * next record would grow the current one past the segment size.
+ *
+ * Since this is a ReplayRecorder, referees can record into an archive directly; records of
+ * existing replay logs can be added with addAll. Opening an existing archive continues it, after
+ * dropping anything written to it past the last complete index entry.
+ *
+ * Games are looked up in an archive by id, so the writer refuses a game whose id is already in
+ * the archive, whether it was added in this session or an earlier one (referees give games ids
+ * that are unique across processes, but logs recorded elsewhere may still repeat them). The ids
+ * already in the archive are kept sorted in an array when it is opened, and those added since in
+ * a set.
+ */
+public class ReplayArchiveWriter extends ReplayRecorder {
+  public static final long DEFAULT_SEGMENT_SIZE = 256L << 20;
+  private static final int ID_CHUNK_ENTRIES = 4096;
+
+  private final Path dir;
+  private final long segmentSize;
+  private final FileChannel index;
+  private final ByteBuffer entryBuf = ByteBuffer.allocate(ArchiveEntry.ENTRY_LENGTH);
+  private final ByteBuffer lengthBuf = ByteBuffer.allocate(VarInts.MAX_INT_BYTES);
+  private FileChannel segmentChannel;
+  private int segment;
+  private long[] archivedIds;
+  private final Set<Long> addedIds = new HashSet<>();
+
+  /**
+   * Creates a writer for the archive in the given directory using the default segment size.
+   * @param dir The archive directory, which is created if it does not exist.
+   * @throws IOException if the archive cannot be created or opened.
+   */
+  public ReplayArchiveWriter(Path dir) throws IOException {
+    this(dir, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Creates a writer for the archive in the given directory.
+   * @param dir The archive directory, which is created if it does not exist.
+   * @param segmentSize The size in bytes past which a new segment is started; segments only grow
+   * beyond it when a single record does not fit in an empty segment.
+   * @throws IOException if the archive cannot be created or opened.
+   * @throws IllegalArgumentException if the segment size is too small to hold any record, or too
+   * large to be mapped by ReplayArchive.
+   */
+  public ReplayArchiveWriter(Path dir, long segmentSize) throws IOException {
+    if (segmentSize <= HEADER_LENGTH || segmentSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+    }
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    Files.createDirectories(dir);
+    this.index = FileChannel.open(dir.resolve(ReplayArchive.INDEX_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    long entries = 0;
+    if (index.size() < ReplayArchive.INDEX_HEADER_LENGTH) {
+      ByteBuffer header = ByteBuffer.allocate(ReplayArchive.INDEX_HEADER_LENGTH);
+      header.put(ReplayArchive.INDEX_MAGIC).put(ReplayArchive.INDEX_VERSION);
+      header.clear();
+      index.truncate(0);
+      writeFully(index, header);
+    }
+    else {
+      ByteBuffer header = ByteBuffer.allocate(ReplayArchive.INDEX_HEADER_LENGTH);
+      readFully(index, header, 0);
+      ReplayArchive.checkIndexHeader(header);
+      entries = (index.size() - ReplayArchive.INDEX_HEADER_LENGTH) / ArchiveEntry.ENTRY_LENGTH;
+    }
+    long indexEnd = ReplayArchive.INDEX_HEADER_LENGTH + entries * ArchiveEntry.ENTRY_LENGTH;
+    index.truncate(indexEnd);
+    index.position(indexEnd);
+    readArchivedIds(entries);
+
+    long segmentEnd = HEADER_LENGTH;
+    if (entries > 0) {
+      entryBuf.clear();
+      readFully(index, entryBuf, indexEnd - ArchiveEntry.ENTRY_LENGTH);
+      entryBuf.flip();
+      ArchiveEntry last = ArchiveEntry.read(entryBuf);
+      segment = last.getSegment();
+      segmentEnd = last.getOffset() + last.getLength();
+    }
+    openSegment(segmentEnd);
+  }
+
+  /**
+   * Reads the ids of the games already in the archive from its index.
+   * @param count The number of complete entries in the index.
+   * @throws IOException if the index cannot be read.
+   */
+  private void readArchivedIds(long count) throws IOException {
+    if (count > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Replay archive index has too many entries.");
+    }
+    archivedIds = new long[(int) count];
+    ByteBuffer entries = ByteBuffer.allocate(ID_CHUNK_ENTRIES * ArchiveEntry.ENTRY_LENGTH);
+    long position = ReplayArchive.INDEX_HEADER_LENGTH;
+    for (int i = 0; i < archivedIds.length; ) {
+      int chunk = Math.min(ID_CHUNK_ENTRIES, archivedIds.length - i);
+      entries.clear().limit(chunk * ArchiveEntry.ENTRY_LENGTH);
+      readFully(index, entries, position);
+      position += entries.limit();
+      for (int j = 0; j < chunk; j++, i++) {
+        archivedIds[i] = entries.getLong(j * ArchiveEntry.ENTRY_LENGTH);
+      }
+    }
+    Arrays.sort(archivedIds);
+  }
+
+  /**
+   * Opens the current segment for appending at the given position, writing the replay log header
+   * if the segment is new and dropping any bytes past the position.
+   * @param end The position after the last indexed record in the segment.
+   * @throws IOException if the segment cannot be opened.
+   */
+  private void openSegment(long end) throws IOException {
+    segmentChannel = FileChannel.open(ReplayArchive.segmentPath(dir, segment),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    if (segmentChannel.size() < HEADER_LENGTH) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      header.put(MAGIC).put(VERSION);
+      header.flip();
+      segmentChannel.truncate(0);
+      writeFully(segmentChannel, header);
+    }
+    segmentChannel.truncate(end);
+    segmentChannel.position(end);
+  }
+
+  /**
+   * Adds a game record, as returned by ReplayReader.nextRecord, to the archive.
+   * @param record Buffer holding exactly one game record from its position to its limit; its
+   * position is not changed.
+   * @return The index entry written for the game.
+   * @throws IOException if writing to the segment or index fails.
+   * @throws IllegalArgumentException if the record is malformed, or a game with its id is already
+   * in the archive.
+   */
+  public synchronized ArchiveEntry add(ByteBuffer record) throws IOException {
+    GameReplay replay = GameReplay.decode(record.duplicate());
+    if (Arrays.binarySearch(archivedIds, replay.getGameId()) >= 0
+            || addedIds.contains(replay.getGameId())) {
+      throw new IllegalArgumentException("Game " + Long.toUnsignedString(replay.getGameId())
+              + " is already in the archive.");
+    }
+    List<Penguin.PenguinColor> players = new ArrayList<>();
+    for (Player p : replay.getInitialState().getPlayers()) {
+      players.add(p.getColor());
+    }
+
+    int length = record.remaining();
+    lengthBuf.clear();
+    VarInts.putVarInt(lengthBuf, length);
+    lengthBuf.flip();
+    long end = segmentChannel.position();
+    if (end > HEADER_LENGTH && end + lengthBuf.remaining() + length > segmentSize) {
+      segmentChannel.close();
+      segment++;
+      openSegment(HEADER_LENGTH);
+      end = HEADER_LENGTH;
+    }
+    long offset = end + lengthBuf.remaining();
+    writeFully(segmentChannel, lengthBuf);
+    writeFully(segmentChannel, record.duplicate());
+
+    ArchiveEntry entry = new ArchiveEntry(replay.getGameId(), segment, offset, length,
+            StateCodec.colorMask(players), StateCodec.colorMask(replay.getWinners()),
+            replay.getSteps().size());
+    entryBuf.clear();
+    entry.write(entryBuf);
+    entryBuf.flip();
+    writeFully(index, entryBuf);
+    addedIds.add(replay.getGameId());
+    return entry;
+  }
+
+  /**
+   * Adds all remaining games of a replay log to the archive, without decoding more of them than
+   * needed for their index entries.
+   * @param reader The reader over the log.
+   * @return The number of games added.
+   * @throws IOException if writing to the archive fails.
+   */
+  public int addAll(ReplayReader reader) throws IOException {
+    int added = 0;
+    while (reader.hasNext()) {
+      add(reader.nextRecord());
+      added++;
+    }
+    return added;
+  }
+
+  /**
+   * Adds a game finished by a GameRecording of this recorder to the archive.
+   * @param record The buffer holding the record, positioned at its end.
+   * @throws IOException if writing fails.
+   */
+  @Override
+  synchronized void append(ByteBuffer record) throws IOException {
+    record.flip();
+    add(record);
+  }
+
+  /**
+   * Writes all remaining bytes of the buffer to the channel at its position.
+   * @param channel The channel to write to.
+   * @param buf The bytes to write.
+   * @throws IOException if writing fails.
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+  }
+
+  /**
+   * Fills the buffer from the channel, starting at the given position of the channel.
+   * @param channel The channel to read from.
+   * @param buf The buffer to fill.
+   * @param position The position in the channel to read from.
+   * @throws IOException if reading fails or the channel ends first.
+   */
+  private static void readFully(FileChannel channel, ByteBuffer buf, long position)
+          throws IOException {
+    while (buf.hasRemaining()) {
+      int read = channel.read(buf, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of replay archive file.");
+      }
+      position += read;
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      segmentChannel.close();
+    }
+    finally {
+      index.close();
+    }
+  }
+}
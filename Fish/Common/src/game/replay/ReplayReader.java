@@ -0,0 +1,89 @@
+package game.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+import game.codec.VarInts;
+
+/**
+ * Reads the games of a replay log written by ReplayRecorder, in the order they were recorded.
+ * The log is read straight out of a ByteBuffer, which for logs on disk is a read-only memory map
+ * of the file, so no more of the log than the game currently being decoded is ever copied.
+ */
+public class ReplayReader {
+  private final ByteBuffer buf;
+
+  /**
+   * Creates a reader over a replay log held in the buffer, from its position to its limit.
+   * @param buf The buffer holding the log, starting with its header.
+   * @throws IllegalArgumentException if the buffer does not start with a replay log header of a
+   * supported version.
+   */
+  public ReplayReader(ByteBuffer buf) {
+    this.buf = buf.slice();
+    if (this.buf.remaining() < ReplayRecorder.HEADER_LENGTH) {
+      throw new IllegalArgumentException("Not a replay log: too short.");
+    }
+    for (byte b : ReplayRecorder.MAGIC) {
+      if (this.buf.get() != b) {
+        throw new IllegalArgumentException("Not a replay log: bad magic number.");
+      }
+    }
+    if (this.buf.get() != ReplayRecorder.VERSION) {
+      throw new IllegalArgumentException("Unsupported replay log version.");
+    }
+  }
+
+  /**
+   * Opens the replay log at the given path by memory-mapping it.
+   * @param file Path of the replay log.
+   * @return A reader positioned at the first game of the log.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public static ReplayReader open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Checks whether there is another game left in the log.
+   * @return True if next or nextRecord can be called, else false.
+   */
+  public boolean hasNext() {
+    return buf.hasRemaining();
+  }
+
+  /**
+   * Decodes the next game of the log.
+   * @return The replay of the next game.
+   * @throws NoSuchElementException if all games have been read.
+   */
+  public GameReplay next() {
+    return GameReplay.decode(nextRecord());
+  }
+
+  /**
+   * Returns the encoded bytes of the next game of the log without decoding them, for tools that
+   * copy or index records (the result can be decoded later with GameReplay.decode).
+   * @return A read-only buffer holding exactly the next game record.
+   * @throws NoSuchElementException if all games have been read.
+   */
+  public ByteBuffer nextRecord() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more games in the replay log.");
+    }
+    int length = VarInts.getVarInt(buf);
+    if (length > buf.remaining()) {
+      throw new IllegalArgumentException("Truncated game record in replay log.");
+    }
+    ByteBuffer record = buf.slice();
+    record.limit(length);
+    buf.position(buf.position() + length);
+    return record.asReadOnlyBuffer();
+  }
+}
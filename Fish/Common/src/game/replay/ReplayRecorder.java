@@ -0,0 +1,122 @@
+package game.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import game.codec.VarInts;
+import game.model.GameState;
+
+/**
+ * Writes replays of games of Fish to an append-only binary log, for audits and offline analysis.
+ *
+ * A replay log starts with the 4-byte magic number "FSHR" and a format version byte, followed by
+ * any number of game records, each of which is a varint length followed by that many bytes:
+ *
+ *   game id                 varint
+ *   initial state           as encoded by game.codec.StateCodec
+ *   steps                   one per accepted action or removed player, each starting with a byte
+ *                           holding the step kind in its upper bits and the color ordinal of the
+ *                           acting player in its low two bits, followed by
+ *                             PLACE:  row, col (varints)
+ *                             MOVE:   from row, from col, to row, to col (varints)
+ *                             PASS:   nothing
+ *                             REMOVE: nothing (the player failed or cheated and was removed)
+ *                           and terminated by an END byte followed by a bitmask of winner colors.
+ *
+ * Games are recorded through a GameRecording obtained from startGame, which buffers its game in
+ * memory and appends it to the log in one write once the game has ended, so that several referees
+ * can share one recorder and the log only ever holds complete games. (ReplayArchiveWriter is a
+ * recorder that appends the records to the segments of a replay archive instead.)
+ */
+public class ReplayRecorder implements Closeable {
+  static final byte[] MAGIC = {'F', 'S', 'H', 'R'};
+  static final byte VERSION = 1;
+  static final int HEADER_LENGTH = MAGIC.length + 1;
+
+  static final int STEP_END = 0;
+  static final int STEP_PLACE = 1;
+  static final int STEP_MOVE = 2;
+  static final int STEP_PASS = 3;
+  static final int STEP_REMOVE = 4;
+
+  private final OutputStream out;
+
+  /**
+   * Creates a recorder appending to the replay log at the given path, creating the log (and
+   * writing its header) if it does not exist yet.
+   * @param file Path of the replay log.
+   * @throws IOException if the log cannot be opened or its header cannot be written.
+   */
+  public ReplayRecorder(Path file) throws IOException {
+    boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+    this.out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND));
+    if (fresh) {
+      writeHeader();
+    }
+  }
+
+  /**
+   * Creates a recorder writing a new replay log, header first, to the given stream.
+   * @param out The stream to write the log to.
+   * @throws IOException if the header cannot be written.
+   */
+  public ReplayRecorder(OutputStream out) throws IOException {
+    this.out = out;
+    writeHeader();
+  }
+
+  /**
+   * Creates a recorder that does not write to a stream of its own, for subclasses that store
+   * finished game records elsewhere by overriding append and close.
+   */
+  ReplayRecorder() {
+    this.out = null;
+  }
+
+  /**
+   * Writes the magic number and version of the replay log format.
+   * @throws IOException if writing fails.
+   */
+  private void writeHeader() throws IOException {
+    out.write(MAGIC);
+    out.write(VERSION);
+    out.flush();
+  }
+
+  /**
+   * Begins recording a game from the given state, which is copied, so the caller may keep
+   * modifying it.
+   * @param gameId The id of the game to record.
+   * @param initial The state of the game before the first recorded step.
+   * @return The recording to add the steps of the game to.
+   */
+  public GameRecording startGame(long gameId, GameState initial) {
+    return new GameRecording(this, gameId, initial);
+  }
+
+  /**
+   * Appends a finished game record to the log as a single length-prefixed write.
+   * @param record The buffer holding the record, positioned at its end.
+   * @throws IOException if writing fails.
+   */
+  synchronized void append(ByteBuffer record) throws IOException {
+    record.flip();
+    ByteBuffer length = ByteBuffer.allocate(VarInts.MAX_INT_BYTES);
+    VarInts.putVarInt(length, record.remaining());
+    out.write(length.array(), 0, length.position());
+    out.write(record.array(), record.arrayOffset(), record.remaining());
+    out.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    out.close();
+  }
+}
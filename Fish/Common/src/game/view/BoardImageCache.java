@@ -0,0 +1,149 @@
+package game.view;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import game.model.BoardPosition;
+import game.model.BoardSpace;
+import game.model.IBoard;
+import game.model.Tile;
+
+/**
+ * Offscreen image of a board of Fish, so that a view does not draw every tile on every repaint.
+ * The whole board is drawn into the image once, and the number of fish on every space is noted;
+ * after that, each update only redraws the spaces of tiles that have been removed since the last
+ * one, clearing the hexagon of the removed tile and redrawing the tiles around it that overlap it.
+ * Updates compare the fish on each space rather than the identity of the board, so a view of a
+ * game shown through a sequence of copies of its state (as from a SpectatorFeed) still only
+ * redraws what was removed. Tiles are only ever removed from a board during a game, so anything
+ * else (a board of another size, a different tile where there was one before) rebuilds the whole
+ * image.
+ *
+ * Penguins move every turn and are not part of the image; views draw them on top of it.
+ */
+public class BoardImageCache {
+  private static final double TILE_HEIGHTS_PER_ROW = 0.5;
+
+  private IBoard board;
+  private BufferedImage image;
+  private int[][] fish;
+
+  /**
+   * Gets the image of the given board, bringing it up to date first.
+   * @param b The board to get the image of.
+   * @return An image of the board, with a transparent background.
+   */
+  public BufferedImage getImage(IBoard b) {
+    if (fish == null || fish.length != b.getRows() || fish[0].length != b.getCols()) {
+      rebuild(b);
+      return image;
+    }
+    board = b;
+    Graphics2D g = null;
+    try {
+      for (int r = 0; r < fish.length; r++) {
+        for (int c = 0; c < fish[r].length; c++) {
+          int now = fishAt(b, r, c);
+          if (now == fish[r][c]) {
+            continue;
+          }
+          if (now != 0) {
+            rebuild(b);
+            return image;
+          }
+          if (g == null) {
+            g = image.createGraphics();
+          }
+          fish[r][c] = 0;
+          redrawAround(r, c, g);
+        }
+      }
+    } finally {
+      if (g != null) {
+        g.dispose();
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Gets the number of fish on a space of a board.
+   * @param b The board.
+   * @param r The row of the space.
+   * @param c The column of the space.
+   * @return The number of fish on the space, 0 for a hole.
+   */
+  private static int fishAt(IBoard b, int r, int c) {
+    BoardSpace space = b.getSpace(new BoardPosition(r, c));
+    return space.isHole() ? 0 : space.getNumFish();
+  }
+
+  /**
+   * Draws the whole of a board into a new image.
+   * @param b The board to draw.
+   */
+  private void rebuild(IBoard b) {
+    board = b;
+    image = new BufferedImage(imageWidth(b.getCols()), imageHeight(b.getRows()),
+            BufferedImage.TYPE_INT_ARGB);
+    fish = new int[b.getRows()][b.getCols()];
+    for (int r = 0; r < fish.length; r++) {
+      for (int c = 0; c < fish[r].length; c++) {
+        fish[r][c] = fishAt(b, r, c);
+      }
+    }
+    Graphics g = image.createGraphics();
+    b.render(g);
+    g.dispose();
+  }
+
+  /**
+   * Clears the hexagon of a removed tile and redraws the tiles that overlap it, in the same order
+   * as Board.render so that the pixels come out as a full redraw would leave them. Only tiles at
+   * most two rows and one column away can reach into the hexagon.
+   * @param row The row of the removed tile.
+   * @param col The column of the removed tile.
+   * @param g The graphics of the image.
+   */
+  private void redrawAround(int row, int col, Graphics2D g) {
+    int shiftRight = (int) (row % 2 * 2.0/3.0 * Tile.WIDTH);
+    int x = (int) (Tile.COLUMN_WIDTH * col + Tile.WIDTH/3.0 + shiftRight) + Tile.R_OFFSET;
+    int y = (int) (row / 2.0 * Tile.HEIGHT + Tile.D_OFFSET);
+    // One pixel more each way for the outline
+    g.setClip(x - Tile.WIDTH/3, y, Tile.WIDTH + 1, Tile.HEIGHT + 1);
+
+    g.setComposite(AlphaComposite.Clear);
+    g.fillRect(x - Tile.WIDTH/3, y, Tile.WIDTH + 1, Tile.HEIGHT + 1);
+    g.setComposite(AlphaComposite.SrcOver);
+
+    for (int r = Math.max(0, row - 2); r <= Math.min(fish.length - 1, row + 2); r++) {
+      for (int c = Math.max(0, col - 1); c <= Math.min(fish[r].length - 1, col + 1); c++) {
+        if (fish[r][c] != 0) {
+          BoardPosition p = new BoardPosition(r, c);
+          board.getSpace(p).render(p, g);
+        }
+      }
+    }
+    g.setClip(null);
+  }
+
+  /**
+   * Computes the width in pixels of a board with the given number of columns.
+   * @param cols The number of columns.
+   * @return The width of the board.
+   */
+  public static int imageWidth(int cols) {
+    return (int) (cols * Tile.COLUMN_WIDTH + Tile.R_OFFSET + Tile.WIDTH);
+  }
+
+  /**
+   * Computes the height in pixels of a board with the given number of rows.
+   * @param rows The number of rows.
+   * @return The height of the board.
+   */
+  public static int imageHeight(int rows) {
+    return (int) (TILE_HEIGHTS_PER_ROW * rows * Tile.HEIGHT + Tile.HEIGHT + Tile.D_OFFSET);
+  }
+}
@@ -1,8 +1,11 @@
 package game.view;
 
 import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
 
 import javax.swing.JFrame;
+import javax.swing.JScrollPane;
 
 import game.controller.FishController;
 import game.model.Tile;
@@ -16,6 +19,7 @@ public class FishFrame extends JFrame {
   private final int windowWidth;
   private final int windowHeight;
   private static final double TILE_HEIGHTS_PER_ROW = 0.5;
+  private static final int SCROLL_UNIT = Tile.HEIGHT / 4;
 
   /**
    * Constructs a new BoardFrame. The two integer values passed in are used to size the window based
@@ -33,12 +37,16 @@ public class FishFrame extends JFrame {
   }
 
   /**
-   * Adds a BoardPanel to the BoardFrame for display.
+   * Adds a BoardPanel to the BoardFrame for display, in a scroll pane for boards that do not fit
+   * on the screen.
    * @param bp BoardPanel to add that belongs to this BoardFrame
    */
   public void addPanel(FishPanel bp) {
     this.panel = bp;
-    this.add(bp);
+    JScrollPane scroll = new JScrollPane(bp);
+    scroll.getVerticalScrollBar().setUnitIncrement(SCROLL_UNIT);
+    scroll.getHorizontalScrollBar().setUnitIncrement(SCROLL_UNIT);
+    this.add(scroll);
   }
 
   /**
@@ -50,10 +58,12 @@ public class FishFrame extends JFrame {
   }
 
   /**
-   * Sets this BoardFrame as visible.
+   * Sets this BoardFrame as visible, sized to the board or to the screen if the board is larger.
    */
   public void display() {
-    this.setSize(new Dimension(windowWidth, windowHeight));
+    Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+    this.setSize(new Dimension(Math.min(windowWidth, screen.width),
+            Math.min(windowHeight, screen.height)));
     this.setVisible(true);
   }
 
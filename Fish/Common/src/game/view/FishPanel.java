@@ -1,25 +1,136 @@
 package game.view;
 
+import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Window;
+import java.awt.event.MouseWheelEvent;
 
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 
+import game.model.IBoard;
+import game.model.IState;
+
 /**
  * Class to represent the visual panel for a board of Fish.
+ * The panel can be zoomed in and out (control and the mouse wheel) and is meant to be shown in a
+ * scroll pane, so boards larger than the screen can be looked around. Only the tiles in view are
+ * drawn; when zoomed out far enough that the fish could not be made out, tiles are drawn as plain
+ * shapes colored by their number of fish instead.
+ * Boards small enough are drawn from an offscreen image that is only redrawn where tiles have been
+ * removed; penguins are drawn on top of the board on every repaint.
  * TODO: rework into a GamePanel
  */
 public class FishPanel extends JPanel {
+  public static final double MIN_ZOOM = 0.02;
+  public static final double MAX_ZOOM = 4;
+  public static final double ZOOM_STEP = 1.25;
+
+  /**
+   * The zoom below which tiles are drawn without their fish.
+   */
+  public static final double SIMPLIFIED_ZOOM = 0.3;
+
+  /**
+   * The largest board, in pixels at full size, that is drawn from an offscreen image; larger
+   * boards are drawn directly, tile by tile, so that only the part in view is drawn.
+   */
+  public static final long MAX_CACHED_PIXELS = 4096L * 4096L;
+
+  private final BoardImageCache boardImage = new BoardImageCache();
+  private double zoom = 1;
+
   /**
    * Creates a new BoardPanel, which determines size based on the board size.
    */
   public FishPanel() {
     JPanel panel = new JPanel();
+    addMouseWheelListener(this::mouseWheelMoved);
+  }
+
+  /**
+   * Gets the zoom of the panel.
+   * @return The factor the board is scaled by.
+   */
+  public double getZoom() {
+    return zoom;
+  }
+
+  /**
+   * Sets the zoom of the panel, keeping it between MIN_ZOOM and MAX_ZOOM.
+   * @param zoom The factor to scale the board by.
+   */
+  public void setZoom(double zoom) {
+    this.zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+    revalidate();
+    repaint();
+  }
+
+  /**
+   * Zooms on control and the mouse wheel, and passes any other turn of the wheel on to the
+   * scroll pane holding the panel.
+   * @param e The event of the wheel.
+   */
+  private void mouseWheelMoved(MouseWheelEvent e) {
+    if (e.isControlDown()) {
+      setZoom(zoom * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+    } else if (getParent() != null) {
+      getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+    }
+  }
+
+  @Override
+  public Dimension getPreferredSize() {
+    IState state = getState();
+    if (state == null) {
+      return super.getPreferredSize();
+    }
+    IBoard board = state.getBoard();
+    return new Dimension((int) Math.ceil(BoardImageCache.imageWidth(board.getCols()) * zoom),
+            (int) Math.ceil(BoardImageCache.imageHeight(board.getRows()) * zoom));
   }
 
   @Override
   protected void paintComponent(Graphics g) {
-    FishFrame frame = (FishFrame) SwingUtilities.windowForComponent(this);
-    frame.getController().getState().render(g);
+    super.paintComponent(g);
+    IState state = getState();
+    if (state == null) {
+      return;
+    }
+    IBoard board = state.getBoard();
+    Graphics2D g2 = (Graphics2D) g.create();
+    try {
+      if (zoom != 1) {
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2.scale(zoom, zoom);
+      }
+      long pixels = (long) BoardImageCache.imageWidth(board.getCols())
+              * BoardImageCache.imageHeight(board.getRows());
+      if (zoom < SIMPLIFIED_ZOOM) {
+        board.renderSimplified(g2);
+      } else if (pixels <= MAX_CACHED_PIXELS) {
+        g2.drawImage(boardImage.getImage(board), 0, 0, null);
+      } else {
+        board.render(g2);
+      }
+      state.renderPenguins(g2);
+    } finally {
+      g2.dispose();
+    }
+  }
+
+  /**
+   * Gets the state shown by the panel, through the controller of its frame.
+   * @return The state, or null if the panel is not yet in a frame with a controller.
+   */
+  private IState getState() {
+    Window window = SwingUtilities.windowForComponent(this);
+    if (!(window instanceof FishFrame) || ((FishFrame) window).getController() == null) {
+      return null;
+    }
+    return ((FishFrame) window).getController().getState();
   }
 }
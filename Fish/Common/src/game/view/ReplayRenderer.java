@@ -0,0 +1,279 @@
+package game.view;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import game.model.Action;
+import game.model.GameState;
+import game.replay.GameReplay;
+import game.replay.ReplayArchive;
+import game.replay.ReplayReader;
+
+/**
+ * Renders recorded games to PNG images without a display, for thumbnails and highlight reels of
+ * tournament games. Every state of a game is drawn with GameState.render into an offscreen image,
+ * scaled if asked to, and written as one PNG frame. Frames are rendered and encoded in parallel on
+ * a pool of threads while the games are replayed on the calling thread; only a few frames per
+ * thread are replayed ahead of the oldest unwritten one, so archives of any size render in bounded
+ * memory.
+ *
+ * Run as
+ *   java -cp ... game.view.ReplayRenderer [options] replay output-dir
+ * where replay is a replay log or a replay archive directory. The frames of each game are written
+ * to output-dir/index-id/frame-step.png, or with -final only the final state of each game is
+ * written, to output-dir/index-id.png, where index is the position of the game in the replay and
+ * id its game id; the index keeps games that share an id from overwriting each other's frames.
+ * The options are
+ *   -threads n    render on n threads (by default one per core)
+ *   -scale f      scale the images by the factor f (by default 1)
+ *   -final        only render the final state of every game
+ */
+public class ReplayRenderer {
+  /**
+   * The number of frames per thread replayed ahead of the oldest unwritten one.
+   */
+  public static final int FRAMES_PER_THREAD = 4;
+
+  private final double scale;
+  private final ExecutorService pool;
+  private final int maxPending;
+  private final Queue<Future<Void>> pending = new ArrayDeque<>();
+
+  /**
+   * Creates a renderer with its own pool of threads.
+   * @param scale The factor to scale the images by.
+   * @param threads The number of frames to render at once.
+   */
+  public ReplayRenderer(double scale, int threads) {
+    if (scale <= 0 || threads < 1) {
+      throw new IllegalArgumentException("Rendering needs a positive scale and a thread.");
+    }
+    this.scale = scale;
+    this.maxPending = threads * FRAMES_PER_THREAD;
+    this.pool = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = Executors.defaultThreadFactory().newThread(r);
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Draws a game state into a new image with a white background.
+   * @param state The state to draw.
+   * @param scale The factor to scale the image by.
+   * @return The image of the board and the penguins on it.
+   */
+  public static BufferedImage render(GameState state, double scale) {
+    int width = BoardImageCache.imageWidth(state.getBoard().getCols());
+    int height = BoardImageCache.imageHeight(state.getBoard().getRows());
+    BufferedImage image = new BufferedImage((int) Math.ceil(width * scale),
+            (int) Math.ceil(height * scale), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setColor(Color.WHITE);
+    g.fillRect(0, 0, image.getWidth(), image.getHeight());
+    if (scale != 1) {
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+              RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      g.scale(scale, scale);
+    }
+    state.render(g);
+    g.dispose();
+    return image;
+  }
+
+  /**
+   * Queues every state of a game to be rendered, as dir/frame-step.png with the step numbered
+   * from 0 for the initial state.
+   * @param replay The game to render.
+   * @param dir The directory to write the frames to; created if missing.
+   * @throws IOException if the directory cannot be created or an earlier frame failed.
+   * @throws InterruptedException if interrupted while waiting for earlier frames.
+   */
+  public void renderFrames(GameReplay replay, Path dir) throws IOException, InterruptedException {
+    Files.createDirectories(dir);
+    int digits = Integer.toString(replay.getSteps().size()).length();
+    GameState state = replay.getInitialState();
+    int step = 0;
+    submit(new GameState(state), dir.resolve(frameName(step, digits)));
+    for (Action a : replay.getSteps()) {
+      a.perform(state);
+      submit(new GameState(state), dir.resolve(frameName(++step, digits)));
+    }
+  }
+
+  /**
+   * Queues the final state of a game to be rendered.
+   * @param replay The game to render.
+   * @param file The PNG file to write.
+   * @throws IOException if an earlier frame failed.
+   * @throws InterruptedException if interrupted while waiting for earlier frames.
+   */
+  public void renderFinal(GameReplay replay, Path file) throws IOException, InterruptedException {
+    submit(replay.getState(replay.getSteps().size()), file);
+  }
+
+  /**
+   * Waits for every queued frame to be written and stops the threads.
+   * @throws IOException if a frame could not be rendered or written.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void finish() throws IOException, InterruptedException {
+    try {
+      while (!pending.isEmpty()) {
+        waitForOldest();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Queues one frame, first waiting for the oldest one if too many are queued.
+   * @param state The state to render, not shared with any other frame.
+   * @param file The PNG file to write.
+   * @throws IOException if an earlier frame failed.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  private void submit(GameState state, Path file) throws IOException, InterruptedException {
+    if (pending.size() >= maxPending) {
+      waitForOldest();
+    }
+    pending.add(pool.submit(() -> {
+      try {
+        if (!ImageIO.write(render(state, scale), "png", file.toFile())) {
+          throw new IOException("No PNG writer available.");
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot write " + file + ".", e);
+      }
+      return null;
+    }));
+  }
+
+  /**
+   * Waits for the oldest queued frame.
+   * @throws IOException if the frame could not be rendered or written.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  private void waitForOldest() throws IOException, InterruptedException {
+    try {
+      pending.remove().get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw new IOException("Cannot render frame.", e.getCause());
+    }
+  }
+
+  /**
+   * Names the frame of a step so that frames sort in step order.
+   * @param step The number of the step.
+   * @param digits The number of digits to pad the step to.
+   * @return The file name of the frame.
+   */
+  static String frameName(int step, int digits) {
+    return String.format("frame-%0" + digits + "d.png", step);
+  }
+
+  /**
+   * Names the output of a game after its position in the replay as well as its id, so that games
+   * with the same id, such as ones recorded by different processes, get outputs of their own.
+   * @param index The position of the game in the replay log or archive.
+   * @param gameId The id of the game.
+   * @return The name of the game's frame directory, or of its final frame without the extension.
+   */
+  static String gameName(int index, long gameId) {
+    return index + "-" + Long.toUnsignedString(gameId);
+  }
+
+  /**
+   * Renders the games of a replay log or archive; see the class description for the arguments.
+   * @param args The options, the replay and the output directory.
+   * @throws Exception if the replay cannot be read or the frames cannot be written.
+   */
+  public static void main(String[] args) throws Exception {
+    if (System.getProperty("java.awt.headless") == null) {
+      System.setProperty("java.awt.headless", "true");
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    double scale = 1;
+    boolean onlyFinal = false;
+    int i = 0;
+    for (; i < args.length && args[i].startsWith("-"); i++) {
+      switch (args[i]) {
+        case "-threads":
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "-scale":
+          scale = Double.parseDouble(args[++i]);
+          break;
+        case "-final":
+          onlyFinal = true;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+      }
+    }
+    if (args.length - i != 2) {
+      System.err.println("Usage: ReplayRenderer [-threads n] [-scale f] [-final] "
+              + "replay output-dir");
+      System.exit(2);
+    }
+    Path replay = Paths.get(args[i]);
+    Path out = Paths.get(args[i + 1]);
+    Files.createDirectories(out);
+
+    ReplayRenderer renderer = new ReplayRenderer(scale, threads);
+    long start = System.nanoTime();
+    int games = 0;
+    if (Files.isDirectory(replay)) {
+      ReplayArchive archive = ReplayArchive.open(replay);
+      for (; games < archive.size(); games++) {
+        renderer.renderGame(archive.getReplay(games), games, out, onlyFinal);
+      }
+    } else {
+      ReplayReader reader = ReplayReader.open(replay);
+      for (; reader.hasNext(); games++) {
+        renderer.renderGame(reader.next(), games, out, onlyFinal);
+      }
+    }
+    renderer.finish();
+    System.out.printf("Rendered %d games in %.2f s.%n", games, (System.nanoTime() - start) / 1e9);
+  }
+
+  /**
+   * Queues one game, named by its position and id in the output directory.
+   * @param replay The game to render.
+   * @param index The position of the game in the replay log or archive.
+   * @param out The output directory.
+   * @param onlyFinal Whether to render only the final state.
+   * @throws IOException if an earlier frame failed.
+   * @throws InterruptedException if interrupted while waiting for earlier frames.
+   */
+  private void renderGame(GameReplay replay, int index, Path out, boolean onlyFinal)
+          throws IOException, InterruptedException {
+    String name = gameName(index, replay.getGameId());
+    if (onlyFinal) {
+      renderFinal(replay, out.resolve(name + ".png"));
+    } else {
+      renderFrames(replay, out.resolve(name));
+    }
+  }
+}
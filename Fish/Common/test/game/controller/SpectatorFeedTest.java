@@ -0,0 +1,139 @@
+package game.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.Penguin;
+import game.model.Player;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for publishing game states to spectators.
+ */
+public class SpectatorFeedTest {
+  Player red;
+  GameState state;
+
+  @Before
+  public void setUp() {
+    red = new Player(9, Penguin.PenguinColor.RED);
+    Player white = new Player(12, Penguin.PenguinColor.WHITE);
+    state = new GameState(new HashSet<>(Arrays.asList(red, white)), new Board(4, 4, 2));
+  }
+
+  @Test
+  public void readsFramesInOrder() {
+    SpectatorFeed feed = new SpectatorFeed(4);
+    SpectatorFeed.Reader reader = feed.newReader();
+    assertNull(reader.poll());
+    feed.publish(state, false);
+    feed.publish(state, true);
+    SpectatorFeed.Frame first = reader.poll();
+    assertEquals(0, first.getSequence());
+    assertFalse(first.isLast());
+    SpectatorFeed.Frame second = reader.poll();
+    assertEquals(1, second.getSequence());
+    assertTrue(second.isLast());
+    assertNull(reader.poll());
+    assertEquals(0, reader.getSkipped());
+  }
+
+  @Test
+  public void framesAreSnapshots() {
+    SpectatorFeed feed = new SpectatorFeed();
+    feed.publish(state, false);
+    state.getBoard().removeTile(new BoardPosition(0, 0));
+    GameState published = feed.latest().getState();
+    assertNotSame(state, published);
+    assertFalse(published.getBoard().getSpace(new BoardPosition(0, 0)).isHole());
+  }
+
+  @Test
+  public void slowReaderSkipsOverwrittenFrames() {
+    SpectatorFeed feed = new SpectatorFeed(4);
+    SpectatorFeed.Reader reader = feed.newReader();
+    for (int i = 0; i < 10; i++) {
+      feed.publish(state, false);
+    }
+    assertEquals(6, reader.poll().getSequence());
+    assertEquals(6, reader.getSkipped());
+    assertEquals(7, reader.poll().getSequence());
+  }
+
+  @Test
+  public void pollLatestSkipsToNewest() {
+    SpectatorFeed feed = new SpectatorFeed(8);
+    SpectatorFeed.Reader reader = feed.newReader();
+    assertNull(reader.pollLatest());
+    for (int i = 0; i < 3; i++) {
+      feed.publish(state, false);
+    }
+    assertEquals(2, reader.pollLatest().getSequence());
+    assertEquals(2, reader.getSkipped());
+    assertNull(reader.pollLatest());
+    feed.publish(state, true);
+    assertTrue(reader.pollLatest().isLast());
+  }
+
+  @Test
+  public void lateReaderStartsAtOldestKept() {
+    SpectatorFeed feed = new SpectatorFeed(4);
+    assertNull(feed.latest());
+    for (int i = 0; i < 6; i++) {
+      feed.publish(state, false);
+    }
+    assertEquals(5, feed.latest().getSequence());
+    assertEquals(2, feed.newReader().poll().getSequence());
+  }
+
+  @Test(timeout = 20000)
+  public void readersKeepUpWithoutSlowingThePublisher() throws InterruptedException {
+    SpectatorFeed feed = new SpectatorFeed(16);
+    int frames = 20000;
+    AtomicReference<String> error = new AtomicReference<>();
+    Thread[] readers = new Thread[3];
+    for (int i = 0; i < readers.length; i++) {
+      SpectatorFeed.Reader reader = feed.newReader();
+      readers[i] = new Thread(() -> {
+        long last = -1;
+        long read = 0;
+        while (last < frames - 1) {
+          SpectatorFeed.Frame frame = reader.poll();
+          if (frame == null) {
+            Thread.yield();
+            continue;
+          }
+          if (frame.getSequence() <= last) {
+            error.set("Frame " + frame.getSequence() + " after " + last);
+          }
+          last = frame.getSequence();
+          read++;
+        }
+        if (read + reader.getSkipped() != frames) {
+          error.set("Read " + read + " and skipped " + reader.getSkipped());
+        }
+      });
+      readers[i].start();
+    }
+    for (int i = 0; i < frames; i++) {
+      feed.publish(state, i == frames - 1);
+    }
+    for (Thread t : readers) {
+      t.join();
+    }
+    assertNull(error.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void capacityIsAPowerOfTwo() {
+    new SpectatorFeed(12);
+  }
+}
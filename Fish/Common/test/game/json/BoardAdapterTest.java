@@ -0,0 +1,79 @@
+package game.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.JsonAdapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for reading and writing JSON Boards as grids of fish counts.
+ */
+public class BoardAdapterTest {
+  Gson gson = new Gson();
+
+  /**
+   * Stand-in for the harnesses' input classes.
+   */
+  static class Holder {
+    @JsonAdapter(BoardAdapter.class)
+    int[][] board;
+  }
+
+  @Test
+  public void readsRowsOfAnyLength() {
+    Holder h = gson.fromJson("{\"board\": [[1, 2, 3], [0], [], [5, 4, 3, 2, 1, 0, 1, 2, 3]]}",
+            Holder.class);
+    assertEquals(4, h.board.length);
+    assertArrayEquals(new int[] {1, 2, 3}, h.board[0]);
+    assertArrayEquals(new int[] {0}, h.board[1]);
+    assertArrayEquals(new int[] {}, h.board[2]);
+    assertArrayEquals(new int[] {5, 4, 3, 2, 1, 0, 1, 2, 3}, h.board[3]);
+  }
+
+  @Test
+  public void readsLargeBoards() {
+    StringBuilder json = new StringBuilder("{\"board\": [");
+    for (int i = 0; i < 100; i++) {
+      json.append(i == 0 ? "[" : ",[");
+      for (int j = 0; j < 50; j++) {
+        json.append(j == 0 ? "" : ",").append((i + j) % 6);
+      }
+      json.append(']');
+    }
+    json.append("]}");
+    int[][] board = gson.fromJson(json.toString(), Holder.class).board;
+    assertEquals(100, board.length);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(50, board[i].length);
+      for (int j = 0; j < 50; j++) {
+        assertEquals((i + j) % 6, board[i][j]);
+      }
+    }
+  }
+
+  @Test
+  public void writesRows() {
+    Holder h = new Holder();
+    h.board = new int[][] {{1, 0}, {3}};
+    assertEquals("{\"board\":[[1,0],[3]]}", gson.toJson(h));
+  }
+
+  @Test
+  public void roundTripsNull() {
+    assertNull(gson.fromJson("{\"board\": null}", Holder.class).board);
+    assertEquals("{}", gson.toJson(new Holder()));
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void rejectsFractionalCounts() {
+    gson.fromJson("{\"board\": [[1, 2.5]]}", Holder.class);
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void rejectsFlatArrays() {
+    gson.fromJson("{\"board\": [1, 2]}", Holder.class);
+  }
+}
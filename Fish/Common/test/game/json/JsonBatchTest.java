@@ -0,0 +1,83 @@
+package game.json;
+
+import com.google.gson.JsonParseException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for running harnesses over batches of cases.
+ */
+public class JsonBatchTest {
+  ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+  PrintStream out = new PrintStream(bytes, true);
+
+  /**
+   * Gets what the batch has written.
+   */
+  private String written() {
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8)
+            .replace(System.lineSeparator(), "\n");
+  }
+
+  @Test
+  public void resultsKeepInputOrder() throws InterruptedException {
+    StringBuilder input = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      input.append(i).append(' ');
+      expected.append(i * 2).append('\n');
+    }
+    // Earlier cases take longer, so they finish after later ones.
+    int failed = JsonBatch.run(new JsonInput(new StringReader(input.toString())), value -> {
+      int n = value.getAsInt();
+      try {
+        Thread.sleep((50 - n) % 5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Integer.toString(n * 2);
+    }, out, 4);
+    assertEquals(0, failed);
+    assertEquals(expected.toString(), written());
+  }
+
+  @Test
+  public void failedCaseWritesNull() throws InterruptedException {
+    int failed = JsonBatch.run(new JsonInput(new StringReader("1 0 2")), value -> {
+      if (value.getAsInt() == 0) {
+        throw new IllegalArgumentException("zero");
+      }
+      return value.toString();
+    }, out, 2);
+    assertEquals(1, failed);
+    assertEquals("1\nnull\n2\n", written());
+  }
+
+  @Test
+  public void malformedInputWritesEarlierResults() throws InterruptedException {
+    try {
+      JsonBatch.run(new JsonInput(new StringReader("[1] [2] [3")), Object::toString, out, 2);
+      fail("Expected the malformed case to be reported.");
+    } catch (JsonParseException e) {
+      assertEquals("[1]\n[2]\n", written());
+    }
+  }
+
+  @Test
+  public void emptyInputWritesNothing() throws InterruptedException {
+    assertEquals(0, JsonBatch.run(new JsonInput(new StringReader("")), Object::toString, out, 1));
+    assertEquals("", written());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void needsAThread() throws InterruptedException {
+    JsonBatch.run(new JsonInput(new StringReader("1")), Object::toString, out, 0);
+  }
+}
@@ -0,0 +1,90 @@
+package game.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for reading sequences of JSON values from streams.
+ */
+public class JsonInputTest {
+
+  /**
+   * Creates an input over the UTF-8 bytes of the given text.
+   */
+  private JsonInput input(String text) {
+    return new JsonInput(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void readsValuesInOrder() {
+    JsonInput in = input("1 \"two\"\n{\"three\": [3]}[4]true");
+    assertTrue(in.hasNext());
+    assertEquals(JsonParser.parseString("1"), in.next());
+    assertEquals(JsonParser.parseString("\"two\""), in.next());
+    assertEquals(JsonParser.parseString("{\"three\": [3]}"), in.next());
+    assertEquals(JsonParser.parseString("[4]"), in.next());
+    assertEquals(JsonParser.parseString("true"), in.next());
+    assertFalse(in.hasNext());
+  }
+
+  @Test
+  public void emptyInputHasNoValues() {
+    assertFalse(input("").hasNext());
+    assertFalse(input(" \n\t ").hasNext());
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void nextAfterEndThrows() {
+    JsonInput in = input("[]");
+    in.next();
+    in.next();
+  }
+
+  @Test
+  public void bindsValuesToTypes() {
+    Gson gson = new Gson();
+    JsonInput in = new JsonInput(new StringReader("[[1, 2], [3, 4]] [5]"));
+    int[][] rows = in.next(gson, int[][].class);
+    assertArrayEquals(new int[] {1, 2}, rows[0]);
+    assertArrayEquals(new int[] {3, 4}, rows[1]);
+    assertArrayEquals(new int[] {5}, in.next(gson, int[].class));
+    assertFalse(in.hasNext());
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void valueOfWrongTypeThrows() {
+    input("{\"a\": 1}").next(new Gson(), int[].class);
+  }
+
+  @Test
+  public void readsOnlyAsFarAsTheValue() throws IOException {
+    // A stream that fails if read past its first value, like a pipe still waiting for input.
+    byte[] first = "[1, 2, 3] ".getBytes(StandardCharsets.UTF_8);
+    InputStream in = new InputStream() {
+      private int pos = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (pos >= first.length) {
+          throw new IOException("Read past the first value.");
+        }
+        return first[pos++];
+      }
+    };
+    JsonElement value = new JsonInput(in).next();
+    assertEquals(3, value.getAsJsonArray().size());
+  }
+}
@@ -3,6 +3,8 @@ package game.model;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Base64;
 
@@ -103,4 +105,93 @@ public class BoardTest {
             positions2);
     assertEquals(0, positions3.size());
   }
-}
\ No newline at end of file
+
+  /**
+   * Renders the board into an image of the given size, clipped to the given rectangle if any.
+   */
+  private BufferedImage renderClipped(Board b, int width, int height, int[] clip,
+                                      boolean simplified) {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    if (clip != null) {
+      g.setClip(clip[0], clip[1], clip[2], clip[3]);
+    }
+    if (simplified) {
+      b.renderSimplified(g);
+    } else {
+      b.render(g);
+    }
+    g.dispose();
+    return image;
+  }
+
+  @Test
+  public void renderClipMatchesFullRender() {
+    Board b = new Board(9, 6, 3);
+    b.removeTile(new BoardPosition(4, 2));
+    int width = 900;
+    int height = 600;
+    BufferedImage full = renderClipped(b, width, height, null, false);
+    int[][] clips = {{0, 0, 50, 50}, {310, 205, 120, 90}, {600, 400, 300, 200},
+                     {133, 0, 1, height}, {0, 321, width, 1}};
+    for (int[] clip : clips) {
+      BufferedImage clipped = renderClipped(b, width, height, clip, false);
+      for (int y = clip[1]; y < clip[1] + clip[3]; y++) {
+        for (int x = clip[0]; x < clip[0] + clip[2]; x++) {
+          assertEquals("Pixel " + x + "," + y, full.getRGB(x, y), clipped.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void renderOnlyDrawsTilesInClip() {
+    Board huge = new Board(1000, 1000, 2);
+    BufferedImage image = renderClipped(huge, 400, 400, new int[] {0, 0, 400, 400}, false);
+    assertNotEquals(0, image.getRGB(150, 150));
+    renderClipped(huge, 400, 400, new int[] {0, 0, 400, 400}, true);
+  }
+
+  @Test
+  public void renderSimplifiedFillsTiles() {
+    BufferedImage image = renderClipped(uniform, 300, 200, null, true);
+    // The middle of tile (0, 0), where the detailed rendering draws fish
+    int rgb = image.getRGB(Tile.R_OFFSET + Tile.WIDTH / 2, Tile.D_OFFSET + Tile.HEIGHT / 2);
+    assertEquals(Tile.SIMPLIFIED_COLORS[4 - Board.MIN_FISH].getRGB(), rgb);
+
+    Board empty = new Board(1, 1, 1);
+    empty.removeTile(new BoardPosition(0, 0));
+    image = renderClipped(empty, 300, 200, null, true);
+    assertEquals(0, image.getRGB(Tile.R_OFFSET + Tile.WIDTH / 2, Tile.D_OFFSET + Tile.HEIGHT / 2));
+  }
+
+  @Test
+  public void getNeighbor() {
+    Board b = new Board(5, 3, 1);
+    BoardPosition even = new BoardPosition(2, 1);
+    assertEquals(new BoardPosition(0, 1), b.getNeighbor(even, 0));
+    assertEquals(new BoardPosition(4, 1), b.getNeighbor(even, 1));
+    assertEquals(new BoardPosition(1, 0), b.getNeighbor(even, 2));
+    assertEquals(new BoardPosition(1, 1), b.getNeighbor(even, 3));
+    assertEquals(new BoardPosition(3, 0), b.getNeighbor(even, 4));
+    assertEquals(new BoardPosition(3, 1), b.getNeighbor(even, 5));
+    BoardPosition odd = new BoardPosition(1, 2);
+    assertNull(b.getNeighbor(odd, 3));
+    assertEquals(new BoardPosition(0, 2), b.getNeighbor(odd, 2));
+    assertEquals(new BoardPosition(2, 2), b.getNeighbor(odd, 4));
+
+    // Following one direction traces the lines getValidMoves moves along
+    ArrayList<BoardPosition> traced = new ArrayList<>();
+    for (int d = 0; d < IBoard.DIRECTIONS; d++) {
+      for (BoardPosition p = b.getNeighbor(even, d); p != null; p = b.getNeighbor(p, d)) {
+        traced.add(p);
+      }
+    }
+    assertEquals(b.getValidMoves(even, new ArrayList<>()), traced);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getNeighborBadDirection() {
+    uniform.getNeighbor(new BoardPosition(0, 0), IBoard.DIRECTIONS);
+  }
+}
@@ -4,6 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.HashSet;
 
@@ -341,4 +342,77 @@ public class GameStateTest {
     // loop around
     assertEquals(p2, state2.getCurrentPlayer());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void removePlayerAfterCollectingFish() {
+    BoardPosition from = new BoardPosition(2, 2);
+    state2.placeAvatar(from, p3);
+    state2.moveAvatar(new BoardPosition(6, 2), from, p3);
+    state2.setNextPlayer();
+    assertEquals(p2, state2.getCurrentPlayer());
+    assertEquals(uniformNumFish, p3.getFish());
+
+    // An equal player from before the fish were collected still names the same player
+    state2.removePlayer(new Player(10, Penguin.PenguinColor.RED));
+    assertEquals(3, state2.getPlayers().size());
+    assertTrue(state2.getPenguins().isEmpty());
+    assertEquals(Arrays.asList(p2, p1, p4), state2.getTurnOrder());
+  }
+
+  @Test
+  public void turnOrderFromCurrentPlayer() {
+    assertEquals(Arrays.asList(p3, p2, p1, p4), state2.getTurnOrder());
+    state2.setNextPlayer();
+    state2.setNextPlayer();
+    assertEquals(Arrays.asList(p1, p4, p3, p2), state2.getTurnOrder());
+
+    GameState copy = new GameState(state2);
+    copy.removePlayer(p4);
+    assertEquals(Arrays.asList(p1, p3, p2), copy.getTurnOrder());
+    copy.setNextPlayer();
+    assertEquals(p3, copy.getCurrentPlayer());
+    assertEquals(Arrays.asList(p1, p4, p3, p2), state2.getTurnOrder());
+  }
+
+  @Test
+  public void penguinTables() {
+    BoardPosition a = new BoardPosition(2, 2);
+    BoardPosition b = new BoardPosition(3, 3);
+    BoardPosition c = new BoardPosition(5, 1);
+    state2.placeAvatar(a, p3);
+    state2.placeAvatar(b, p2);
+    state2.placeAvatar(c, p3);
+    assertEquals(3, state2.getPenguinCount());
+    assertEquals(2, state2.getPenguinCount(Penguin.PenguinColor.RED));
+    assertEquals(Arrays.asList(a, c), state2.getPenguinPositions(Penguin.PenguinColor.RED));
+
+    GameState copy = new GameState(state2);
+    BoardPosition to = new BoardPosition(6, 2);
+    state2.moveAvatar(to, a, p3);
+    assertEquals(Arrays.asList(to, c), state2.getPenguinPositions(Penguin.PenguinColor.RED));
+    assertFalse(state2.isPenguinAtPosn(a));
+    assertEquals(Penguin.PenguinColor.RED, state2.getPenguinAtPosn(to).getColor());
+    assertEquals(Arrays.asList(a, c), copy.getPenguinPositions(Penguin.PenguinColor.RED));
+    assertEquals(3, state2.getPenguins().size());
+
+    state2.removePlayer(p3);
+    assertEquals(1, state2.getPenguinCount());
+    assertFalse(state2.isPenguinAtPosn(to));
+    assertTrue(state2.getPenguinPositions(Penguin.PenguinColor.RED).isEmpty());
+    assertFalse(state2.isPenguinAtPosn(new BoardPosition(-1, 0)));
+  }
+
+  @Test
+  public void possibleActionsMatchValidMoves() {
+    BoardPosition from = new BoardPosition(3, 3);
+    BoardPosition blocker = new BoardPosition(5, 3);
+    state1.placeAvatar(from, p3);
+    state1.placeAvatar(blocker, p2);
+    ArrayList<Action> expected = new ArrayList<>();
+    for (BoardPosition to : holeBoard.getValidMoves(from,
+            new ArrayList<>(Arrays.asList(from, blocker)))) {
+      expected.add(new Move(to, from, p3));
+    }
+    assertEquals(expected, state1.getPossibleActions());
+  }
+}
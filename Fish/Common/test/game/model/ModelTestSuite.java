@@ -3,6 +3,15 @@ package game.model;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import game.controller.SpectatorFeedTest;
+import game.json.BoardAdapterTest;
+import game.json.JsonBatchTest;
+import game.json.JsonInputTest;
+import game.replay.ReplayArchiveTest;
+import game.replay.ReplayTest;
+import game.view.BoardImageCacheTest;
+import game.view.ReplayRendererTest;
+
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
         BoardPositionTest.class,
@@ -15,7 +24,16 @@ import org.junit.runners.Suite;
         GameStateTest.class,
         MoveTest.class,
         PassTest.class,
-        GameTreeTest.class
+        GameTreeTest.class,
+        RegionsTest.class,
+        ReplayTest.class,
+        ReplayArchiveTest.class,
+        JsonInputTest.class,
+        JsonBatchTest.class,
+        BoardAdapterTest.class,
+        BoardImageCacheTest.class,
+        ReplayRendererTest.class,
+        SpectatorFeedTest.class
 })
 
 public class ModelTestSuite {
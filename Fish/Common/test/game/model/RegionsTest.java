@@ -0,0 +1,62 @@
+package game.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Class to test the regions of a board.
+ */
+public class RegionsTest {
+  Board board;
+  Regions regions;
+
+  @Before
+  public void setUp() {
+    int[][] fish = {
+            {1, 0, 0},
+            {2, 0, 0},
+            {0, 0, 5},
+            {0, 0, 4}};
+    board = new Board(fish);
+    regions = new Regions(board);
+  }
+
+  @Test
+  public void splitByHoles() {
+    assertEquals(2, regions.count());
+    assertEquals(new HashSet<>(Arrays.asList(new BoardPosition(0, 0), new BoardPosition(1, 0))),
+            new HashSet<>(regions.getTiles(0)));
+    assertEquals(new HashSet<>(Arrays.asList(new BoardPosition(2, 2), new BoardPosition(3, 2))),
+            new HashSet<>(regions.getTiles(1)));
+    assertEquals(3, regions.getFish(0));
+    assertEquals(9, regions.getFish(1));
+  }
+
+  @Test
+  public void getRegion() {
+    assertEquals(0, regions.getRegion(new BoardPosition(1, 0)));
+    assertEquals(1, regions.getRegion(new BoardPosition(3, 2)));
+    assertEquals(-1, regions.getRegion(new BoardPosition(0, 1)));
+  }
+
+  @Test
+  public void removingTileSplitsRegion() {
+    Board line = new Board(new int[][] {{1}, {0}, {2}, {0}, {3}});
+    assertEquals(1, new Regions(line).count());
+    line.removeTile(new BoardPosition(2, 0));
+    Regions split = new Regions(line);
+    assertEquals(2, split.count());
+    assertEquals(1, split.getFish(split.getRegion(new BoardPosition(0, 0))));
+    assertEquals(3, split.getFish(split.getRegion(new BoardPosition(4, 0))));
+  }
+
+  @Test
+  public void allHoles() {
+    assertEquals(0, new Regions(new Board(new int[][] {{0, 0}, {0, 0}})).count());
+  }
+}
@@ -0,0 +1,140 @@
+package game.replay;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.Penguin;
+import game.model.Place;
+import game.model.Player;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for packing replays into a segmented archive and reading them back through its index.
+ */
+public class ReplayArchiveTest {
+  Player red;
+  Player white;
+  GameState state;
+  Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    red = new Player(9, Penguin.PenguinColor.RED);
+    white = new Player(12, Penguin.PenguinColor.WHITE);
+    int[][] fish = {{1, 2, 3}, {4, 0, 5}, {2, 2, 2}, {3, 1, 0}};
+    state = new GameState(new HashSet<>(Arrays.asList(red, white)), new Board(fish));
+    dir = Files.createTempDirectory("archive");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  /**
+   * Records a game with one placement, won by red, through the given recorder.
+   */
+  private void recordGame(ReplayRecorder recorder, long gameId) throws IOException {
+    GameRecording recording = recorder.startGame(gameId, state);
+    recording.recordAction(Penguin.PenguinColor.RED, new Place(new BoardPosition(0, 0), red));
+    recording.finish(Collections.singletonList(Penguin.PenguinColor.RED));
+  }
+
+  @Test
+  public void recordIntoSegments() throws IOException {
+    try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir, 40)) {
+      for (long id = 1; id <= 5; id++) {
+        recordGame(writer, id);
+      }
+    }
+    ReplayArchive archive = ReplayArchive.open(dir);
+    assertEquals(5, archive.size());
+    ArchiveEntry first = archive.getEntry(0);
+    ArchiveEntry last = archive.getEntry(4);
+    assertTrue(last.getSegment() > first.getSegment());
+    assertEquals(Arrays.asList(Penguin.PenguinColor.RED, Penguin.PenguinColor.WHITE),
+            first.getPlayers());
+    assertTrue(first.isWinner(Penguin.PenguinColor.RED));
+    assertFalse(first.isWinner(Penguin.PenguinColor.WHITE));
+    assertEquals(1, first.getSteps());
+
+    int i = archive.indexOf(4);
+    assertEquals(3, i);
+    GameReplay replay = archive.getReplay(i);
+    assertEquals(4, replay.getGameId());
+    assertTrue(replay.getState(1).isPenguinAtPosn(new BoardPosition(0, 0)));
+    assertEquals(-1, archive.indexOf(6));
+  }
+
+  @Test
+  public void addLogsAndReopen() throws IOException {
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+    try (ReplayRecorder recorder = new ReplayRecorder(log)) {
+      recordGame(recorder, 7);
+      recordGame(recorder, 3);
+    }
+    try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+      assertEquals(2, writer.addAll(new ReplayReader(ByteBuffer.wrap(log.toByteArray()))));
+    }
+    try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+      recordGame(writer, 5);
+    }
+
+    ReplayArchive archive = ReplayArchive.open(dir);
+    assertEquals(3, archive.size());
+    assertEquals(1, archive.indexOf(3));
+    assertEquals(2, archive.indexOf(5));
+    assertEquals(5, archive.getReplay(2).getGameId());
+    ReplayReader segment = ReplayReader.open(ReplayArchive.segmentPath(dir, 0));
+    assertEquals(7, segment.next().getGameId());
+  }
+
+  @Test
+  public void appendFromTwoSessions() throws IOException {
+    try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+      recordGame(writer, 1);
+      recordGame(writer, 2);
+    }
+    try (ReplayArchiveWriter writer = new ReplayArchiveWriter(dir)) {
+      try {
+        recordGame(writer, 2);
+        fail("An id from the earlier session was archived again.");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      recordGame(writer, 3);
+      try {
+        recordGame(writer, 3);
+        fail("An id from this session was archived again.");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+
+    ReplayArchive archive = ReplayArchive.open(dir);
+    assertEquals(3, archive.size());
+    for (int i = 0; i < archive.size(); i++) {
+      assertEquals(i + 1, archive.getGameId(i));
+      assertEquals(i, archive.indexOf(i + 1));
+      assertEquals(i + 1, archive.getReplay(i).getGameId());
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package game.replay;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import game.model.Action;
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.Move;
+import game.model.Pass;
+import game.model.Penguin;
+import game.model.Place;
+import game.model.Player;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for recording games to replay logs and reading them back.
+ */
+public class ReplayTest {
+  Player red;
+  Player white;
+  GameState state;
+
+  @Before
+  public void setUp() {
+    red = new Player(9, Penguin.PenguinColor.RED);
+    white = new Player(12, Penguin.PenguinColor.WHITE);
+    int[][] fish = {{1, 2, 3}, {4, 0, 5}, {2, 2, 2}, {3, 1, 0}};
+    state = new GameState(new HashSet<>(Arrays.asList(red, white)), new Board(fish));
+  }
+
+  /**
+   * Performs the action on the state and records it.
+   */
+  private void play(GameRecording recording, Action a, Player p) {
+    a.perform(state);
+    recording.recordAction(p.getColor(), a);
+  }
+
+  /**
+   * Records a short game (two placements each, one move, one pass, then a removal) into a
+   * replay log held in memory.
+   */
+  private byte[] recordGame(long gameId) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ReplayRecorder recorder = new ReplayRecorder(out);
+    GameRecording recording = recorder.startGame(gameId, state);
+    play(recording, new Place(new BoardPosition(0, 0), red), red);
+    play(recording, new Place(new BoardPosition(0, 2), white), white);
+    play(recording, new Place(new BoardPosition(1, 0), red), red);
+    play(recording, new Place(new BoardPosition(3, 0), white), white);
+    play(recording, new Move(new BoardPosition(2, 0), new BoardPosition(0, 0), red), red);
+    play(recording, new Pass(white), white);
+    recording.recordRemoval(Penguin.PenguinColor.WHITE);
+    recording.finish(Collections.singletonList(Penguin.PenguinColor.RED));
+    recorder.close();
+    return out.toByteArray();
+  }
+
+  @Test
+  public void roundTrip() throws IOException {
+    ReplayReader reader = new ReplayReader(ByteBuffer.wrap(recordGame(42)));
+    assertTrue(reader.hasNext());
+    GameReplay replay = reader.next();
+    assertFalse(reader.hasNext());
+
+    assertEquals(42, replay.getGameId());
+    assertEquals(Collections.singletonList(Penguin.PenguinColor.RED), replay.getWinners());
+    List<Action> steps = replay.getSteps();
+    assertEquals(7, steps.size());
+    assertEquals(new Removal(Penguin.PenguinColor.WHITE), steps.get(6));
+
+    GameState initial = replay.getInitialState();
+    assertEquals(0, initial.getPenguins().size());
+    assertEquals(Penguin.PenguinColor.RED, initial.getCurrentPlayer().getColor());
+    assertTrue(initial.getBoard().getSpace(new BoardPosition(1, 1)).isHole());
+    assertEquals(5, initial.getBoard().getSpace(new BoardPosition(1, 2)).getNumFish());
+
+    GameState afterMove = replay.getState(5);
+    assertTrue(afterMove.isPenguinAtPosn(new BoardPosition(2, 0)));
+    assertTrue(afterMove.getBoard().getSpace(new BoardPosition(0, 0)).isHole());
+    assertEquals(Penguin.PenguinColor.WHITE, afterMove.getCurrentPlayer().getColor());
+
+    List<GameState> states = replay.getStates();
+    assertEquals(8, states.size());
+    GameState last = states.get(7);
+    assertEquals(1, last.getPlayers().size());
+    assertEquals(1, last.getPlayers().iterator().next().getFish());
+    assertEquals(2, last.getPenguins().size());
+  }
+
+  @Test
+  public void appendToFile() throws IOException {
+    Path file = Files.createTempFile("replays", ".bin");
+    Files.delete(file);
+    try (ReplayRecorder recorder = new ReplayRecorder(file)) {
+      recorder.startGame(1, state).finish(Collections.emptyList());
+    }
+    try (ReplayRecorder recorder = new ReplayRecorder(file)) {
+      recorder.startGame(2, state).finish(Collections.emptyList());
+    }
+    ReplayReader reader = ReplayReader.open(file);
+    assertEquals(1, reader.next().getGameId());
+    assertEquals(2, reader.next().getGameId());
+    assertFalse(reader.hasNext());
+    Files.delete(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void notAReplayLog() {
+    new ReplayReader(ByteBuffer.wrap(new byte[] {'{', '"', 'a', '"', ':', '1', '}'}));
+  }
+}
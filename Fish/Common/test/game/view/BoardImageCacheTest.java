@@ -0,0 +1,89 @@
+package game.view;
+
+import org.junit.Test;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import game.model.Board;
+import game.model.BoardPosition;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the offscreen image of a board.
+ */
+public class BoardImageCacheTest {
+  BoardImageCache cache = new BoardImageCache();
+
+  /**
+   * Draws a board from scratch, the way the view did before the cache.
+   */
+  private BufferedImage fullRender(Board b) {
+    BufferedImage image = new BufferedImage(BoardImageCache.imageWidth(b.getCols()),
+            BoardImageCache.imageHeight(b.getRows()), BufferedImage.TYPE_INT_ARGB);
+    Graphics g = image.createGraphics();
+    b.render(g);
+    g.dispose();
+    return image;
+  }
+
+  /**
+   * Asserts that two images have the same size and the same pixels.
+   */
+  private void assertSameImage(BufferedImage expected, BufferedImage actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void firstImageIsFullRender() {
+    Board b = new Board(4, 3, new ArrayList<>(), 0);
+    assertSameImage(fullRender(b), cache.getImage(b));
+  }
+
+  @Test
+  public void removedTilesMatchFullRender() {
+    Board b = new Board(6, 4, 3);
+    BufferedImage image = cache.getImage(b);
+    b.removeTile(new BoardPosition(2, 1));
+    b.removeTile(new BoardPosition(3, 1));
+    b.removeTile(new BoardPosition(0, 0));
+    assertSame(image, cache.getImage(b));
+    assertSameImage(fullRender(b), image);
+
+    b.removeTile(new BoardPosition(5, 3));
+    b.removeTile(new BoardPosition(2, 2));
+    assertSameImage(fullRender(b), cache.getImage(b));
+  }
+
+  @Test
+  public void newBoardRebuilds() {
+    Board first = new Board(2, 2, 1);
+    BufferedImage image = cache.getImage(first);
+    Board second = new Board(3, 5, 2);
+    BufferedImage other = cache.getImage(second);
+    assertNotSame(image, other);
+    assertSameImage(fullRender(second), other);
+  }
+
+  @Test
+  public void copiesOfTheBoardOnlyRedrawRemovals() {
+    Board b = new Board(5, 4, 2);
+    BufferedImage image = cache.getImage(b);
+    Board copy = new Board(b);
+    copy.removeTile(new BoardPosition(1, 2));
+    assertSame(image, cache.getImage(copy));
+    assertSameImage(fullRender(copy), image);
+
+    // Only removals are redrawn; a copy with tiles back rebuilds the image
+    assertNotSame(image, cache.getImage(b));
+    assertSameImage(fullRender(b), cache.getImage(b));
+  }
+}
@@ -0,0 +1,118 @@
+package game.view;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import game.model.Action;
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.Move;
+import game.model.Penguin;
+import game.model.Place;
+import game.model.Player;
+import game.replay.GameReplay;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for rendering replays to PNG frames.
+ */
+public class ReplayRendererTest {
+  GameReplay replay;
+  Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    Player red = new Player(9, Penguin.PenguinColor.RED);
+    Player white = new Player(12, Penguin.PenguinColor.WHITE);
+    int[][] fish = {{1, 2, 3}, {4, 0, 5}, {2, 2, 2}, {3, 1, 0}};
+    GameState state = new GameState(new HashSet<>(Arrays.asList(red, white)), new Board(fish));
+    List<Action> steps = Arrays.asList(
+            new Place(new BoardPosition(0, 0), red),
+            new Place(new BoardPosition(0, 2), white),
+            new Move(new BoardPosition(2, 0), new BoardPosition(0, 0), red));
+    replay = new GameReplay(7, state, steps, Collections.singletonList(Penguin.PenguinColor.RED));
+    dir = Files.createTempDirectory("frames");
+  }
+
+  /**
+   * Asserts that two images have the same size and the same pixels.
+   */
+  private void assertSameImage(BufferedImage expected, BufferedImage actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void writesOneFramePerState() throws Exception {
+    ReplayRenderer renderer = new ReplayRenderer(1, 3);
+    renderer.renderFrames(replay, dir.resolve("7"));
+    renderer.finish();
+
+    List<String> names;
+    try (Stream<Path> files = Files.list(dir.resolve("7"))) {
+      names = files.map(p -> p.getFileName().toString()).sorted().collect(Collectors.toList());
+    }
+    assertEquals(Arrays.asList("frame-0.png", "frame-1.png", "frame-2.png", "frame-3.png"), names);
+    for (int step = 0; step <= 3; step++) {
+      BufferedImage frame = ImageIO.read(dir.resolve("7/frame-" + step + ".png").toFile());
+      assertSameImage(ReplayRenderer.render(replay.getState(step), 1), frame);
+    }
+  }
+
+  @Test
+  public void finalFrameIsScaled() throws Exception {
+    ReplayRenderer renderer = new ReplayRenderer(0.25, 1);
+    renderer.renderFinal(replay, dir.resolve("7.png"));
+    renderer.finish();
+
+    BufferedImage thumbnail = ImageIO.read(dir.resolve("7.png").toFile());
+    BufferedImage full = ReplayRenderer.render(replay.getState(3), 1);
+    assertEquals((int) Math.ceil(full.getWidth() * 0.25), thumbnail.getWidth());
+    assertEquals((int) Math.ceil(full.getHeight() * 0.25), thumbnail.getHeight());
+  }
+
+  @Test
+  public void framesSortInStepOrder() {
+    assertEquals("frame-007.png", ReplayRenderer.frameName(7, 3));
+    assertEquals("frame-120.png", ReplayRenderer.frameName(120, 3));
+  }
+
+  @Test
+  public void gamesWithSameIdGetOwnOutputs() {
+    assertEquals("0-7", ReplayRenderer.gameName(0, 7));
+    assertNotEquals(ReplayRenderer.gameName(0, 7), ReplayRenderer.gameName(1, 7));
+    assertEquals("3-18446744073709551615", ReplayRenderer.gameName(3, -1));
+  }
+
+  @Test(expected = IOException.class)
+  public void failedFrameIsReported() throws Exception {
+    ReplayRenderer renderer = new ReplayRenderer(1, 2);
+    renderer.renderFinal(replay, dir.resolve("missing/7.png"));
+    renderer.finish();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void needsAThread() {
+    new ReplayRenderer(1, 0);
+  }
+}
@@ -0,0 +1,299 @@
+package player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.model.Action;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.IBoard;
+import game.model.Move;
+import game.model.Penguin;
+import game.model.Regions;
+
+/**
+ * Exact search for a player whose penguins are all cut off from every other player's penguins.
+ *
+ * The tiles of a board fall into Regions, which holes separate from each other. A penguin only
+ * ever moves within its region, so once no region holding the player's penguins holds another
+ * player's penguin, nothing the other players do can change what the player collects. The minimax
+ * of Strategy then keeps searching the other players' moves to no effect; this solver searches
+ * only the player's own moves, one region at a time, with every region's results memoized by the
+ * tiles left in it and where the player's penguins stand (both as bit masks over the tiles of the
+ * region).
+ *
+ * The values it computes are the ones Strategy's minimax computes for the same number of turns:
+ * the most fish the player can collect in that many of its own turns (fewer if it runs out of
+ * moves first), across all of its regions.
+ */
+public class EndgameSolver {
+  /**
+   * The most tiles a region may have for the solver to handle it, one per bit of a mask.
+   */
+  public static final int MAX_REGION_TILES = Long.SIZE;
+
+  private final GameState state;
+  private final List<Region> regions;
+
+  /**
+   * Creates a solver over the given regions of the player's penguins.
+   * @param state The state to solve.
+   * @param regions The regions holding the current player's penguins.
+   */
+  private EndgameSolver(GameState state, List<Region> regions) {
+    this.state = state;
+    this.regions = regions;
+  }
+
+  /**
+   * Creates a solver for the current player of the given state, if the player's penguins are all
+   * cut off from the other players' penguins.
+   * @param state The state to solve.
+   * @return The solver, or null if a region holding a penguin of the current player also holds a
+   * penguin of another player or has more than MAX_REGION_TILES tiles.
+   */
+  public static EndgameSolver of(GameState state) {
+    IBoard board = state.getBoard();
+    Map<BoardPosition, Penguin> penguins = state.getPenguins();
+    Penguin.PenguinColor color = state.getCurrentPlayer().getColor();
+    Regions all = new Regions(board);
+    boolean[] mine = new boolean[all.count()];
+    for (Map.Entry<BoardPosition, Penguin> entry : penguins.entrySet()) {
+      if (entry.getValue().getColor() == color) {
+        mine[all.getRegion(entry.getKey())] = true;
+      }
+    }
+    for (Map.Entry<BoardPosition, Penguin> entry : penguins.entrySet()) {
+      if (entry.getValue().getColor() != color && mine[all.getRegion(entry.getKey())]) {
+        return null;
+      }
+    }
+
+    List<Region> regions = new ArrayList<>();
+    for (int id = 0; id < all.count(); id++) {
+      if (!mine[id]) {
+        continue;
+      }
+      if (all.getTiles(id).size() > MAX_REGION_TILES) {
+        return null;
+      }
+      regions.add(new Region(board, all.getTiles(id), penguins.keySet()));
+    }
+    return new EndgameSolver(state, regions);
+  }
+
+  /**
+   * Computes the value of each of the current player's moves, as Strategy's minimax would for the
+   * given number of turns: the fish on the tile the move leaves, plus the most fish the player can
+   * collect afterwards in one turn fewer.
+   * @param numTurns The number of the player's turns to look ahead, at least 1.
+   * @return The value of every move the player can make, empty if it can make none.
+   */
+  public HashMap<Action, Integer> actionValues(int numTurns) {
+    HashMap<Action, Integer> values = new HashMap<>();
+    for (Action a : state.getPossibleActions()) {
+      if (!(a instanceof Move)) {
+        continue;
+      }
+      Move m = (Move) a;
+      for (int i = 0; i < regions.size(); i++) {
+        Region region = regions.get(i);
+        int from = region.indexOf(m.getStart());
+        if (from < 0) {
+          continue;
+        }
+        int to = region.indexOf(m.getDestination());
+        long tiles = region.allTiles & ~(1L << from);
+        long penguins = (region.penguins & ~(1L << from)) | (1L << to);
+        int[][] best = new int[regions.size()][];
+        for (int j = 0; j < regions.size(); j++) {
+          best[j] = j == i
+                  ? region.bestByTurns(tiles, penguins, numTurns - 1)
+                  : regions.get(j).bestByTurns(regions.get(j).allTiles, regions.get(j).penguins,
+                          numTurns - 1);
+        }
+        values.put(a, region.fish[from] + combine(best, numTurns - 1));
+        break;
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Computes the most fish the player can collect in its current state within the given number of
+   * its turns, as Strategy's minimax would.
+   * @param numTurns The number of the player's turns to look ahead.
+   * @return The most fish the player can collect.
+   */
+  public int value(int numTurns) {
+    int[][] best = new int[regions.size()][];
+    for (int j = 0; j < regions.size(); j++) {
+      best[j] = regions.get(j).bestByTurns(regions.get(j).allTiles, regions.get(j).penguins,
+              numTurns);
+    }
+    return combine(best, numTurns);
+  }
+
+  /**
+   * Shares turns out between regions to collect the most fish in all of them together.
+   * @param best For each region, the most fish collectable in it in 0, 1, ... turns.
+   * @param turns The number of turns to share out.
+   * @return The most fish collectable in that many turns across the regions.
+   */
+  private static int combine(int[][] best, int turns) {
+    int[] total = new int[turns + 1];
+    for (int[] region : best) {
+      int[] next = new int[turns + 1];
+      for (int t = 0; t <= turns; t++) {
+        for (int k = 0; k <= t; k++) {
+          next[t] = Math.max(next[t], total[t - k] + region[k]);
+        }
+      }
+      total = next;
+    }
+    return total[turns];
+  }
+
+  /**
+   * A region of the board holding some of the player's penguins and no other player's. Its tiles
+   * are numbered in the order they were found, and each tile knows the tile next to it in every
+   * direction, so that the straight lines penguins move along can be followed without the board.
+   */
+  private static class Region {
+    private final BoardPosition[] tiles;
+    private final int[] fish;
+    private final int[][] neighbors;
+    private final long allTiles;
+    private final long penguins;
+    private final Map<BoardPosition, Integer> index = new HashMap<>();
+    private final Map<Key, Integer> memo = new HashMap<>();
+
+    /**
+     * Creates a region out of the given connected tiles.
+     * @param board The board the tiles are on.
+     * @param tiles The tiles of the region.
+     * @param occupied The positions of every penguin on the board.
+     */
+    Region(IBoard board, List<BoardPosition> tiles, Iterable<BoardPosition> occupied) {
+      this.tiles = tiles.toArray(new BoardPosition[0]);
+      this.fish = new int[this.tiles.length];
+      this.neighbors = new int[this.tiles.length][IBoard.DIRECTIONS];
+      for (int i = 0; i < this.tiles.length; i++) {
+        index.put(this.tiles[i], i);
+        fish[i] = board.getSpace(this.tiles[i]).getNumFish();
+      }
+      for (int i = 0; i < this.tiles.length; i++) {
+        for (int d = 0; d < IBoard.DIRECTIONS; d++) {
+          BoardPosition next = board.getNeighbor(this.tiles[i], d);
+          Integer j = next == null ? null : index.get(next);
+          neighbors[i][d] = j == null ? -1 : j;
+        }
+      }
+      this.allTiles = this.tiles.length == Long.SIZE ? -1L : (1L << this.tiles.length) - 1;
+      long mask = 0;
+      for (BoardPosition p : occupied) {
+        Integer i = index.get(p);
+        if (i != null) {
+          mask |= 1L << i;
+        }
+      }
+      this.penguins = mask;
+    }
+
+    /**
+     * Gets the number of a tile of this region.
+     * @param p The position of the tile.
+     * @return Its number, or -1 if the tile is not in this region.
+     */
+    int indexOf(BoardPosition p) {
+      Integer i = index.get(p);
+      return i == null ? -1 : i;
+    }
+
+    /**
+     * Computes the most fish collectable in this region in each number of turns up to a limit.
+     * @param tiles The tiles left in the region.
+     * @param penguins The tiles the player's penguins stand on.
+     * @param turns The most turns to consider.
+     * @return The most fish collectable in 0, 1, ... turns turns.
+     */
+    int[] bestByTurns(long tiles, long penguins, int turns) {
+      int[] best = new int[turns + 1];
+      for (int t = 1; t <= turns; t++) {
+        best[t] = best(tiles, penguins, t);
+      }
+      return best;
+    }
+
+    /**
+     * Computes the most fish collectable in this region in the given number of turns.
+     * @param tiles The tiles left in the region.
+     * @param penguins The tiles the player's penguins stand on.
+     * @param turns The number of turns.
+     * @return The most fish collectable, 0 if no penguin can move.
+     */
+    private int best(long tiles, long penguins, int turns) {
+      if (turns == 0 || penguins == 0) {
+        return 0;
+      }
+      Key key = new Key(tiles, penguins, turns);
+      Integer known = memo.get(key);
+      if (known != null) {
+        return known;
+      }
+      int best = 0;
+      for (long left = penguins; left != 0; left &= left - 1) {
+        int from = Long.numberOfTrailingZeros(left);
+        long tilesAfter = tiles & ~(1L << from);
+        long othersAfter = penguins & ~(1L << from);
+        for (int d = 0; d < IBoard.DIRECTIONS; d++) {
+          for (int to = neighbors[from][d];
+               to >= 0 && (tiles & (1L << to)) != 0 && (penguins & (1L << to)) == 0;
+               to = neighbors[to][d]) {
+            best = Math.max(best,
+                    fish[from] + best(tilesAfter, othersAfter | (1L << to), turns - 1));
+          }
+        }
+      }
+      memo.put(key, best);
+      return best;
+    }
+  }
+
+  /**
+   * The key of a memoized position of a region.
+   */
+  private static final class Key {
+    private final long tiles;
+    private final long penguins;
+    private final int turns;
+
+    /**
+     * Creates a key.
+     * @param tiles The tiles left in the region.
+     * @param penguins The tiles the player's penguins stand on.
+     * @param turns The number of turns left.
+     */
+    Key(long tiles, long penguins, int turns) {
+      this.tiles = tiles;
+      this.penguins = penguins;
+      this.turns = turns;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) obj;
+      return tiles == k.tiles && penguins == k.penguins && turns == k.turns;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(tiles * 31 + penguins) * 31 + turns;
+    }
+  }
+}
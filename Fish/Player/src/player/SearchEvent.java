@@ -0,0 +1,29 @@
+package player;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering a single minimax search of a Strategy
+ * (Strategy.getMinMaxAction), recording the searching player and how deep it looked ahead.
+ */
+@Name("fish.StrategySearch")
+@Label("Strategy Search")
+@Category({"Fish", "Player"})
+@Description("A minimax search for the next action of a player")
+class SearchEvent extends Event {
+
+  @Label("Player Color")
+  String playerColor;
+
+  @Label("Depth")
+  @Description("Number of the player's own turns looked ahead")
+  int depth;
+
+  @Label("Candidate Actions")
+  @Description("Number of actions available to the player at the root of the search")
+  int candidates;
+}
@@ -23,8 +23,30 @@ import game.model.Penguin;
  * turns to look ahead. A minimal maximum gain after N turns is the highest score a player can earn
  * after playing the specified number of turns if all other players pick one of the moves that
  * minimize the player's gain.
+ *
+ * Once the player's penguins are cut off from every other player's (see EndgameSolver), the other
+ * players' moves no longer matter to the player, and the same minimal maximum gains are computed
+ * by an exact search over the player's own moves instead, unless the Strategy was created
+ * without it.
  */
 public class Strategy implements IStrategy {
+  private final boolean solveEndgames;
+
+  /**
+   * Creates a Strategy that solves endgames with EndgameSolver.
+   */
+  public Strategy() {
+    this(true);
+  }
+
+  /**
+   * Creates a Strategy.
+   * @param solveEndgames Whether to use EndgameSolver once the player's penguins are cut off,
+   *                      rather than always searching every player's moves.
+   */
+  public Strategy(boolean solveEndgames) {
+    this.solveEndgames = solveEndgames;
+  }
 
   @Override
   public BoardPosition placePenguin(GameTreeNode gt) {
@@ -48,7 +70,16 @@ public class Strategy implements IStrategy {
       throw new IllegalArgumentException("Need to look ahead at least 1 turn.");
     }
 
+    SearchEvent event = new SearchEvent();
+    event.begin();
     HashMap<Action, Integer> actionToFish = fillActionToFish(gt, numTurns);
+    event.end();
+    if (event.shouldCommit()) {
+      event.playerColor = gt.getGameState().getCurrentPlayer().getColor().name();
+      event.depth = numTurns;
+      event.candidates = actionToFish.size();
+      event.commit();
+    }
     if (actionToFish.isEmpty()) {
       return new Pass(gt.getGameState().getCurrentPlayer());
     }
@@ -81,6 +112,13 @@ public class Strategy implements IStrategy {
       return actionToFish;
     }
 
+    if (solveEndgames) {
+      EndgameSolver solver = EndgameSolver.of(gs);
+      if (solver != null) {
+        return solver.actionValues(numTurns);
+      }
+    }
+
     for (Action a : actions) {
       int maxFish;
       Move m = (Move) a;
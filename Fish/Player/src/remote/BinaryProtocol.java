@@ -0,0 +1,186 @@
+package remote;
+
+import java.nio.ByteBuffer;
+
+import game.codec.StateCodec;
+import game.codec.VarInts;
+import game.model.Action;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.Move;
+import game.model.Pass;
+import game.model.Player;
+
+/**
+ * The binary messages exchanged with clients that signed up for the binary encoding, an
+ * alternative to the JSON messages of JsonProtocol (see Planning/remote.md). Every message is a
+ * frame: its length as 4 big-endian bytes, followed by that many bytes holding a type byte and the
+ * message's payload.
+ * - the informational messages TOURNAMENT_START, GAME_START, GAME_END and TOURNAMENT_END have no
+ * payload, and are acknowledged with a frame of the same type combined with ACK
+ * - a STATE, sent to request a placement or a turn, holds the state as encoded by StateCodec
+ * - a POSITION, answering a placement request, holds the row and column as varints
+ * - a MOVE, answering a turn request, holds the source row and column followed by the destination
+ * row and column, as varints; a PASS has no payload
+ *
+ * Frames are written into caller-provided buffers, which grow through VarInts.ensureRemaining,
+ * so a sender can reuse one buffer for every message.
+ */
+public final class BinaryProtocol {
+  public static final String BINARY = "binary";
+  public static final int LENGTH_BYTES = 4;
+
+  public static final byte TOURNAMENT_START = 1;
+  public static final byte GAME_START = 2;
+  public static final byte GAME_END = 3;
+  public static final byte TOURNAMENT_END = 4;
+  public static final byte ACK = 0x10;
+  public static final byte STATE = 5;
+  public static final byte POSITION = 6;
+  public static final byte MOVE = 7;
+  public static final byte PASS = 8;
+
+  private BinaryProtocol() {
+  }
+
+  /**
+   * Writes a frame without payload, such as an informational message or its acknowledgement.
+   * @param type The type of the message.
+   * @param buf The buffer to write to.
+   * @return The buffer written to, which is a larger copy of buf if buf did not have room.
+   */
+  public static ByteBuffer writeMessage(byte type, ByteBuffer buf) {
+    buf = VarInts.ensureRemaining(buf, LENGTH_BYTES + 1);
+    buf.putInt(1);
+    buf.put(type);
+    return buf;
+  }
+
+  /**
+   * Writes a STATE frame.
+   * @param gs The state to send.
+   * @param buf The buffer to write to.
+   * @return The buffer written to, which is a larger copy of buf if buf did not have room.
+   */
+  public static ByteBuffer writeState(GameState gs, ByteBuffer buf) {
+    buf = VarInts.ensureRemaining(buf, LENGTH_BYTES + 1 + StateCodec.maxEncodedSize(gs));
+    int start = buf.position();
+    buf.position(start + LENGTH_BYTES);
+    buf.put(STATE);
+    StateCodec.encode(gs, buf);
+    buf.putInt(start, buf.position() - start - LENGTH_BYTES);
+    return buf;
+  }
+
+  /**
+   * Writes a POSITION frame.
+   * @param bp The position to send.
+   * @param buf The buffer to write to.
+   * @return The buffer written to, which is a larger copy of buf if buf did not have room.
+   */
+  public static ByteBuffer writePosition(BoardPosition bp, ByteBuffer buf) {
+    int length = 1 + VarInts.sizeOf(bp.getRow()) + VarInts.sizeOf(bp.getCol());
+    buf = VarInts.ensureRemaining(buf, LENGTH_BYTES + length);
+    buf.putInt(length);
+    buf.put(POSITION);
+    VarInts.putVarInt(buf, bp.getRow());
+    VarInts.putVarInt(buf, bp.getCol());
+    return buf;
+  }
+
+  /**
+   * Writes a MOVE or PASS frame.
+   * @param a The action to send.
+   * @param buf The buffer to write to.
+   * @return The buffer written to, which is a larger copy of buf if buf did not have room.
+   * @throws IllegalArgumentException if the action is neither a Move nor a Pass.
+   */
+  public static ByteBuffer writeAction(Action a, ByteBuffer buf) {
+    if (a instanceof Pass) {
+      return writeMessage(PASS, buf);
+    }
+    else if (a instanceof Move) {
+      Move m = (Move) a;
+      BoardPosition from = m.getStart();
+      BoardPosition to = m.getDestination();
+      int length = 1 + VarInts.sizeOf(from.getRow()) + VarInts.sizeOf(from.getCol())
+              + VarInts.sizeOf(to.getRow()) + VarInts.sizeOf(to.getCol());
+      buf = VarInts.ensureRemaining(buf, LENGTH_BYTES + length);
+      buf.putInt(length);
+      buf.put(MOVE);
+      VarInts.putVarInt(buf, from.getRow());
+      VarInts.putVarInt(buf, from.getCol());
+      VarInts.putVarInt(buf, to.getRow());
+      VarInts.putVarInt(buf, to.getCol());
+      return buf;
+    }
+    throw new IllegalArgumentException("Only moves and passes can be sent as actions.");
+  }
+
+  /**
+   * Reads the state of a STATE message.
+   * @param message The message, without its length, positioned at its type.
+   * @return The state it holds.
+   * @throws IllegalArgumentException if the message is not a STATE.
+   */
+  public static GameState readState(ByteBuffer message) {
+    expectType(message, STATE);
+    return StateCodec.decode(message);
+  }
+
+  /**
+   * Reads the position of a POSITION message.
+   * @param message The message, without its length, positioned at its type.
+   * @return The position it holds.
+   * @throws IllegalArgumentException if the message is not a POSITION.
+   */
+  public static BoardPosition readPosition(ByteBuffer message) {
+    expectType(message, POSITION);
+    BoardPosition bp = new BoardPosition(VarInts.getVarInt(message), VarInts.getVarInt(message));
+    expectEnd(message);
+    return bp;
+  }
+
+  /**
+   * Reads the action of a MOVE or PASS message taken by the given player.
+   * @param message The message, without its length, positioned at its type.
+   * @param p The player taking the action.
+   * @return A Pass for a PASS message, else the Move it describes.
+   * @throws IllegalArgumentException if the message is neither a MOVE nor a PASS.
+   */
+  public static Action readAction(ByteBuffer message, Player p) {
+    if (message.hasRemaining() && message.get(message.position()) == PASS) {
+      expectType(message, PASS);
+      expectEnd(message);
+      return new Pass(p);
+    }
+    expectType(message, MOVE);
+    BoardPosition from = new BoardPosition(VarInts.getVarInt(message), VarInts.getVarInt(message));
+    BoardPosition to = new BoardPosition(VarInts.getVarInt(message), VarInts.getVarInt(message));
+    expectEnd(message);
+    return new Move(to, from, p);
+  }
+
+  /**
+   * Reads the type of a message and checks it.
+   * @param message The message, positioned at its type.
+   * @param type The expected type.
+   * @throws IllegalArgumentException if the message has another type.
+   */
+  static void expectType(ByteBuffer message, byte type) {
+    if (!message.hasRemaining() || message.get() != type) {
+      throw new IllegalArgumentException("Expected a message of type " + type + ".");
+    }
+  }
+
+  /**
+   * Checks that a message has been read completely.
+   * @param message The message.
+   * @throws IllegalArgumentException if bytes are left in the message.
+   */
+  private static void expectEnd(ByteBuffer message) {
+    if (message.hasRemaining()) {
+      throw new IllegalArgumentException("Unexpected bytes at the end of a message.");
+    }
+  }
+}
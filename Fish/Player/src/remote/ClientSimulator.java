@@ -0,0 +1,232 @@
+package remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for many external clients, used to load-test a PlayerServer and everything behind it
+ * on one machine. Every simulated client has its own loopback connection and speaks the JSON
+ * protocol of Planning/remote.md, but all of them share one EventLoop for their sockets and a
+ * small pool of worker threads for thinking, so thousands of clients cost a few threads.
+ *
+ * How the clients behave is configured before they connect: the time they think before every
+ * answer (plus a random jitter), the strategies they play with (assigned to clients in turn) and
+ * the rate at which they fail instead of answering a request, by going silent, answering with
+ * garbage or disconnecting. All random decisions derive from the simulator's seed.
+ */
+public class ClientSimulator implements Closeable {
+  public static final int MINIMAX_DEPTH = 2;
+
+  private final int port;
+  private final EventLoop loop;
+  private final ScheduledExecutorService workers;
+  private final Random rng;
+  private final List<SimulatedClient> clients;
+  private final AtomicLong answered;
+  private final AtomicLong failures;
+  private List<Strategy> strategies;
+  private volatile long thinkMillis;
+  private volatile long jitterMillis;
+  private volatile double failureRate;
+
+  /**
+   * The strategies simulated clients play with when asked for a turn. Placements always follow
+   * the zig zag placement of player.Strategy.
+   */
+  public enum Strategy {
+    /** Takes the first legal action. */
+    FIRST,
+    /** Takes a random legal action. */
+    RANDOM,
+    /** Takes the minimax action of player.Strategy, looking MINIMAX_DEPTH turns ahead. */
+    MINIMAX
+  }
+
+  /**
+   * Creates a simulator for clients of the server on the given local port, with clients that
+   * answer at once, play FIRST and never fail until configured otherwise.
+   * @param port The port of the PlayerServer on this machine.
+   * @param threads The number of worker threads computing the clients' answers.
+   * @param seed The seed of all random decisions of the clients.
+   * @throws IOException if the event loop cannot be started.
+   */
+  public ClientSimulator(int port, int threads, long seed) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("A client simulator needs at least one worker thread.");
+    }
+    this.port = port;
+    this.loop = new EventLoop("client-simulator");
+    ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(threads, r -> {
+      Thread t = Executors.defaultThreadFactory().newThread(r);
+      t.setDaemon(true);
+      return t;
+    });
+    pool.setRemoveOnCancelPolicy(true);
+    this.workers = pool;
+    this.rng = new Random(seed);
+    this.clients = Collections.synchronizedList(new ArrayList<>());
+    this.answered = new AtomicLong();
+    this.failures = new AtomicLong();
+    this.strategies = Collections.singletonList(Strategy.FIRST);
+  }
+
+  /**
+   * Sets how long clients think before every answer.
+   * @param thinkMillis The time every answer takes at least.
+   * @param jitterMillis The largest random time added to it.
+   */
+  public void setThinkTime(long thinkMillis, long jitterMillis) {
+    if (thinkMillis < 0 || jitterMillis < 0) {
+      throw new IllegalArgumentException("Think times cannot be negative.");
+    }
+    this.thinkMillis = thinkMillis;
+    this.jitterMillis = jitterMillis;
+  }
+
+  /**
+   * Sets the strategies of the clients connected from now on, which are assigned to them in turn.
+   * @param strategies The strategies, at least one.
+   */
+  public void setStrategies(List<Strategy> strategies) {
+    if (strategies.isEmpty()) {
+      throw new IllegalArgumentException("Clients need at least one strategy.");
+    }
+    this.strategies = new ArrayList<>(strategies);
+  }
+
+  /**
+   * Sets the probability with which a client fails instead of answering any one request.
+   * @param failureRate The probability, between 0 and 1.
+   */
+  public void setFailureRate(double failureRate) {
+    if (failureRate < 0 || failureRate > 1) {
+      throw new IllegalArgumentException("A failure rate is a probability.");
+    }
+    this.failureRate = failureRate;
+  }
+
+  /**
+   * Connects the given number of clients to the server, each signing up as soon as it is
+   * connected. Clients are named "sim-" followed by their number, counting from 0 across calls.
+   * @param count The number of clients to connect.
+   * @throws IOException if a client cannot connect.
+   */
+  public void connect(int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      int number = clients.size();
+      SimulatedClient client = new SimulatedClient(this, channel, "sim-" + number,
+              strategies.get(number % strategies.size()), rng.nextLong());
+      clients.add(client);
+      loop.execute(client::register);
+    }
+  }
+
+  /**
+   * Gets the number of requests the clients have answered.
+   * @return The number of answers sent.
+   */
+  public long getRequestsAnswered() {
+    return answered.get();
+  }
+
+  /**
+   * Gets the number of failures the clients have staged.
+   * @return The number of requests failed on purpose.
+   */
+  public long getFailuresInjected() {
+    return failures.get();
+  }
+
+  /**
+   * Gets the names of the clients that have not failed.
+   * @return The names, in the order the clients connected.
+   */
+  public List<String> getHealthyClients() {
+    List<String> names = new ArrayList<>();
+    synchronized (clients) {
+      for (SimulatedClient client : clients) {
+        if (client.isHealthy()) {
+          names.add(client.getName());
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Disconnects every client and stops the simulator's threads.
+   */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+    loop.close();
+  }
+
+  /**
+   * Counts an answer sent by a client.
+   */
+  void answered() {
+    answered.incrementAndGet();
+  }
+
+  /**
+   * Counts a failure staged by a client.
+   */
+  void failed() {
+    failures.incrementAndGet();
+  }
+
+  /**
+   * Gets the loop the clients' sockets are handled on.
+   * @return The event loop.
+   */
+  EventLoop getLoop() {
+    return loop;
+  }
+
+  /**
+   * Gets the threads the clients compute their answers on.
+   * @return The worker pool.
+   */
+  ScheduledExecutorService getWorkers() {
+    return workers;
+  }
+
+  /**
+   * Gets the time every answer takes at least.
+   * @return The think time in milliseconds.
+   */
+  long getThinkMillis() {
+    return thinkMillis;
+  }
+
+  /**
+   * Gets the largest random time added to the think time.
+   * @return The jitter in milliseconds.
+   */
+  long getJitterMillis() {
+    return jitterMillis;
+  }
+
+  /**
+   * Gets the probability with which a client fails instead of answering a request.
+   * @return The failure rate.
+   */
+  double getFailureRate() {
+    return failureRate;
+  }
+}
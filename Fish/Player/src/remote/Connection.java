@@ -0,0 +1,314 @@
+package remote;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The server side of one client's connection, owned by an EventLoop. Messages are single-line
+ * JSON values terminated by a newline. The first message of a client signs it up with the
+ * PlayerServer; after that the client may only answer requests, one at a time, within the
+ * request's deadline. Any other message, a missed deadline or an I/O error closes the connection,
+ * since a late or unsolicited answer could otherwise be taken for the answer to a later request.
+ *
+ * Clients that signed up for the binary encoding switch the connection to length-prefixed frames
+ * (see BinaryProtocol) after their sign-up; messages are then the bytes of a frame after its
+ * length.
+ *
+ * Incoming bytes are collected in a per-connection buffer that grows (up to MAX_MESSAGE_LENGTH)
+ * to fit the longest message seen; outgoing messages are queued and written as the channel
+ * accepts them, so no thread ever blocks on a slow client.
+ */
+class Connection implements EventLoop.Handler {
+  static final int MAX_MESSAGE_LENGTH = 1 << 20;
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  private final SocketChannel channel;
+  private final EventLoop loop;
+  private final PlayerServer server;
+  private final Queue<ByteBuffer> out;
+  private final AtomicReference<CompletableFuture<ByteBuffer>> pending;
+  private SelectionKey key;
+  private ByteBuffer in;
+  private boolean signedUp;
+  private boolean frames;
+  private volatile boolean closed;
+
+  /**
+   * Creates the connection of a newly accepted client, to be registered with its loop.
+   * @param channel The non-blocking channel of the client.
+   * @param loop The event loop handling the channel.
+   * @param server The server the client signs up with.
+   */
+  Connection(SocketChannel channel, EventLoop loop, PlayerServer server) {
+    this.channel = channel;
+    this.loop = loop;
+    this.server = server;
+    this.out = new ConcurrentLinkedQueue<>();
+    this.pending = new AtomicReference<>();
+    this.in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+  }
+
+  /**
+   * Registers the channel with the loop for reading. Runs on the loop thread.
+   */
+  void register() {
+    try {
+      key = loop.register(channel, SelectionKey.OP_READ, this);
+    } catch (ClosedChannelException e) {
+      close();
+    }
+  }
+
+  /**
+   * Switches the connection to length-prefixed frames for all later messages, in both directions.
+   * Runs on the loop thread.
+   */
+  void useFrames() {
+    frames = true;
+  }
+
+  /**
+   * Sends a request to the client and returns the client's answer once it arrives. Never blocks.
+   * @param message The request, a single-line JSON value.
+   * @param timeoutMillis The time the client has to answer, after which the returned future fails
+   *                      with a TimeoutException and the connection is closed.
+   * @return A future completed with the answer, or failing if there is no valid answer in time or
+   * another request is still awaiting its answer.
+   */
+  CompletableFuture<String> request(String message, long timeoutMillis) {
+    return request(ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8)),
+            timeoutMillis).thenApply(answer -> StandardCharsets.UTF_8.decode(answer).toString());
+  }
+
+  /**
+   * Sends a request to the client and returns the client's answer once it arrives. Never blocks.
+   * @param message The request, a complete frame or newline-terminated line, which must not be
+   *                changed until the answer arrives.
+   * @param timeoutMillis The time the client has to answer, after which the returned future fails
+   *                      with a TimeoutException and the connection is closed.
+   * @return A future completed with the bytes of the answer, or failing if there is no valid
+   * answer in time or another request is still awaiting its answer.
+   */
+  CompletableFuture<ByteBuffer> request(ByteBuffer message, long timeoutMillis) {
+    CompletableFuture<ByteBuffer> response = new CompletableFuture<>();
+    if (!pending.compareAndSet(null, response)) {
+      response.completeExceptionally(
+              new IllegalStateException("Another request is awaiting an answer."));
+      return response;
+    }
+    if (closed) {
+      pending.compareAndSet(response, null);
+      response.completeExceptionally(new IOException("Connection is closed."));
+      return response;
+    }
+    // orTimeout cancels its timer once the answer arrives, so answered requests leave nothing
+    // scheduled behind them; the caller only sees a timeout once the connection is closed
+    CompletableFuture<ByteBuffer> answer = new CompletableFuture<>();
+    response.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((bytes, e) -> {
+      if (e == null) {
+        answer.complete(bytes);
+        return;
+      }
+      if (e instanceof TimeoutException && pending.compareAndSet(response, null)) {
+        close();
+      }
+      answer.completeExceptionally(e);
+    });
+    send(message);
+    return answer;
+  }
+
+  /**
+   * Queues a message to be written to the client. May be called from any thread.
+   * @param message The message, a single-line JSON value.
+   */
+  void send(String message) {
+    send(ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Queues bytes to be written to the client. May be called from any thread.
+   * @param message The bytes to write, which must not be changed until they have been written.
+   */
+  private void send(ByteBuffer message) {
+    out.add(message);
+    loop.execute(this::flush);
+  }
+
+  @Override
+  public void handle(SelectionKey key) {
+    if (key.isWritable()) {
+      flush();
+    }
+    if (key.isValid() && key.isReadable()) {
+      read();
+    }
+  }
+
+  @Override
+  public void abandon(SelectionKey key) {
+    key.cancel();
+    close();
+  }
+
+  /**
+   * Writes as much of the queued output as the channel accepts, selecting the channel for writing
+   * while any is left. Runs on the loop thread.
+   */
+  private void flush() {
+    if (closed || key == null) {
+      return;
+    }
+    try {
+      ByteBuffer buf;
+      while ((buf = out.peek()) != null) {
+        channel.write(buf);
+        if (buf.hasRemaining()) {
+          key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+          return;
+        }
+        out.poll();
+      }
+      key.interestOps(SelectionKey.OP_READ);
+    } catch (IOException e) {
+      close();
+    }
+  }
+
+  /**
+   * Reads what the client has sent and handles every complete message in it. Runs on the loop
+   * thread.
+   */
+  private void read() {
+    try {
+      if (channel.read(in) < 0) {
+        close();
+        return;
+      }
+    } catch (IOException e) {
+      close();
+      return;
+    }
+    int start = 0;
+    int next;
+    while (!closed && (next = frames ? readFrame(start) : readLine(start)) > start) {
+      start = next;
+    }
+    in.flip();
+    in.position(start);
+    in.compact();
+    if (!in.hasRemaining()) {
+      if (in.capacity() >= MAX_MESSAGE_LENGTH) {
+        close();
+        return;
+      }
+      ByteBuffer bigger = ByteBuffer.allocate(Math.min(in.capacity() * 2, MAX_MESSAGE_LENGTH));
+      in.flip();
+      bigger.put(in);
+      in = bigger;
+    }
+  }
+
+  /**
+   * Handles the line starting at the given index of the read buffer, if it is complete.
+   * @param start The index of the first byte of the line.
+   * @return The index after the line's newline, or start if the line is not complete yet.
+   */
+  private int readLine(int start) {
+    for (int i = start; i < in.position(); i++) {
+      if (in.get(i) == '\n') {
+        String line = new String(in.array(), start, i - start, StandardCharsets.UTF_8).trim();
+        if (!line.isEmpty()) {
+          onMessage(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+        }
+        return i + 1;
+      }
+    }
+    return start;
+  }
+
+  /**
+   * Handles the frame starting at the given index of the read buffer, if it is complete. Closes
+   * the connection if the frame's length is out of range.
+   * @param start The index of the first byte of the frame's length.
+   * @return The index after the frame, or start if the frame is not complete yet.
+   */
+  private int readFrame(int start) {
+    if (in.position() - start < BinaryProtocol.LENGTH_BYTES) {
+      return start;
+    }
+    int length = in.getInt(start);
+    if (length < 1 || length > MAX_MESSAGE_LENGTH - BinaryProtocol.LENGTH_BYTES) {
+      close();
+      return start;
+    }
+    int from = start + BinaryProtocol.LENGTH_BYTES;
+    if (in.position() - from < length) {
+      return start;
+    }
+    onMessage(ByteBuffer.wrap(Arrays.copyOfRange(in.array(), from, from + length)));
+    return from + length;
+  }
+
+  /**
+   * Handles a complete message from the client: a sign-up, or the answer to the pending request.
+   * @param message The message, without its newline or length.
+   */
+  private void onMessage(ByteBuffer message) {
+    if (!signedUp) {
+      signedUp = true;
+      server.signUp(this, StandardCharsets.UTF_8.decode(message).toString());
+      return;
+    }
+    CompletableFuture<ByteBuffer> response = pending.getAndSet(null);
+    if (response == null) {
+      close();
+      return;
+    }
+    response.complete(message);
+  }
+
+  /**
+   * Checks whether the connection is still open.
+   * @return True if the connection has not been closed, else false.
+   */
+  boolean isOpen() {
+    return !closed;
+  }
+
+  /**
+   * Closes the connection, failing the pending request if there is one. May be called from any
+   * thread.
+   */
+  void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    CompletableFuture<ByteBuffer> response = pending.getAndSet(null);
+    if (response != null) {
+      response.completeExceptionally(new IOException("Connection closed."));
+    }
+    loop.execute(() -> {
+      if (key != null) {
+        key.cancel();
+      }
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // The connection is being abandoned either way.
+      }
+    });
+  }
+}
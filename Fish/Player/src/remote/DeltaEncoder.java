@@ -0,0 +1,86 @@
+package remote;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import game.model.BoardPosition;
+import game.model.GameState;
+
+/**
+ * Encodes the states sent to one client in delta mode. The encoder remembers the board of the last
+ * State it sent; as long as the next state's board differs from it only by removed tiles, the
+ * state is sent as a Delta (the removed tiles, the players and the hash of the resulting State)
+ * instead of a full State. Players are always sent whole, since they are a handful of entries
+ * next to the rows * cols entries of the board.
+ */
+class DeltaEncoder {
+  private int[][] lastBoard;
+
+  /**
+   * Encodes the next state to send to the client, and remembers it as the client's state.
+   * @param gs The state to send.
+   * @return A Delta of the last State sent if there is one the state can be derived from, else a
+   * full State.
+   */
+  JsonObject encode(GameState gs) {
+    int[][] board = JsonProtocol.boardToArray(gs.getBoard());
+    JsonArray removed = removedTiles(board);
+    int[][] previous = lastBoard;
+    lastBoard = board;
+    if (previous == null || removed == null) {
+      return JsonProtocol.stateToJson(gs);
+    }
+    JsonArray players = JsonProtocol.playersToJson(gs);
+    JsonObject changes = new JsonObject();
+    changes.add("removed", removed);
+    changes.add("players", players);
+    JsonObject delta = new JsonObject();
+    delta.add(JsonProtocol.DELTA, changes);
+    delta.addProperty("hash", JsonProtocol.stateHash(board, players));
+    return delta;
+  }
+
+  /**
+   * Finds the tiles removed from the last board sent.
+   * @param board The board about to be sent.
+   * @return The positions of the tiles that were removed, or null if there is no last board or
+   * the board cannot be derived from it by removing tiles.
+   */
+  private JsonArray removedTiles(int[][] board) {
+    if (lastBoard == null || lastBoard.length != board.length) {
+      return null;
+    }
+    JsonArray removed = new JsonArray();
+    for (int r = 0; r < board.length; r++) {
+      if (lastBoard[r].length != board[r].length) {
+        return null;
+      }
+      for (int c = 0; c < board[r].length; c++) {
+        if (lastBoard[r][c] != board[r][c]) {
+          if (board[r][c] != 0) {
+            return null;
+          }
+          removed.add(JsonProtocol.positionToJson(new BoardPosition(r, c)));
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Checks whether a message produced by this encoder is a Delta.
+   * @param message The message.
+   * @return True if it is a Delta, false if it is a full State.
+   */
+  static boolean isDelta(JsonElement message) {
+    return message.isJsonObject() && message.getAsJsonObject().has(JsonProtocol.DELTA);
+  }
+
+  /**
+   * Forgets the client's state, so the next state is sent in full. Called when a new game starts.
+   */
+  void reset() {
+    lastBoard = null;
+  }
+}
@@ -0,0 +1,148 @@
+package remote;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single thread multiplexing many non-blocking channels over one Selector. Channels are
+ * registered with a Handler that is called on the loop thread whenever they are ready; all other
+ * threads interact with the loop's channels only by submitting tasks through execute, which run
+ * on the loop thread before the next select.
+ *
+ * A task or handler that throws is logged and skipped rather than ending the loop, since every
+ * other channel on the loop would die with it; a failing handler's channel is abandoned.
+ */
+class EventLoop implements Runnable {
+  private final Selector selector;
+  private final Queue<Runnable> tasks;
+  private final Thread thread;
+  private volatile boolean running;
+
+  /**
+   * Handler for channels registered with an event loop.
+   */
+  interface Handler {
+    /**
+     * Called on the loop thread when the channel of the key is ready for one of its interest
+     * operations. Must not block.
+     * @param key The selection key of the ready channel.
+     */
+    void handle(SelectionKey key);
+
+    /**
+     * Called on the loop thread when handle threw for the key, to give up on its channel. By
+     * default, cancels the key and closes the channel.
+     * @param key The selection key of the channel.
+     */
+    default void abandon(SelectionKey key) {
+      key.cancel();
+      try {
+        key.channel().close();
+      } catch (IOException e) {
+        // The channel is being abandoned either way.
+      }
+    }
+  }
+
+  /**
+   * Creates and starts an event loop on a new daemon thread.
+   * @param name The name of the loop's thread.
+   * @throws IOException if the selector cannot be opened.
+   */
+  EventLoop(String name) throws IOException {
+    this.selector = Selector.open();
+    this.tasks = new ConcurrentLinkedQueue<>();
+    this.running = true;
+    this.thread = new Thread(this, name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Runs the task on the loop thread, before the loop next waits for ready channels. May be
+   * called from any thread.
+   * @param task The task to run.
+   */
+  void execute(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /**
+   * Registers a channel with this loop's selector. Must be called on the loop thread.
+   * @param channel The non-blocking channel to register.
+   * @param ops The operations to select the channel for.
+   * @param handler The handler to call when the channel is ready.
+   * @return The selection key of the channel.
+   * @throws ClosedChannelException if the channel has been closed.
+   */
+  SelectionKey register(SelectableChannel channel, int ops, Handler handler)
+          throws ClosedChannelException {
+    return channel.register(selector, ops, handler);
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      try {
+        selector.select();
+      } catch (IOException e) {
+        System.err.println("Event loop " + thread.getName() + " failed: " + e.getMessage());
+        break;
+      }
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          System.err.println("Event loop " + thread.getName() + " task failed: " + e);
+        }
+      }
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        Handler handler = (Handler) key.attachment();
+        try {
+          if (key.isValid()) {
+            handler.handle(key);
+          }
+        } catch (RuntimeException e) {
+          System.err.println("Event loop " + thread.getName() + " handler failed: " + e);
+          try {
+            handler.abandon(key);
+          } catch (RuntimeException again) {
+            System.err.println("Event loop " + thread.getName() + " could not abandon channel: "
+                    + again);
+          }
+        }
+      }
+    }
+    for (SelectionKey key : selector.keys()) {
+      try {
+        key.channel().close();
+      } catch (IOException e) {
+        // The loop is shutting down; there is nothing left to do with the channel.
+      }
+    }
+    try {
+      selector.close();
+    } catch (IOException e) {
+      // As above.
+    }
+  }
+
+  /**
+   * Stops the loop, closing every channel registered with it.
+   */
+  void close() {
+    running = false;
+    selector.wakeup();
+  }
+}
@@ -0,0 +1,390 @@
+package remote;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import game.model.Action;
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.IBoard;
+import game.model.Move;
+import game.model.Pass;
+import game.model.Penguin;
+import game.model.Player;
+
+/**
+ * The JSON messages exchanged between a RemotePlayerComponent and its external client, as
+ * specified in Planning/remote.md. Every message is a single JSON value:
+ * - the informational strings sent to clients and the acknowledgements expected back
+ * - a State (milestone 4) sent to request a placement or a turn, whose players are listed in turn
+ * order starting with the player being asked
+ * - a Position (milestone 3), [row, col], answering a placement request
+ * - an Action (milestone 5), [[from row, from col], [to row, to col]] or false for a pass,
+ * answering a turn request
+ *
+ * Clients that sign up in delta mode receive a full State only for the first request of a game
+ * (and whenever they ask for one); every other request is a Delta of the State last sent, ending
+ * with the hash of the resulting State (see Planning/remote.md).
+ */
+public final class JsonProtocol {
+  public static final String TOURNAMENT_START = "Tournament has started.";
+  public static final String ACK_TOURNAMENT_START = "Acknowledge tournament start.";
+  public static final String GAME_START = "Game has started.";
+  public static final String ACK_GAME_START = "Acknowledge game start.";
+  public static final String GAME_END = "Game has ended.";
+  public static final String ACK_GAME_END = "Acknowledge game end.";
+  public static final String TOURNAMENT_END = "Tournament has ended.";
+  public static final String ACK_TOURNAMENT_END = "Acknowledge tournament end.";
+  public static final String DELTA = "delta";
+  public static final String RESEND_STATE = "Resend state.";
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private JsonProtocol() {
+  }
+
+  /**
+   * Converts a game state into a JSON State.
+   * @param gs The state to convert.
+   * @return The State, with its players in turn order starting with the current player.
+   */
+  public static JsonObject stateToJson(GameState gs) {
+    JsonArray board = new JsonArray();
+    for (int[] fish : boardToArray(gs.getBoard())) {
+      JsonArray row = new JsonArray();
+      for (int f : fish) {
+        row.add(f);
+      }
+      board.add(row);
+    }
+
+    JsonObject state = new JsonObject();
+    state.add("players", playersToJson(gs));
+    state.add("board", board);
+    return state;
+  }
+
+  /**
+   * Reads a JSON State, as a client does. The players are given ages in the order they are listed,
+   * so the first player listed is the current player and the turn order is the listed order.
+   * @param json The JSON value to read.
+   * @return The game state it describes.
+   * @throws IllegalArgumentException if the value is not a valid State.
+   */
+  public static GameState parseState(JsonElement json) {
+    if (!json.isJsonObject() || !json.getAsJsonObject().has("players")
+            || !json.getAsJsonObject().has("board")) {
+      throw new IllegalArgumentException("Not a State: " + json);
+    }
+    JsonObject state = json.getAsJsonObject();
+    JsonArray rows = state.getAsJsonArray("board");
+    int[][] fish = new int[rows.size()][];
+    for (int r = 0; r < fish.length; r++) {
+      JsonArray row = rows.get(r).getAsJsonArray();
+      fish[r] = new int[row.size()];
+      for (int c = 0; c < fish[r].length; c++) {
+        fish[r][c] = parseNatural(row.get(c));
+      }
+    }
+
+    JsonArray players = state.getAsJsonArray("players");
+    HashSet<Player> playerSet = new HashSet<>();
+    Map<Player, JsonArray> places = new HashMap<>();
+    for (int i = 0; i < players.size(); i++) {
+      JsonObject player = players.get(i).getAsJsonObject();
+      Player p = new Player(i + 1, parseColor(player.get("color")));
+      p.addFish(parseNatural(player.get("score")));
+      playerSet.add(p);
+      places.put(p, player.getAsJsonArray("places"));
+    }
+    if (playerSet.isEmpty()) {
+      throw new IllegalArgumentException("A State needs at least one player: " + json);
+    }
+
+    GameState gs = new GameState(playerSet, new Board(fish));
+    for (Map.Entry<Player, JsonArray> entry : places.entrySet()) {
+      for (JsonElement place : entry.getValue()) {
+        gs.placeAvatar(parsePosition(place), entry.getKey());
+      }
+    }
+    return gs;
+  }
+
+  /**
+   * Reads a JSON Color.
+   * @param json The JSON value to read.
+   * @return The penguin color it names.
+   * @throws IllegalArgumentException if the value is not one of the four colors.
+   */
+  public static Penguin.PenguinColor parseColor(JsonElement json) {
+    if (!json.isJsonPrimitive() || !json.getAsJsonPrimitive().isString()) {
+      throw new IllegalArgumentException("Not a Color: " + json);
+    }
+    for (Penguin.PenguinColor color : Penguin.PenguinColor.values()) {
+      if (colorToJson(color).equals(json.getAsString())) {
+        return color;
+      }
+    }
+    throw new IllegalArgumentException("Not a Color: " + json);
+  }
+
+  /**
+   * Converts the players of a game state into the players of a JSON State.
+   * @param gs The state whose players to convert.
+   * @return The players, in turn order starting with the current player, each with its color,
+   * score and the positions of its penguins.
+   */
+  static JsonArray playersToJson(GameState gs) {
+    JsonArray players = new JsonArray();
+    Map<BoardPosition, Penguin> penguins = gs.getPenguins();
+    for (Player p : gs.getTurnOrder()) {
+      JsonArray places = new JsonArray();
+      for (Map.Entry<BoardPosition, Penguin> entry : penguins.entrySet()) {
+        if (entry.getValue().getColor() == p.getColor()) {
+          places.add(positionToJson(entry.getKey()));
+        }
+      }
+      JsonObject player = new JsonObject();
+      player.addProperty("color", colorToJson(p.getColor()));
+      player.addProperty("score", p.getFish());
+      player.add("places", places);
+      players.add(player);
+    }
+    return players;
+  }
+
+  /**
+   * Reads the number of fish on every tile of a board.
+   * @param b The board to read.
+   * @return The number of fish per tile, indexed by row then column, with 0 for holes.
+   */
+  static int[][] boardToArray(IBoard b) {
+    int[][] fish = new int[b.getRows()][b.getCols()];
+    for (int r = 0; r < fish.length; r++) {
+      for (int c = 0; c < fish[r].length; c++) {
+        fish[r][c] = b.getSpace(new BoardPosition(r, c)).getNumFish();
+      }
+    }
+    return fish;
+  }
+
+  /**
+   * Applies a Delta to the JSON State it was computed from, as a client in delta mode does. The
+   * given State is not changed.
+   * @param state The State the client last had.
+   * @param delta The Delta message received.
+   * @return The new State: the given board with the removed tiles turned into holes, and the
+   * players of the Delta.
+   * @throws IllegalArgumentException if the Delta does not apply to the State.
+   */
+  public static JsonObject applyDelta(JsonObject state, JsonObject delta) {
+    JsonObject changes = delta.getAsJsonObject(DELTA);
+    if (changes == null || !state.has("board")) {
+      throw new IllegalArgumentException("Not a Delta of a State: " + delta);
+    }
+    JsonArray board = state.getAsJsonArray("board").deepCopy();
+    for (JsonElement removed : changes.getAsJsonArray("removed")) {
+      BoardPosition bp = parsePosition(removed);
+      if (bp.getRow() >= board.size()
+              || bp.getCol() >= board.get(bp.getRow()).getAsJsonArray().size()) {
+        throw new IllegalArgumentException("Removed tile off the board: " + removed);
+      }
+      board.get(bp.getRow()).getAsJsonArray().set(bp.getCol(), new JsonPrimitive(0));
+    }
+    JsonObject next = new JsonObject();
+    next.add("players", changes.getAsJsonArray("players").deepCopy());
+    next.add("board", board);
+    return next;
+  }
+
+  /**
+   * Computes the hash of a JSON State that a Delta ends with, so a client can check that applying
+   * the Delta gave it the same State as the server.
+   * @param state The State to hash.
+   * @return The hash, as in a Delta's "hash" field.
+   * @throws IllegalArgumentException if the value is not a State.
+   */
+  public static String stateHash(JsonObject state) {
+    JsonArray rows = state.getAsJsonArray("board");
+    if (rows == null || !state.has("players")) {
+      throw new IllegalArgumentException("Not a State: " + state);
+    }
+    int[][] board = new int[rows.size()][];
+    for (int r = 0; r < board.length; r++) {
+      JsonArray row = rows.get(r).getAsJsonArray();
+      board[r] = new int[row.size()];
+      for (int c = 0; c < board[r].length; c++) {
+        board[r][c] = parseNatural(row.get(c));
+      }
+    }
+    return stateHash(board, state.getAsJsonArray("players"));
+  }
+
+  /**
+   * Computes the 64-bit FNV-1a hash of a State, given its board and players, as specified in
+   * Planning/remote.md: the hash runs over the number of rows, then every row as its length
+   * followed by its fish counts, then the number of players, then every player as its color name,
+   * score, number of penguins and the row and column of every penguin in the listed order.
+   * Numbers are hashed as 4 big-endian bytes and colors as their ASCII names.
+   * @param board The number of fish per tile of the State.
+   * @param players The players of the State.
+   * @return The hash, as 16 lowercase hex digits.
+   */
+  static String stateHash(int[][] board, JsonArray players) {
+    long h = FNV_OFFSET_BASIS;
+    h = fnv(h, board.length);
+    for (int[] row : board) {
+      h = fnv(h, row.length);
+      for (int f : row) {
+        h = fnv(h, f);
+      }
+    }
+    h = fnv(h, players.size());
+    for (JsonElement player : players) {
+      JsonObject p = player.getAsJsonObject();
+      for (byte b : p.get("color").getAsString().getBytes(StandardCharsets.US_ASCII)) {
+        h = (h ^ (b & 0xff)) * FNV_PRIME;
+      }
+      h = fnv(h, parseNatural(p.get("score")));
+      JsonArray places = p.getAsJsonArray("places");
+      h = fnv(h, places.size());
+      for (JsonElement place : places) {
+        BoardPosition bp = parsePosition(place);
+        h = fnv(h, bp.getRow());
+        h = fnv(h, bp.getCol());
+      }
+    }
+    return String.format("%016x", h);
+  }
+
+  /**
+   * Folds a number into an FNV-1a hash as 4 big-endian bytes.
+   * @param h The hash so far.
+   * @param n The number to fold in.
+   * @return The new hash.
+   */
+  private static long fnv(long h, int n) {
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      h = (h ^ ((n >>> shift) & 0xff)) * FNV_PRIME;
+    }
+    return h;
+  }
+
+  /**
+   * Checks whether a message is the given JSON string.
+   * @param message The message, a single JSON value.
+   * @param expected The expected string.
+   * @return True if the message is the string, else false (including when it is not JSON).
+   */
+  static boolean isString(String message, String expected) {
+    try {
+      JsonElement json = JsonParser.parseString(message);
+      return json.isJsonPrimitive() && json.getAsJsonPrimitive().isString()
+              && expected.equals(json.getAsString());
+    } catch (JsonParseException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Converts a penguin color into a JSON Color.
+   * @param color The color to convert.
+   * @return One of "red", "white", "brown" and "black".
+   */
+  public static String colorToJson(Penguin.PenguinColor color) {
+    return color.name().toLowerCase();
+  }
+
+  /**
+   * Converts a board position into a JSON Position.
+   * @param bp The position to convert.
+   * @return The Position [row, col].
+   */
+  public static JsonArray positionToJson(BoardPosition bp) {
+    JsonArray posn = new JsonArray();
+    posn.add(bp.getRow());
+    posn.add(bp.getCol());
+    return posn;
+  }
+
+  /**
+   * Converts a Move or Pass into a JSON Action.
+   * @param a The action to convert.
+   * @return The Action: false for a pass, else the source and destination Positions of the move.
+   * @throws IllegalArgumentException if the action is neither a Move nor a Pass.
+   */
+  public static JsonElement actionToJson(Action a) {
+    if (a instanceof Pass) {
+      return new JsonPrimitive(false);
+    }
+    else if (a instanceof Move) {
+      Move m = (Move) a;
+      JsonArray move = new JsonArray();
+      move.add(positionToJson(m.getStart()));
+      move.add(positionToJson(m.getDestination()));
+      return move;
+    }
+    throw new IllegalArgumentException("Only moves and passes are JSON Actions.");
+  }
+
+  /**
+   * Reads a JSON Position.
+   * @param json The JSON value to read.
+   * @return The board position it holds.
+   * @throws IllegalArgumentException if the value is not an array of two natural numbers.
+   */
+  public static BoardPosition parsePosition(JsonElement json) {
+    if (!json.isJsonArray() || json.getAsJsonArray().size() != 2) {
+      throw new IllegalArgumentException("Not a Position: " + json);
+    }
+    JsonArray posn = json.getAsJsonArray();
+    return new BoardPosition(parseNatural(posn.get(0)), parseNatural(posn.get(1)));
+  }
+
+  /**
+   * Reads a JSON Action taken by the given player.
+   * @param json The JSON value to read.
+   * @param p The player taking the action.
+   * @return A Pass if the value is false, else the Move it describes.
+   * @throws IllegalArgumentException if the value is not an Action.
+   */
+  public static Action parseAction(JsonElement json, Player p) {
+    if (json.isJsonPrimitive() && json.getAsJsonPrimitive().isBoolean()
+            && !json.getAsBoolean()) {
+      return new Pass(p);
+    }
+    if (!json.isJsonArray() || json.getAsJsonArray().size() != 2) {
+      throw new IllegalArgumentException("Not an Action: " + json);
+    }
+    JsonArray move = json.getAsJsonArray();
+    return new Move(parsePosition(move.get(1)), parsePosition(move.get(0)), p);
+  }
+
+  /**
+   * Reads a JSON natural number.
+   * @param json The JSON value to read.
+   * @return The number.
+   * @throws IllegalArgumentException if the value is not a natural number.
+   */
+  private static int parseNatural(JsonElement json) {
+    if (!json.isJsonPrimitive() || !json.getAsJsonPrimitive().isNumber()) {
+      throw new IllegalArgumentException("Not a natural number: " + json);
+    }
+    double d = json.getAsDouble();
+    if (d < 0 || d != Math.rint(d) || d > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Not a natural number: " + json);
+    }
+    return (int) d;
+  }
+}
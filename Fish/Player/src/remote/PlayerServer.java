@@ -0,0 +1,227 @@
+package remote;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import player.IPlayerComponent;
+
+/**
+ * Server accepting remote players over TCP and handing them to the sign-up layer as
+ * RemotePlayerComponents (see Planning/remote.md). All client connections are multiplexed over a
+ * small, fixed number of EventLoop threads, each owning a Selector, so thousands of players can be
+ * connected at once; new connections are spread over the loops in turn.
+ *
+ * A client signs up by sending its name as a JSON string, or an array of its name followed by the
+ * options it wants: "delta" for delta mode, or "binary" for the binary encoding of BinaryProtocol,
+ * which the server acknowledges with the JSON string "binary" before switching to frames. Players
+ * are given ages in the order they signed up, so the players returned by awaitPlayers are sorted
+ * by age, as a TournamentManager expects.
+ */
+public class PlayerServer implements Closeable {
+  /**
+   * Kept strictly below the referee's COMMS_TIMEOUT of 3 seconds, so a silent client is cut off
+   * by the server, and its request fails, before the referee gives up waiting on the request.
+   */
+  public static final long DEFAULT_RESPONSE_TIMEOUT_MILLIS = 2500;
+  public static final int DEFAULT_THREADS = 2;
+  private static final int BACKLOG = 1024;
+
+  private final ServerSocketChannel serverChannel;
+  private final EventLoop[] loops;
+  private final int port;
+  private final long responseTimeoutMillis;
+  private final BlockingQueue<RemotePlayerComponent> signUps;
+  private final AtomicInteger nextAge;
+  private int nextLoop;
+
+  /**
+   * Creates a server listening on the given port with the default number of threads and response
+   * timeout.
+   * @param port The port to listen on, or 0 for any free port.
+   * @throws IOException if the server cannot listen on the port.
+   */
+  public PlayerServer(int port) throws IOException {
+    this(port, DEFAULT_THREADS, DEFAULT_RESPONSE_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Creates a server listening on the given port.
+   * @param port The port to listen on, or 0 for any free port.
+   * @param threads The number of event loop threads to multiplex connections over.
+   * @param responseTimeoutMillis The time a client has to answer each request.
+   * @throws IOException if the server cannot listen on the port.
+   */
+  public PlayerServer(int port, int threads, long responseTimeoutMillis) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("A player server needs at least one thread.");
+    }
+    this.responseTimeoutMillis = responseTimeoutMillis;
+    this.signUps = new LinkedBlockingQueue<>();
+    this.nextAge = new AtomicInteger(1);
+    this.serverChannel = ServerSocketChannel.open();
+    this.serverChannel.bind(new InetSocketAddress(port), BACKLOG);
+    this.serverChannel.configureBlocking(false);
+    this.port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    this.loops = new EventLoop[threads];
+    for (int i = 0; i < threads; i++) {
+      loops[i] = new EventLoop("player-server-" + i);
+    }
+    loops[0].execute(() -> {
+      try {
+        loops[0].register(serverChannel, SelectionKey.OP_ACCEPT, key -> accept());
+      } catch (IOException e) {
+        System.err.println("Player server cannot accept connections: " + e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Gets the port the server is listening on.
+   * @return The port number.
+   */
+  public int getPort() {
+    return port;
+  }
+
+  /**
+   * Accepts all pending connections, handing each to the next event loop in turn. Runs on the
+   * first loop's thread.
+   */
+  private void accept() {
+    try {
+      SocketChannel channel;
+      while ((channel = serverChannel.accept()) != null) {
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        EventLoop loop = loops[nextLoop];
+        nextLoop = (nextLoop + 1) % loops.length;
+        Connection connection = new Connection(channel, loop, this);
+        loop.execute(connection::register);
+      }
+    } catch (IOException e) {
+      System.err.println("Player server failed to accept a connection: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Signs up the client of a connection from its first message, which must be its name as a JSON
+   * string or an array of its name and the options it wants; clients sending anything else are
+   * disconnected. Runs on the connection's loop thread.
+   * @param connection The connection of the client.
+   * @param message The first message of the client.
+   */
+  void signUp(Connection connection, String message) {
+    String name;
+    boolean deltaMode = false;
+    boolean binary = false;
+    try {
+      JsonElement json = JsonParser.parseString(message);
+      JsonArray signUp = new JsonArray();
+      if (json.isJsonArray()) {
+        signUp = json.getAsJsonArray();
+      }
+      else {
+        signUp.add(json);
+      }
+      if (signUp.size() == 0 || !isString(signUp.get(0))) {
+        connection.close();
+        return;
+      }
+      name = signUp.get(0).getAsString();
+      for (int i = 1; i < signUp.size(); i++) {
+        String option = isString(signUp.get(i)) ? signUp.get(i).getAsString() : "";
+        if (option.equals(JsonProtocol.DELTA)) {
+          deltaMode = true;
+        }
+        else if (option.equals(BinaryProtocol.BINARY)) {
+          binary = true;
+        }
+        else {
+          connection.close();
+          return;
+        }
+      }
+      if (deltaMode && binary) {
+        connection.close();
+        return;
+      }
+    } catch (JsonParseException e) {
+      connection.close();
+      return;
+    }
+    if (binary) {
+      connection.send(new JsonPrimitive(BinaryProtocol.BINARY).toString());
+      connection.useFrames();
+    }
+    signUps.add(new RemotePlayerComponent(name, nextAge.getAndIncrement(), connection,
+            responseTimeoutMillis, deltaMode, binary));
+  }
+
+  /**
+   * Checks whether a JSON value is a string.
+   * @param json The value to check.
+   * @return True if the value is a string, else false.
+   */
+  private static boolean isString(JsonElement json) {
+    return json.isJsonPrimitive() && json.getAsJsonPrimitive().isString();
+  }
+
+  /**
+   * Waits for players to sign up, until the given number of players have signed up or the time
+   * is up, whichever comes first.
+   * @param count The largest number of players to return.
+   * @param waitMillis The longest time to wait.
+   * @return The players that signed up and are still connected, sorted by ascending age.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public List<IPlayerComponent> awaitPlayers(int count, long waitMillis)
+          throws InterruptedException {
+    List<RemotePlayerComponent> players = new ArrayList<>();
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+    while (players.size() < count) {
+      long left = deadline - System.nanoTime();
+      RemotePlayerComponent player = signUps.poll(Math.max(left, 0), TimeUnit.NANOSECONDS);
+      if (player == null) {
+        break;
+      }
+      if (player.isConnected()) {
+        players.add(player);
+      }
+    }
+    players.sort(Comparator.comparingInt(RemotePlayerComponent::getAge));
+    return new ArrayList<>(players);
+  }
+
+  /**
+   * Stops accepting players and closes every connection.
+   * @throws IOException if the server socket cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      serverChannel.close();
+    } finally {
+      for (EventLoop loop : loops) {
+        loop.close();
+      }
+    }
+  }
+}
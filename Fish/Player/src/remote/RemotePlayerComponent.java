@@ -0,0 +1,304 @@
+package remote;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import game.model.Action;
+import game.model.GameState;
+import game.model.GameTreeNode;
+import game.model.Penguin;
+import game.model.Place;
+import game.model.Player;
+import player.IPlayerComponent;
+
+/**
+ * Player component standing in for an external client connected to a PlayerServer, exchanging the
+ * JSON messages of JsonProtocol with it as specified in Planning/remote.md.
+ *
+ * Every call is a request to the client with a deadline (the server's response timeout); the
+ * requests for placements and turns are also available as futures (placePenguinAsync and
+ * takeTurnAsync), which never block. A client that misses a deadline, answers with anything but
+ * the expected message or disconnects makes the call throw an exception, so the caller treats it
+ * as a failing player, and its connection is closed.
+ *
+ * The age of a remote player is the position at which it signed up with the server, as suggested
+ * by remote.md, so getAge does not contact the client.
+ *
+ * For clients that signed up in delta mode, states are sent through a DeltaEncoder, which is reset
+ * at the start of every game. A client that finds its State's hash differs from a Delta's may
+ * answer with "Resend state." once, and is then sent the full State to answer instead.
+ *
+ * For clients that signed up for the binary encoding, the messages of BinaryProtocol are sent
+ * instead, all written into one reusable buffer. This is safe because a component makes one
+ * request at a time and the client cannot answer before the whole request has been written.
+ */
+public class RemotePlayerComponent implements IPlayerComponent {
+  private static final int INITIAL_FRAME_SIZE = 256;
+
+  private final String name;
+  private final int age;
+  private final Connection connection;
+  private final long responseTimeoutMillis;
+  private final DeltaEncoder deltas;
+  private final boolean binary;
+  private ByteBuffer frame;
+  private Penguin.PenguinColor color;
+
+  /**
+   * Constructs the component of a client that has just signed up.
+   * @param name The name the client signed up with.
+   * @param age The age of the player, its position in sign-up order.
+   * @param connection The connection to the client.
+   * @param responseTimeoutMillis The time the client has to answer each request.
+   * @param deltaMode Whether the client signed up to be sent Deltas instead of full States.
+   * @param binary Whether the client signed up for the binary encoding instead of JSON.
+   */
+  RemotePlayerComponent(String name, int age, Connection connection, long responseTimeoutMillis,
+                        boolean deltaMode, boolean binary) {
+    this.name = name;
+    this.age = age;
+    this.connection = connection;
+    this.responseTimeoutMillis = responseTimeoutMillis;
+    this.deltas = deltaMode ? new DeltaEncoder() : null;
+    this.binary = binary;
+    this.frame = binary ? ByteBuffer.allocate(INITIAL_FRAME_SIZE) : null;
+  }
+
+  @Override
+  public void joinTournament() {
+    inform(JsonProtocol.TOURNAMENT_START, JsonProtocol.ACK_TOURNAMENT_START,
+        BinaryProtocol.TOURNAMENT_START);
+  }
+
+  @Override
+  public void leaveTournament() {
+    inform(JsonProtocol.TOURNAMENT_END, JsonProtocol.ACK_TOURNAMENT_END,
+        BinaryProtocol.TOURNAMENT_END);
+  }
+
+  @Override
+  public void startPlaying(Penguin.PenguinColor color) {
+    this.color = color;
+    if (deltas != null) {
+      deltas.reset();
+    }
+    inform(JsonProtocol.GAME_START, JsonProtocol.ACK_GAME_START, BinaryProtocol.GAME_START);
+  }
+
+  @Override
+  public Place placePenguin(GameTreeNode gt) {
+    return await(placePenguinAsync(gt));
+  }
+
+  @Override
+  public Action takeTurn(GameTreeNode gt) {
+    return await(takeTurnAsync(gt));
+  }
+
+  @Override
+  public void finishPlaying() {
+    inform(JsonProtocol.GAME_END, JsonProtocol.ACK_GAME_END, BinaryProtocol.GAME_END);
+  }
+
+  /**
+   * Requests a placement from the client without waiting for it.
+   * @param gt The game tree with the current state of the game as its root node.
+   * @return A future completed with the client's placement for the current player, or failing if
+   * the client does not answer with a Position in time.
+   */
+  public CompletableFuture<Place> placePenguinAsync(GameTreeNode gt) {
+    GameState gs = gt.getGameState();
+    Player current = gs.getCurrentPlayer();
+    if (binary) {
+      return requestFrame(BinaryProtocol.writeState(gs, clearedFrame()),
+          bytes -> new Place(BinaryProtocol.readPosition(bytes), current));
+    }
+    return requestWithState(gs, json -> new Place(JsonProtocol.parsePosition(json), current));
+  }
+
+  /**
+   * Requests a turn from the client without waiting for it.
+   * @param gt The game tree with the current state of the game as its root node.
+   * @return A future completed with the client's move or pass for the current player, or failing
+   * if the client does not answer with an Action in time.
+   */
+  public CompletableFuture<Action> takeTurnAsync(GameTreeNode gt) {
+    GameState gs = gt.getGameState();
+    Player current = gs.getCurrentPlayer();
+    if (binary) {
+      return requestFrame(BinaryProtocol.writeState(gs, clearedFrame()),
+          bytes -> BinaryProtocol.readAction(bytes, current));
+    }
+    return requestWithState(gs, json -> JsonProtocol.parseAction(json, current));
+  }
+
+  /**
+   * Sends an informational message and checks that the client acknowledges it.
+   * @param message The message to send in JSON.
+   * @param ack The acknowledgement expected back in JSON.
+   * @param type The type of the message in the binary encoding, acknowledged with type | ACK.
+   * @throws IllegalStateException if the client does not acknowledge the message in time.
+   */
+  private void inform(String message, String ack, byte type) {
+    if (binary) {
+      await(requestFrame(BinaryProtocol.writeMessage(type, clearedFrame()), bytes -> {
+        BinaryProtocol.expectType(bytes, (byte) (type | BinaryProtocol.ACK));
+        if (bytes.hasRemaining()) {
+          throw new IllegalArgumentException("Acknowledgements have no payload.");
+        }
+        return null;
+      }));
+      return;
+    }
+    await(request(new JsonPrimitive(message), json -> {
+      if (!json.isJsonPrimitive() || !ack.equals(json.getAsString())) {
+        throw new IllegalArgumentException("Expected \"" + ack + "\" but got " + json);
+      }
+      return null;
+    }));
+  }
+
+  /**
+   * Sends a request to the client and converts its answer, closing the connection if the answer
+   * is not valid.
+   * @param message The request to send.
+   * @param convert The conversion of the answer, throwing an IllegalArgumentException for answers
+   *                that are not valid.
+   * @param <T> The type of the converted answer.
+   * @return A future completed with the converted answer.
+   */
+  private <T> CompletableFuture<T> request(JsonElement message, Function<JsonElement, T> convert) {
+    return convert(connection.request(message.toString(), responseTimeoutMillis),
+        answer -> convert.apply(JsonParser.parseString(answer)));
+  }
+
+  /**
+   * Clears the reusable buffer for the next frame to be written into.
+   * @return The cleared buffer.
+   */
+  private ByteBuffer clearedFrame() {
+    frame.clear();
+    return frame;
+  }
+
+  /**
+   * Sends the frame just written to the reusable buffer to the client and converts its answer,
+   * closing the connection if the answer is not valid.
+   * @param written The buffer returned by the BinaryProtocol method that wrote the frame into the
+   *                cleared reusable buffer, which becomes the reusable buffer.
+   * @param convert The conversion of the answer, positioned at its type, throwing an
+   *                IllegalArgumentException for answers that are not valid.
+   * @param <T> The type of the converted answer.
+   * @return A future completed with the converted answer.
+   */
+  private <T> CompletableFuture<T> requestFrame(ByteBuffer written,
+                                                Function<ByteBuffer, T> convert) {
+    frame = written;
+    frame.flip();
+    CompletableFuture<ByteBuffer> answer = connection.request(frame, responseTimeoutMillis);
+    return convert(answer, convert);
+  }
+
+  /**
+   * Sends a request with the given state to the client and converts its answer: in delta mode, the
+   * state is sent as a Delta when possible, and a request to resend it is answered with the full
+   * State.
+   * @param gs The state to send, which must not change until the answer arrives.
+   * @param convert The conversion of the answer, throwing an IllegalArgumentException for answers
+   *                that are not valid.
+   * @param <T> The type of the converted answer.
+   * @return A future completed with the converted answer.
+   */
+  private <T> CompletableFuture<T> requestWithState(GameState gs,
+                                                    Function<JsonElement, T> convert) {
+    if (deltas == null) {
+      return request(JsonProtocol.stateToJson(gs), convert);
+    }
+    JsonObject message = deltas.encode(gs);
+    CompletableFuture<String> answer =
+            connection.request(message.toString(), responseTimeoutMillis);
+    if (DeltaEncoder.isDelta(message)) {
+      answer = answer.thenCompose(a -> JsonProtocol.isString(a, JsonProtocol.RESEND_STATE)
+              ? connection.request(JsonProtocol.stateToJson(gs).toString(), responseTimeoutMillis)
+              : CompletableFuture.completedFuture(a));
+    }
+    return convert(answer, a -> convert.apply(JsonParser.parseString(a)));
+  }
+
+  /**
+   * Converts the answer to a request, closing the connection if it is not valid.
+   * @param answer The future answer.
+   * @param convert The conversion of the answer, throwing an IllegalArgumentException for answers
+   *                that are not valid.
+   * @param <A> The type of the answer.
+   * @param <T> The type of the converted answer.
+   * @return A future completed with the converted answer.
+   */
+  private <A, T> CompletableFuture<T> convert(CompletableFuture<A> answer,
+                                              Function<A, T> convert) {
+    return answer.thenApply(a -> {
+      try {
+        return convert.apply(a);
+      } catch (JsonParseException | IllegalArgumentException | IllegalStateException
+              | BufferUnderflowException e) {
+        connection.close();
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  /**
+   * Waits for the answer to a request.
+   * @param answer The future answer.
+   * @param <T> The type of the answer.
+   * @return The answer.
+   * @throws IllegalStateException if the request failed.
+   */
+  private <T> T await(CompletableFuture<T> answer) {
+    try {
+      return answer.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      connection.close();
+      throw new IllegalStateException("Interrupted while waiting for " + name + ".", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("No valid answer from " + name + ": " + e.getCause(), e);
+    }
+  }
+
+  @Override
+  public int getAge() {
+    return age;
+  }
+
+  @Override
+  public Penguin.PenguinColor getColor() {
+    return color;
+  }
+
+  /**
+   * Gets the name the client signed up with.
+   * @return The name of the remote player.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Checks whether the client is still connected.
+   * @return True if the connection to the client is open, else false.
+   */
+  public boolean isConnected() {
+    return connection.isOpen();
+  }
+}
@@ -0,0 +1,322 @@
+package remote;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import game.model.Action;
+import game.model.GameState;
+import game.model.GameTreeNode;
+import game.model.Player;
+import player.Strategy;
+
+/**
+ * One client of a ClientSimulator: a remote player that signs up with a PlayerServer and answers
+ * its JSON requests after a think time, using one of the simulator's strategies, unless it decides
+ * to fail. Reading and writing happen on the simulator's event loop; answers are computed on the
+ * simulator's worker threads, so a slow strategy never holds up other clients.
+ *
+ * Like any external player, the client has to work out whether a State asks for a placement or a
+ * turn: it expects PENGUIN_MAX minus the number of players in the first State of a game as the
+ * number of penguins each player places.
+ */
+class SimulatedClient implements EventLoop.Handler {
+  static final int PENGUIN_MAX = 6;
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  private final ClientSimulator simulator;
+  private final SocketChannel channel;
+  private final String name;
+  private final ClientSimulator.Strategy strategy;
+  private final Random rng;
+  private final Queue<ByteBuffer> out;
+  private ByteBuffer in;
+  private SelectionKey key;
+  private volatile boolean silent;
+  private volatile boolean closed;
+  private int penguinsPerPlayer;
+
+  /**
+   * Creates a client on a connected channel, to be registered with the simulator's loop.
+   * @param simulator The simulator running the client.
+   * @param channel The non-blocking channel connected to the server.
+   * @param name The name the client signs up with.
+   * @param strategy The strategy the client plays with.
+   * @param seed The seed of the client's random decisions.
+   */
+  SimulatedClient(ClientSimulator simulator, SocketChannel channel, String name,
+                  ClientSimulator.Strategy strategy, long seed) {
+    this.simulator = simulator;
+    this.channel = channel;
+    this.name = name;
+    this.strategy = strategy;
+    this.rng = new Random(seed);
+    this.out = new ConcurrentLinkedQueue<>();
+    this.in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+  }
+
+  /**
+   * Registers the channel with the loop and signs up. Runs on the loop thread.
+   */
+  void register() {
+    try {
+      key = simulator.getLoop().register(channel, SelectionKey.OP_READ, this);
+      send(new JsonPrimitive(name).toString());
+    } catch (ClosedChannelException e) {
+      close();
+    }
+  }
+
+  @Override
+  public void handle(SelectionKey key) {
+    if (key.isWritable()) {
+      flush();
+    }
+    if (key.isValid() && key.isReadable()) {
+      read();
+    }
+  }
+
+  @Override
+  public void abandon(SelectionKey key) {
+    key.cancel();
+    close();
+  }
+
+  /**
+   * Reads what the server has sent and schedules an answer to every complete message in it.
+   * Runs on the loop thread.
+   */
+  private void read() {
+    try {
+      if (channel.read(in) < 0) {
+        close();
+        return;
+      }
+    } catch (IOException e) {
+      close();
+      return;
+    }
+    int start = 0;
+    for (int i = 0; i < in.position(); i++) {
+      if (in.get(i) == '\n') {
+        String message = new String(in.array(), start, i - start, StandardCharsets.UTF_8);
+        try {
+          simulator.getWorkers().schedule(() -> answer(message), thinkTime(),
+                  TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          close();
+          return;
+        }
+        start = i + 1;
+      }
+    }
+    in.flip();
+    in.position(start);
+    in.compact();
+    if (!in.hasRemaining()) {
+      if (in.capacity() >= Connection.MAX_MESSAGE_LENGTH) {
+        close();
+        return;
+      }
+      ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+      in.flip();
+      bigger.put(in);
+      in = bigger;
+    }
+  }
+
+  /**
+   * Picks the time to think before answering: the simulator's think time plus a uniformly random
+   * jitter.
+   * @return The time in milliseconds.
+   */
+  private long thinkTime() {
+    long jitter = simulator.getJitterMillis();
+    return simulator.getThinkMillis() + (jitter > 0 ? (long) (rng.nextDouble() * jitter) : 0);
+  }
+
+  /**
+   * Answers a message from the server, or fails instead with the simulator's failure rate. Runs
+   * on a worker thread.
+   * @param message The message, a single JSON value.
+   */
+  private void answer(String message) {
+    if (silent || closed) {
+      return;
+    }
+    if (rng.nextDouble() < simulator.getFailureRate()) {
+      fail();
+      return;
+    }
+    String reply;
+    try {
+      reply = reply(JsonParser.parseString(message));
+    } catch (JsonParseException | IllegalArgumentException | IllegalStateException e) {
+      close();
+      return;
+    }
+    if (reply != null) {
+      send(reply);
+      simulator.answered();
+    }
+  }
+
+  /**
+   * Fails in one of three ways, picked at random: by never answering again (so the server times
+   * out), by answering with something that is not JSON, or by disconnecting.
+   */
+  private void fail() {
+    simulator.failed();
+    switch (rng.nextInt(3)) {
+      case 0:
+        silent = true;
+        break;
+      case 1:
+        send("}{ not an answer");
+        break;
+      default:
+        close();
+    }
+  }
+
+  /**
+   * Computes the answer to a message from the server.
+   * @param message The message.
+   * @return The answer, or null if the message needs none.
+   * @throws IllegalArgumentException if the message is not valid.
+   */
+  private String reply(JsonElement message) {
+    if (message.isJsonPrimitive()) {
+      String ack;
+      switch (message.getAsString()) {
+        case JsonProtocol.TOURNAMENT_START:
+          ack = JsonProtocol.ACK_TOURNAMENT_START;
+          break;
+        case JsonProtocol.GAME_START:
+          penguinsPerPlayer = 0;
+          ack = JsonProtocol.ACK_GAME_START;
+          break;
+        case JsonProtocol.GAME_END:
+          ack = JsonProtocol.ACK_GAME_END;
+          break;
+        case JsonProtocol.TOURNAMENT_END:
+          ack = JsonProtocol.ACK_TOURNAMENT_END;
+          break;
+        default:
+          return null;
+      }
+      return new JsonPrimitive(ack).toString();
+    }
+    GameState gs = JsonProtocol.parseState(message);
+    if (penguinsPerPlayer == 0) {
+      penguinsPerPlayer = PENGUIN_MAX - gs.getPlayers().size();
+    }
+    Player me = gs.getCurrentPlayer();
+    int placed = gs.getPenguinCount(me.getColor());
+    GameTreeNode gt = new GameTreeNode(gs);
+    if (placed < penguinsPerPlayer) {
+      return JsonProtocol.positionToJson(new Strategy().placePenguin(gt)).toString();
+    }
+    return JsonProtocol.actionToJson(chooseAction(gt)).toString();
+  }
+
+  /**
+   * Chooses the action to take in the state of the given tree with the client's strategy.
+   * @param gt The tree of the current state.
+   * @return The action of the current player.
+   */
+  private Action chooseAction(GameTreeNode gt) {
+    switch (strategy) {
+      case RANDOM:
+        List<Action> actions = gt.getGameState().getPossibleActions();
+        return actions.get(rng.nextInt(actions.size()));
+      case MINIMAX:
+        return new Strategy().getMinMaxAction(gt, ClientSimulator.MINIMAX_DEPTH);
+      default:
+        return gt.getGameState().getPossibleActions().get(0);
+    }
+  }
+
+  /**
+   * Queues a message to be written to the server. May be called from any thread.
+   * @param message The message, a single-line JSON value.
+   */
+  private void send(String message) {
+    out.add(ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8)));
+    simulator.getLoop().execute(this::flush);
+  }
+
+  /**
+   * Writes as much of the queued output as the channel accepts. Runs on the loop thread.
+   */
+  private void flush() {
+    if (closed || key == null) {
+      return;
+    }
+    try {
+      ByteBuffer buf;
+      while ((buf = out.peek()) != null) {
+        channel.write(buf);
+        if (buf.hasRemaining()) {
+          key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+          return;
+        }
+        out.poll();
+      }
+      key.interestOps(SelectionKey.OP_READ);
+    } catch (IOException e) {
+      close();
+    }
+  }
+
+  /**
+   * Disconnects the client. May be called from any thread.
+   */
+  void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    simulator.getLoop().execute(() -> {
+      if (key != null) {
+        key.cancel();
+      }
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // The client is being abandoned either way.
+      }
+    });
+  }
+
+  /**
+   * Gets the name the client signs up with.
+   * @return The name.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Checks whether the client is still answering.
+   * @return True if the client has neither failed nor been disconnected, else false.
+   */
+  boolean isHealthy() {
+    return !silent && !closed;
+  }
+}
@@ -0,0 +1,119 @@
+package player;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import game.model.Action;
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.GameTreeNode;
+import game.model.Move;
+import game.model.Penguin;
+import game.model.Place;
+import game.model.Player;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for solving endgames where a player's penguins are cut off from the other players'.
+ */
+public class EndgameSolverTest {
+
+  /**
+   * Makes a two player state on the given board, with the penguins placed in the order given,
+   * alternating between red (who goes first) and white.
+   */
+  private GameState twoPlayers(int[][] fish, BoardPosition... placements) {
+    Player red = new Player(9, Penguin.PenguinColor.RED);
+    Player white = new Player(12, Penguin.PenguinColor.WHITE);
+    GameState gs = new GameState(new HashSet<>(Arrays.asList(red, white)), new Board(fish));
+    for (BoardPosition p : placements) {
+      new Place(p, gs.getCurrentPlayer()).perform(gs);
+    }
+    return gs;
+  }
+
+  @Test
+  public void sharedRegionIsNotSolved() {
+    GameState gs = twoPlayers(new int[][] {{1, 2}, {3, 4}, {5, 1}},
+            new BoardPosition(0, 0), new BoardPosition(2, 1));
+    assertNull(EndgameSolver.of(gs));
+  }
+
+  @Test
+  public void separateRegionsAreSolved() {
+    // Column 1 of rows 0-2 and column 0 of row 3-4 are cut off from each other by holes.
+    int[][] fish = {{0, 2, 0}, {0, 3, 0}, {0, 0, 0}, {0, 0, 5}, {4, 1, 5}};
+    GameState gs = twoPlayers(fish, new BoardPosition(0, 1), new BoardPosition(4, 2));
+    EndgameSolver solver = EndgameSolver.of(gs);
+    assertNotNull(solver);
+    // Red moves from (0, 1) to (1, 1) for 2 fish, then from (1, 1) has nowhere to go.
+    assertEquals(2, solver.value(1));
+    assertEquals(2, solver.value(5));
+    HashMap<Action, Integer> values = solver.actionValues(3);
+    assertEquals(1, values.size());
+    assertEquals(Integer.valueOf(2), values.values().iterator().next());
+  }
+
+  @Test
+  public void turnsAreSharedBetweenRegions() {
+    // Red has a penguin on each side of the hole column, white is cut off in the bottom corner.
+    int[][] fish = {{5, 0, 1}, {3, 0, 2}, {2, 0, 4}, {0, 0, 0}, {0, 0, 0}, {0, 0, 1}, {0, 0, 1}};
+    GameState gs = twoPlayers(fish, new BoardPosition(0, 0), new BoardPosition(5, 2),
+            new BoardPosition(0, 2), new BoardPosition(6, 2));
+    EndgameSolver solver = EndgameSolver.of(gs);
+    assertNotNull(solver);
+    assertEquals(5, solver.value(1));
+    assertEquals(new Strategy(false).getMinMaxAction(new GameTreeNode(gs), 3),
+            new Strategy(true).getMinMaxAction(new GameTreeNode(gs), 3));
+  }
+
+  @Test
+  public void sameActionsAsMinimax() {
+    Random random = new Random(46);
+    int solved = 0;
+    for (int game = 0; game < 60; game++) {
+      int[][] fish = new int[5 + random.nextInt(3)][3 + random.nextInt(2)];
+      for (int[] row : fish) {
+        for (int c = 0; c < row.length; c++) {
+          row[c] = random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(5);
+        }
+      }
+      List<BoardPosition> free = new ArrayList<>();
+      for (int r = 0; r < fish.length; r++) {
+        for (int c = 0; c < fish[r].length; c++) {
+          if (fish[r][c] > 0) {
+            free.add(new BoardPosition(r, c));
+          }
+        }
+      }
+      if (free.size() < 8) {
+        continue;
+      }
+      Collections.shuffle(free, random);
+      GameState gs = twoPlayers(fish, free.subList(0, 4).toArray(new BoardPosition[0]));
+
+      while (gs.movesPossible()) {
+        List<Action> actions = gs.getPossibleActions();
+        if (actions.get(0) instanceof Move && EndgameSolver.of(gs) != null) {
+          solved++;
+          for (int depth = 1; depth <= 3; depth++) {
+            assertEquals("Game " + game + ", depth " + depth,
+                    new Strategy(false).getMinMaxAction(new GameTreeNode(gs), depth),
+                    new Strategy(true).getMinMaxAction(new GameTreeNode(gs), depth));
+          }
+        }
+        actions.get(random.nextInt(actions.size())).perform(gs);
+      }
+    }
+    assertTrue(solved > 20);
+  }
+}
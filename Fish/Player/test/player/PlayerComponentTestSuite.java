@@ -3,10 +3,14 @@ package player;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import remote.RemotePlayerComponentTest;
+
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
         StrategyTest.class,
-        PlayerComponentTest.class
+        EndgameSolverTest.class,
+        PlayerComponentTest.class,
+        RemotePlayerComponentTest.class
 })
 
 public class PlayerComponentTestSuite {
@@ -0,0 +1,448 @@
+package remote;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import game.model.Action;
+import game.model.Board;
+import game.model.BoardPosition;
+import game.model.GameState;
+import game.model.GameTreeNode;
+import game.model.Move;
+import game.model.Pass;
+import game.model.Penguin;
+import game.model.Place;
+import game.model.Player;
+import player.IPlayerComponent;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for remote players connected to a PlayerServer over loopback sockets.
+ */
+public class RemotePlayerComponentTest {
+  PlayerServer server;
+  List<Socket> clients;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new PlayerServer(0, 2, 1000);
+    clients = new ArrayList<>();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (Socket s : clients) {
+      s.close();
+    }
+    server.close();
+  }
+
+  /**
+   * Connects a client that sends the given sign-up message and then answers every message from
+   * the server with the result of the given function (or not at all, for null), on its own thread.
+   */
+  private void connect(String signUp, Function<JsonElement, String> answer) throws IOException {
+    Socket socket = new Socket("localhost", server.getPort());
+    clients.add(socket);
+    PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+            StandardCharsets.UTF_8));
+    out.println(signUp);
+    Thread t = new Thread(() -> {
+      try {
+        String line;
+        while ((line = in.readLine()) != null) {
+          String reply = answer.apply(JsonParser.parseString(line));
+          if (reply != null) {
+            out.println(reply);
+          }
+        }
+      } catch (IOException e) {
+        // The test has closed the socket.
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /**
+   * Answers informational messages with their acknowledgement, placements with the first empty
+   * tile of the first row and turns with a pass.
+   */
+  private static String polite(JsonElement message) {
+    if (message.isJsonPrimitive()) {
+      switch (message.getAsString()) {
+        case JsonProtocol.TOURNAMENT_START:
+          return new JsonPrimitive(JsonProtocol.ACK_TOURNAMENT_START).toString();
+        case JsonProtocol.GAME_START:
+          return new JsonPrimitive(JsonProtocol.ACK_GAME_START).toString();
+        case JsonProtocol.GAME_END:
+          return new JsonPrimitive(JsonProtocol.ACK_GAME_END).toString();
+        case JsonProtocol.TOURNAMENT_END:
+          return new JsonPrimitive(JsonProtocol.ACK_TOURNAMENT_END).toString();
+        default:
+          return null;
+      }
+    }
+    if (message.getAsJsonObject().getAsJsonArray("players").get(0).getAsJsonObject()
+            .getAsJsonArray("places").size() == 0) {
+      return "[0,1]";
+    }
+    return "false";
+  }
+
+  @Test
+  public void signUpAndPlay() throws Exception {
+    connect("\"alice\"", RemotePlayerComponentTest::polite);
+    List<IPlayerComponent> players = server.awaitPlayers(1, 5000);
+    assertEquals(1, players.size());
+    RemotePlayerComponent alice = (RemotePlayerComponent) players.get(0);
+    assertEquals("alice", alice.getName());
+    assertEquals(1, alice.getAge());
+
+    alice.joinTournament();
+    alice.startPlaying(Penguin.PenguinColor.RED);
+    assertEquals(Penguin.PenguinColor.RED, alice.getColor());
+
+    Player red = new Player(1, Penguin.PenguinColor.RED);
+    Player white = new Player(2, Penguin.PenguinColor.WHITE);
+    GameState gs = new GameState(new HashSet<>(Arrays.asList(red, white)),
+            new Board(new int[][] {{1, 2, 3}, {4, 5, 1}}));
+    Place place = alice.placePenguin(new GameTreeNode(gs));
+    assertEquals(new BoardPosition(0, 1), place.getPosition());
+
+    place.perform(gs);
+    new Place(new BoardPosition(1, 1), white).perform(gs);
+    assertTrue(alice.takeTurnAsync(new GameTreeNode(gs)).get() instanceof Pass);
+    alice.finishPlaying();
+    alice.leaveTournament();
+    assertTrue(alice.isConnected());
+  }
+
+  @Test
+  public void stateSentInTurnOrder() {
+    Player red = new Player(5, Penguin.PenguinColor.RED);
+    Player white = new Player(2, Penguin.PenguinColor.WHITE);
+    Player brown = new Player(9, Penguin.PenguinColor.BROWN);
+    GameState gs = new GameState(new HashSet<>(Arrays.asList(red, white, brown)),
+            new Board(new int[][] {{1, 2, 3}, {4, 0, 1}}));
+    gs.setNextPlayer();
+    String json = JsonProtocol.stateToJson(gs).toString();
+    assertTrue(json.startsWith("{\"players\":[{\"color\":\"red\",\"score\":0,\"places\":[]},"
+            + "{\"color\":\"brown\""));
+    assertTrue(json.endsWith("\"board\":[[1,2,3],[4,0,1]]}"));
+
+    Action a = JsonProtocol.parseAction(JsonParser.parseString("[[0,0],[1,2]]"), red);
+    assertEquals(new Move(new BoardPosition(1, 2), new BoardPosition(0, 0), red), a);
+    assertEquals("[[0,0],[1,2]]", JsonProtocol.actionToJson(a).toString());
+  }
+
+  @Test
+  public void silentClientTimesOut() throws Exception {
+    connect("\"bob\"", message -> null);
+    RemotePlayerComponent bob = (RemotePlayerComponent) server.awaitPlayers(1, 5000).get(0);
+    try {
+      bob.joinTournament();
+      fail("A client that never answers should fail.");
+    } catch (IllegalStateException e) {
+      assertFalse(bob.isConnected());
+    }
+  }
+
+  @Test
+  public void wrongAnswerDisconnects() throws Exception {
+    connect("\"carol\"", message -> "[9]");
+    RemotePlayerComponent carol = (RemotePlayerComponent) server.awaitPlayers(1, 5000).get(0);
+    try {
+      carol.joinTournament();
+      fail("A client that answers with the wrong message should fail.");
+    } catch (IllegalStateException e) {
+      assertFalse(carol.isConnected());
+    }
+  }
+
+  @Test
+  public void invalidSignUpRejected() throws Exception {
+    connect("{\"name\": \"dave\"}", RemotePlayerComponentTest::polite);
+    assertTrue(server.awaitPlayers(1, 500).isEmpty());
+  }
+
+  /**
+   * Answers like polite, but in delta mode: keeps the client's State, applies every Delta to it
+   * and asks for the full State when the hash differs, recording every request received. A client
+   * that is meant to mishandle Deltas never applies them correctly.
+   */
+  private static Function<JsonElement, String> deltaClient(List<JsonObject> received,
+                                                          boolean applyCorrectly) {
+    JsonObject[] state = new JsonObject[1];
+    return message -> {
+      if (message.isJsonPrimitive()) {
+        return polite(message);
+      }
+      JsonObject request = message.getAsJsonObject();
+      received.add(request);
+      if (request.has(JsonProtocol.DELTA)) {
+        JsonObject next = applyCorrectly ? JsonProtocol.applyDelta(state[0], request) : state[0];
+        if (!JsonProtocol.stateHash(next).equals(request.get("hash").getAsString())) {
+          return new JsonPrimitive(JsonProtocol.RESEND_STATE).toString();
+        }
+        state[0] = next;
+      }
+      else {
+        state[0] = request;
+      }
+      return polite(state[0]);
+    };
+  }
+
+  /**
+   * Makes a two-player game on a 30 by 30 board with both penguins placed.
+   */
+  private static GameState placedGame(Player red, Player white) {
+    int[][] fish = new int[30][30];
+    for (int[] row : fish) {
+      Arrays.fill(row, 3);
+    }
+    GameState gs = new GameState(new HashSet<>(Arrays.asList(red, white)), new Board(fish));
+    new Place(new BoardPosition(0, 1), red).perform(gs);
+    new Place(new BoardPosition(29, 29), white).perform(gs);
+    return gs;
+  }
+
+  @Test
+  public void deltaModeSendsRemovedTiles() throws Exception {
+    List<JsonObject> received = Collections.synchronizedList(new ArrayList<>());
+    connect("[\"erin\", \"delta\"]", deltaClient(received, true));
+    RemotePlayerComponent erin = (RemotePlayerComponent) server.awaitPlayers(1, 5000).get(0);
+    assertEquals("erin", erin.getName());
+    erin.startPlaying(Penguin.PenguinColor.RED);
+
+    Player red = new Player(1, Penguin.PenguinColor.RED);
+    Player white = new Player(2, Penguin.PenguinColor.WHITE);
+    GameState gs = placedGame(red, white);
+    assertTrue(erin.takeTurn(new GameTreeNode(gs)) instanceof Pass);
+    gs.getPossibleActions().get(0).perform(gs);
+    gs.getPossibleActions().get(0).perform(gs);
+    assertTrue(erin.takeTurn(new GameTreeNode(gs)) instanceof Pass);
+
+    assertEquals(2, received.size());
+    assertEquals(JsonProtocol.stateToJson(placedGame(new Player(1, Penguin.PenguinColor.RED),
+            new Player(2, Penguin.PenguinColor.WHITE))), received.get(0));
+    JsonObject delta = received.get(1);
+    assertEquals(2, delta.getAsJsonObject(JsonProtocol.DELTA).getAsJsonArray("removed").size());
+    assertTrue(delta.toString().length() * 4 < JsonProtocol.stateToJson(gs).toString().length());
+    JsonObject applied = JsonProtocol.applyDelta(received.get(0), delta);
+    assertEquals(JsonProtocol.stateToJson(gs), applied);
+    assertEquals(delta.get("hash").getAsString(), JsonProtocol.stateHash(applied));
+
+    erin.startPlaying(Penguin.PenguinColor.RED);
+    assertTrue(erin.takeTurn(new GameTreeNode(gs)) instanceof Pass);
+    assertFalse(received.get(2).has(JsonProtocol.DELTA));
+  }
+
+  @Test
+  public void hashMismatchResendsState() throws Exception {
+    List<JsonObject> received = Collections.synchronizedList(new ArrayList<>());
+    connect("[\"fay\", \"delta\"]", deltaClient(received, false));
+    RemotePlayerComponent fay = (RemotePlayerComponent) server.awaitPlayers(1, 5000).get(0);
+    fay.startPlaying(Penguin.PenguinColor.RED);
+
+    Player red = new Player(1, Penguin.PenguinColor.RED);
+    Player white = new Player(2, Penguin.PenguinColor.WHITE);
+    GameState gs = placedGame(red, white);
+    fay.takeTurn(new GameTreeNode(gs));
+    gs.getPossibleActions().get(0).perform(gs);
+    gs.getPossibleActions().get(0).perform(gs);
+    assertTrue(fay.takeTurn(new GameTreeNode(gs)) instanceof Pass);
+
+    assertEquals(3, received.size());
+    assertTrue(received.get(1).has(JsonProtocol.DELTA));
+    assertEquals(JsonProtocol.stateToJson(gs), received.get(2));
+    assertTrue(fay.isConnected());
+  }
+
+  @Test
+  public void unknownSignUpOptionRejected() throws Exception {
+    connect("[\"gus\", \"zip\"]", RemotePlayerComponentTest::polite);
+    assertTrue(server.awaitPlayers(1, 500).isEmpty());
+  }
+
+  /**
+   * Connects a client that signs up for the binary encoding and then answers every frame from the
+   * server with the frame written by the given function, on its own thread.
+   */
+  private void connectBinary(String name, BiFunction<ByteBuffer, ByteBuffer, ByteBuffer> answer)
+          throws IOException {
+    Socket socket = new Socket("localhost", server.getPort());
+    clients.add(socket);
+    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+    DataInputStream in = new DataInputStream(socket.getInputStream());
+    out.write(("[\"" + name + "\", \"binary\"]\n").getBytes(StandardCharsets.UTF_8));
+    Thread t = new Thread(() -> {
+      try {
+        StringBuilder ack = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+          ack.append((char) b);
+        }
+        assertEquals("\"binary\"", ack.toString());
+        ByteBuffer buf = ByteBuffer.allocate(16);
+        while (true) {
+          byte[] message = new byte[in.readInt()];
+          in.readFully(message);
+          buf.clear();
+          buf = answer.apply(ByteBuffer.wrap(message), buf);
+          out.write(buf.array(), 0, buf.position());
+        }
+      } catch (IOException e) {
+        // The test has closed the socket.
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /**
+   * Answers like polite, in the binary encoding.
+   */
+  private static ByteBuffer politeBinary(ByteBuffer message, ByteBuffer buf) {
+    byte type = message.get(0);
+    if (type != BinaryProtocol.STATE) {
+      return BinaryProtocol.writeMessage((byte) (type | BinaryProtocol.ACK), buf);
+    }
+    GameState gs = BinaryProtocol.readState(message);
+    if (gs.getPenguins().isEmpty()) {
+      return BinaryProtocol.writePosition(new BoardPosition(0, 1), buf);
+    }
+    return BinaryProtocol.writeAction(new Pass(gs.getCurrentPlayer()), buf);
+  }
+
+  @Test
+  public void binarySignUpAndPlay() throws Exception {
+    connectBinary("ivy", RemotePlayerComponentTest::politeBinary);
+    RemotePlayerComponent ivy = (RemotePlayerComponent) server.awaitPlayers(1, 5000).get(0);
+    assertEquals("ivy", ivy.getName());
+    ivy.joinTournament();
+    ivy.startPlaying(Penguin.PenguinColor.RED);
+
+    Player red = new Player(1, Penguin.PenguinColor.RED);
+    Player white = new Player(2, Penguin.PenguinColor.WHITE);
+    GameState gs = new GameState(new HashSet<>(Arrays.asList(red, white)),
+            new Board(new int[][] {{1, 2, 3}, {4, 5, 1}}));
+    assertEquals(new BoardPosition(0, 1), ivy.placePenguin(new GameTreeNode(gs)).getPosition());
+    gs = placedGame(red, white);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(ivy.takeTurn(new GameTreeNode(gs)) instanceof Pass);
+    }
+    ivy.finishPlaying();
+    ivy.leaveTournament();
+    assertTrue(ivy.isConnected());
+  }
+
+  @Test
+  public void binaryMessagesRoundTrip() {
+    Player red = new Player(1, Penguin.PenguinColor.RED);
+    Player white = new Player(2, Penguin.PenguinColor.WHITE);
+    GameState gs = placedGame(red, white);
+    ByteBuffer buf = BinaryProtocol.writeState(gs, ByteBuffer.allocate(4));
+    buf.flip();
+    assertEquals(buf.remaining() - BinaryProtocol.LENGTH_BYTES, buf.getInt());
+    assertTrue(buf.remaining() * 4 < JsonProtocol.stateToJson(gs).toString().length());
+    GameState decoded = BinaryProtocol.readState(buf);
+    assertEquals(JsonProtocol.stateToJson(gs), JsonProtocol.stateToJson(decoded));
+
+    Move m = new Move(new BoardPosition(200, 3), new BoardPosition(0, 1), red);
+    buf.clear();
+    buf = BinaryProtocol.writeAction(m, buf);
+    buf.flip();
+    assertEquals(6, buf.getInt());
+    assertEquals(m, BinaryProtocol.readAction(buf, red));
+  }
+
+  @Test
+  public void wrongFrameDisconnects() throws Exception {
+    connectBinary("jo", (message, buf) -> BinaryProtocol.writeMessage(BinaryProtocol.PASS, buf));
+    RemotePlayerComponent jo = (RemotePlayerComponent) server.awaitPlayers(1, 5000).get(0);
+    try {
+      jo.joinTournament();
+      fail("A client that answers with the wrong frame should fail.");
+    } catch (IllegalStateException e) {
+      assertFalse(jo.isConnected());
+    }
+  }
+
+  @Test
+  public void manyPlayersMultiplexed() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      connect("\"p" + i + "\"", RemotePlayerComponentTest::polite);
+    }
+    List<IPlayerComponent> players = server.awaitPlayers(100, 10000);
+    assertEquals(100, players.size());
+    for (int i = 0; i < players.size(); i++) {
+      assertEquals(i + 1, players.get(i).getAge());
+      players.get(i).joinTournament();
+    }
+  }
+
+  @Test
+  public void loopSurvivesFailures() throws Exception {
+    EventLoop loop = new EventLoop("failing-loop");
+    Pipe pipe = Pipe.open();
+    pipe.source().configureBlocking(false);
+    CompletableFuture<Void> registered = new CompletableFuture<>();
+    loop.execute(() -> {
+      throw new IllegalStateException("A task failed.");
+    });
+    loop.execute(() -> {
+      try {
+        loop.register(pipe.source(), SelectionKey.OP_READ, key -> {
+          throw new CancelledKeyException();
+        });
+        registered.complete(null);
+      } catch (IOException e) {
+        registered.completeExceptionally(e);
+      }
+    });
+    registered.get(5, TimeUnit.SECONDS);
+    pipe.sink().write(ByteBuffer.wrap(new byte[]{1}));
+
+    for (long deadline = System.currentTimeMillis() + 5000;
+         pipe.source().isOpen() && System.currentTimeMillis() < deadline; ) {
+      Thread.sleep(10);
+    }
+    assertFalse(pipe.source().isOpen());
+    CompletableFuture<Void> stillRunning = new CompletableFuture<>();
+    loop.execute(() -> stillRunning.complete(null));
+    stillRunning.get(5, TimeUnit.SECONDS);
+    pipe.sink().close();
+    loop.close();
+  }
+}